@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# Starts a cluster of instances on localhost that partition the roster between them.
+#
+# Build the boot jar first with ./gradlew bootJar, then run: scripts/cluster-local.sh [members]
+# The instances listen on ports 8080, 8081, ... (BASE_PORT overrides the first one) and are stopped with Ctrl-C.
+set -euo pipefail
+
+MEMBERS=${1:-3}
+BASE_PORT=${BASE_PORT:-8080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+BOOT_JAR=$(ls "$ROOT"/build/libs/*-SNAPSHOT.jar 2>/dev/null | grep -v plain | head -n 1 || true)
+
+if [[ -z "$BOOT_JAR" ]]; then
+    echo "no boot jar, run ./gradlew bootJar" >&2
+    exit 1
+fi
+
+urls=()
+for ((i = 0; i < MEMBERS; i++)); do
+    urls+=("http://localhost:$((BASE_PORT + i))")
+done
+member_list=$(IFS=,; echo "${urls[*]}")
+
+pids=()
+trap 'kill "${pids[@]}" 2> /dev/null || true' EXIT
+for ((i = 0; i < MEMBERS; i++)); do
+    port=$((BASE_PORT + i))
+    java -jar "$BOOT_JAR" --server.port="$port" \
+        --employee.cluster.members="$member_list" --employee.cluster.self="http://localhost:$port" \
+        > "$ROOT/build/cluster-$port.log" 2>&1 &
+    pids+=($!)
+done
+
+for url in "${urls[@]}"; do
+    until curl -sf "$url/actuator/health" > /dev/null; do
+        sleep 0.2
+    done
+    echo "$url ready"
+done
+echo "Cluster of $MEMBERS members running, logs in build/cluster-*.log. Press Ctrl-C to stop."
+wait
@@ -0,0 +1,70 @@
+#!/usr/bin/env bash
+# Measures time to ready and first request latency of the JVM, CDS and native variants.
+#
+# Build the variants first:
+#   ./gradlew bootJar cdsArchive
+#   ./gradlew -Pnative nativeCompile    (optional, needs GraalVM)
+# Then run: scripts/startup-benchmark.sh [runs]
+#
+# "ready" is the time from process start until /actuator/health answers, "first request" the latency of the first
+# /v3/api-docs call, which builds the OpenAPI model lazily.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+BOOT_JAR=$(ls "$ROOT"/build/libs/*-SNAPSHOT.jar 2>/dev/null | grep -v plain | head -n 1 || true)
+CDS_DIR="$ROOT/build/cds"
+NATIVE_BIN="$ROOT/build/native/nativeCompile/rqChallenge"
+MAIN_CLASS=com.example.rqchallenge.RqChallengeApplication
+
+now_ms() {
+    date +%s%3N
+}
+
+measure() {
+    local name=$1
+    shift
+    local ready_total=0 first_total=0
+    for ((i = 1; i <= RUNS; i++)); do
+        local start pid ready first_start first_end
+        start=$(now_ms)
+        "$@" --server.port="$PORT" > /dev/null 2>&1 &
+        pid=$!
+        until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "$name: process exited before it was ready" >&2
+                return 1
+            fi
+            sleep 0.02
+        done
+        ready=$(($(now_ms) - start))
+        first_start=$(now_ms)
+        curl -sf "http://localhost:$PORT/v3/api-docs" > /dev/null
+        first_end=$(now_ms)
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        ready_total=$((ready_total + ready))
+        first_total=$((first_total + first_end - first_start))
+    done
+    printf '%-8s ready %6d ms   first request %6d ms   (mean of %d runs)\n' \
+        "$name" $((ready_total / RUNS)) $((first_total / RUNS)) "$RUNS"
+}
+
+if [[ -n "$BOOT_JAR" ]]; then
+    measure jvm java -jar "$BOOT_JAR"
+else
+    echo "jvm: no boot jar, run ./gradlew bootJar" >&2
+fi
+
+if [[ -f "$CDS_DIR/app.jsa" && -f "$CDS_DIR/classpath.txt" ]]; then
+    measure cds java -Xshare:auto -XX:SharedArchiveFile="$CDS_DIR/app.jsa" -cp "$(cat "$CDS_DIR/classpath.txt")" "$MAIN_CLASS"
+else
+    echo "cds: no archive, run ./gradlew cdsArchive" >&2
+fi
+
+if [[ -x "$NATIVE_BIN" ]]; then
+    measure native "$NATIVE_BIN"
+else
+    echo "native: no executable, run ./gradlew -Pnative nativeCompile" >&2
+fi
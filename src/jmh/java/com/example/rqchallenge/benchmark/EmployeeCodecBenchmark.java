@@ -0,0 +1,87 @@
+package com.example.rqchallenge.benchmark;
+
+import com.example.rqchallenge.model.CreateEmployeeResponse;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reflective default mapper with the shared Blackbird mapper on the roster payload, and the former
+ * untyped create response handling with the typed one. Run with {@code ./gradlew jmh}; the gc profiler reports the
+ * allocation per operation next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmployeeCodecBenchmark {
+
+    @Param({"100", "10000"})
+    private int rosterSize;
+
+    private ObjectMapper reflectiveMapper;
+    private ObjectMapper sharedMapper;
+    private EmployeeResponse roster;
+    private byte[] rosterJson;
+    private byte[] createResponseJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        reflectiveMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        sharedMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .registerModule(new BlackbirdModule());
+        List<Employee> employees = new ArrayList<>(rosterSize);
+        for (int i = 0; i < rosterSize; i++) {
+            employees.add(new Employee(Integer.toString(i), "Employee " + i, Integer.toString(30000 + i), Integer.toString(20 + i % 45), ""));
+        }
+        roster = new EmployeeResponse("success", employees, "Successfully! All records has been fetched.");
+        rosterJson = reflectiveMapper.writeValueAsBytes(roster);
+        createResponseJson = ("{\"status\":\"success\",\"data\":{\"name\":\"John Doe\",\"salary\":\"50000\",\"age\":\"30\",\"id\":4711},"
+                + "\"message\":\"Successfully! Record has been added.\"}").getBytes();
+    }
+
+    @Benchmark
+    public byte[] serializeRosterReflective() throws IOException {
+        return reflectiveMapper.writeValueAsBytes(roster);
+    }
+
+    @Benchmark
+    public byte[] serializeRosterShared() throws IOException {
+        return sharedMapper.writeValueAsBytes(roster);
+    }
+
+    @Benchmark
+    public EmployeeResponse parseRosterReflective() throws IOException {
+        return reflectiveMapper.readValue(rosterJson, EmployeeResponse.class);
+    }
+
+    @Benchmark
+    public EmployeeResponse parseRosterShared() throws IOException {
+        return sharedMapper.readValue(rosterJson, EmployeeResponse.class);
+    }
+
+    /**
+     * The former create path: untyped body, a new mapper per call and a round trip through a map.
+     */
+    @Benchmark
+    public Object parseCreateResponseUntyped() throws IOException {
+        Object body = reflectiveMapper.readValue(createResponseJson, Object.class);
+        Map<String, Object> responseBody = new ObjectMapper().convertValue(body, new TypeReference<>() {});
+        return responseBody.get("data");
+    }
+
+    @Benchmark
+    public CreateEmployeeResponse parseCreateResponseTyped() throws IOException {
+        return sharedMapper.readValue(createResponseJson, CreateEmployeeResponse.class);
+    }
+
+}
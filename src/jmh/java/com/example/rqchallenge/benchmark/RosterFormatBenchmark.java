@@ -0,0 +1,60 @@
+package com.example.rqchallenge.benchmark;
+
+import com.example.rqchallenge.model.Employee;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Codec CPU of the full-roster payload ({@code GET /api/v1/employee}) in JSON, CBOR and Smile. The payload size of
+ * every format is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RosterFormatBenchmark {
+
+    private static final TypeReference<List<Employee>> ROSTER_TYPE = new TypeReference<>() {};
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"10000"})
+    private int rosterSize;
+
+    private ObjectMapper mapper;
+    private List<Employee> roster;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonFactory factory = "cbor".equals(format) ? new CBORFactory() : "smile".equals(format) ? new SmileFactory() : new JsonFactory();
+        mapper = new ObjectMapper(factory).registerModule(new BlackbirdModule());
+        roster = new ArrayList<>(rosterSize);
+        for (int i = 0; i < rosterSize; i++) {
+            roster.add(new Employee(Integer.toString(i), "Employee " + i, Integer.toString(30000 + i), Integer.toString(20 + i % 45), ""));
+        }
+        payload = mapper.writeValueAsBytes(roster);
+        System.out.printf("%n%s roster payload for %d employees: %d bytes%n", format, rosterSize, payload.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(roster);
+    }
+
+    @Benchmark
+    public List<Employee> parse() throws IOException {
+        return mapper.readValue(payload, ROSTER_TYPE);
+    }
+
+}
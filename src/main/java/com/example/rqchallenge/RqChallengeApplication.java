@@ -1,5 +1,6 @@
 package com.example.rqchallenge;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -8,13 +9,24 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @SpringBootApplication
 @EnableCaching
 public class RqChallengeApplication {
+    /**
+     * The read timeout ends a hanging upstream call itself, well before the request deadline answers the client with
+     * 504, so no upstream thread keeps waiting for an answer nobody reads.
+     */
     @Bean
     @Primary
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     @Value("${employee.upstream.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                     @Value("${employee.upstream.read-timeout-ms:5000}") long readTimeoutMs) {
+        return builder
+                .setConnectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .setReadTimeout(Duration.ofMillis(readTimeoutMs))
+                .build();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,148 @@
+package com.example.rqchallenge.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Expiry of the roster cache that follows how often the roster actually changes. Every upstream refresh reports
+ * whether it found a different roster and every local write counts as a change. From these the change rate is
+ * estimated with an exponentially decaying average, and the time to live is chosen so that on average only
+ * {@code targetChanges} changes fall into one TTL. A roster that has not changed for hours is refreshed rarely, a
+ * batch of writes brings the TTL down right away. The TTL stays between the min and max bounds, the max being the
+ * staleness the service promises.
+ */
+@Component
+public class AdaptiveRosterExpiry implements Expiry<Object, Object> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveRosterExpiry.class);
+
+    private final long minTtlNanos;
+    private final long maxTtlNanos;
+    private final double targetChanges;
+    private final double halfLifeNanos;
+    private final LongSupplier clock;
+    private final Counter changedRefreshes;
+    private final Counter unchangedRefreshes;
+
+    private volatile long ttlNanos;
+    private double decayedChanges;
+    private double decayedNanos;
+    private long lastObservationNanos;
+    private boolean observed;
+
+    @Autowired
+    public AdaptiveRosterExpiry(@Value("${employee.cache.roster.ttl.min-ms:5000}") long minTtlMs,
+                                @Value("${employee.cache.roster.ttl.max-ms:600000}") long maxTtlMs,
+                                @Value("${employee.cache.roster.ttl.initial-ms:60000}") long initialTtlMs,
+                                @Value("${employee.cache.roster.ttl.target-changes:0.2}") double targetChanges,
+                                @Value("${employee.cache.roster.ttl.half-life-ms:3600000}") long halfLifeMs,
+                                MeterRegistry meterRegistry) {
+        this(minTtlMs, maxTtlMs, initialTtlMs, targetChanges, halfLifeMs, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveRosterExpiry(long minTtlMs, long maxTtlMs, long initialTtlMs, double targetChanges, long halfLifeMs,
+                         MeterRegistry meterRegistry, LongSupplier clock) {
+        this.minTtlNanos = TimeUnit.MILLISECONDS.toNanos(minTtlMs);
+        this.maxTtlNanos = TimeUnit.MILLISECONDS.toNanos(maxTtlMs);
+        this.ttlNanos = Math.max(minTtlNanos, Math.min(maxTtlNanos, TimeUnit.MILLISECONDS.toNanos(initialTtlMs)));
+        this.targetChanges = targetChanges;
+        this.halfLifeNanos = TimeUnit.MILLISECONDS.toNanos(halfLifeMs);
+        this.clock = clock;
+        this.changedRefreshes = meterRegistry.counter("roster.refresh", "changed", "true");
+        this.unchangedRefreshes = meterRegistry.counter("roster.refresh", "changed", "false");
+        Gauge.builder("roster.cache.ttl", this, expiry -> expiry.getTtlMillis() / 1000.0)
+                .baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("roster.change.rate", this, AdaptiveRosterExpiry::getChangesPerHour)
+                .baseUnit("changes/hour").register(meterRegistry);
+    }
+
+    /**
+     * Records the outcome of a roster refresh from the external API. The initial load is not counted as a refresh.
+     *
+     * @param changed Whether the refreshed roster differs from the cached one
+     */
+    public void recordRefresh(boolean changed) {
+        if (observe(changed ? 1 : 0)) {
+            (changed ? changedRefreshes : unchangedRefreshes).increment();
+        }
+    }
+
+    /**
+     * Records a write applied to the cached roster, by this or another instance.
+     */
+    public void recordLocalWrite() {
+        observe(1);
+    }
+
+    /**
+     * @return False for the first observation, which only starts the clock
+     */
+    private synchronized boolean observe(double changes) {
+        long now = clock.getAsLong();
+        if (!observed) {
+            // The first observation is the initial load, it only starts the clock
+            observed = true;
+            lastObservationNanos = now;
+            return false;
+        }
+        long elapsed = Math.max(0, now - lastObservationNanos);
+        double decay = Math.pow(0.5, elapsed / halfLifeNanos);
+        decayedChanges = decayedChanges * decay + changes;
+        decayedNanos = decayedNanos * decay + elapsed;
+        lastObservationNanos = now;
+
+        long previous = ttlNanos;
+        double changesPerNano = changesPerNano();
+        ttlNanos = changesPerNano > 0
+                ? (long) Math.max(minTtlNanos, Math.min(maxTtlNanos, targetChanges / changesPerNano))
+                : maxTtlNanos;
+        if (previous != ttlNanos) {
+            logger.debug("Roster TTL changed from {} ms to {} ms ({} changes/hour).", TimeUnit.NANOSECONDS.toMillis(previous),
+                    TimeUnit.NANOSECONDS.toMillis(ttlNanos), getChangesPerHour());
+        }
+        return true;
+    }
+
+    private double changesPerNano() {
+        // Before any time has been observed there is no rate yet, the changes alone mean "frequent"
+        if (decayedNanos <= 0) {
+            return decayedChanges > 0 ? Double.MAX_VALUE : 0;
+        }
+        return decayedChanges / decayedNanos;
+    }
+
+    public long getTtlMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ttlNanos);
+    }
+
+    public synchronized double getChangesPerHour() {
+        double changesPerNano = changesPerNano();
+        return changesPerNano == Double.MAX_VALUE ? Double.POSITIVE_INFINITY : changesPerNano * TimeUnit.HOURS.toNanos(1);
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return ttlNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return ttlNanos;
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.example.rqchallenge.cache;
+
+/**
+ * Names of the in-process caches and their fixed keys. Each cache has its own size and expiry policy, see
+ * {@code CacheConfig}.
+ */
+public final class EmployeeCaches {
+
+    /**
+     * The full roster, stored once under {@link #ROSTER_KEY}.
+     */
+    public static final String ROSTER = "employeeRoster";
+    public static final String ROSTER_KEY = "allEmployees";
+
+    /**
+     * Single employees fetched from the external API because they were not in the cached roster.
+     */
+    public static final String BY_ID = "employeeById";
+
+    /**
+     * Name search results as positions in the roster snapshot, keyed by snapshot version and case-folded search
+     * string.
+     */
+    public static final String SEARCH = "employeeSearch";
+
+    /**
+     * Ids the external API answered with 404, so repeated lookups of a missing employee do not go upstream.
+     */
+    public static final String NEGATIVE = "employeeNotFound";
+
+    private EmployeeCaches() {
+    }
+
+}
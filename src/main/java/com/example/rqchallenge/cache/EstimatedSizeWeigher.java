@@ -0,0 +1,64 @@
+package com.example.rqchallenge.cache;
+
+import com.example.rqchallenge.model.Employee;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.util.Collection;
+
+/**
+ * Weighs cache entries by their approximate retained heap size in bytes, so a cache bounded with
+ * {@code maximumWeight} holds a 200k employee roster and a single employee at their real cost instead of one entry
+ * each. The estimate assumes compressed references and compact strings; it does not need to be exact, only
+ * proportional.
+ */
+public class EstimatedSizeWeigher implements Weigher<Object, Object> {
+
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int UNKNOWN_VALUE = 64;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        return (int) Math.min(Integer.MAX_VALUE, estimate(key) + estimate(value));
+    }
+
+    /**
+     * @param value A cached key or value
+     * @return Its approximate size in bytes
+     */
+    public static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return STRING_OVERHEAD + ((String) value).length();
+        }
+        if (value instanceof Employee) {
+            Employee employee = (Employee) value;
+            return OBJECT_HEADER + 5 * REFERENCE
+                    + estimate(employee.getId())
+                    + estimate(employee.getEmployeeName())
+                    + estimate(employee.getEmployeeSalary())
+                    + estimate(employee.getEmployeeAge())
+                    + estimate(employee.getProfileImage());
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            long size = OBJECT_HEADER * 2L + (long) REFERENCE * collection.size();
+            for (Object element : collection) {
+                size += estimate(element);
+            }
+            return size;
+        }
+        if (value instanceof int[]) {
+            return OBJECT_HEADER + 4L * ((int[]) value).length;
+        }
+        if (value instanceof Boolean) {
+            // Boolean.TRUE and FALSE are shared instances
+            return REFERENCE;
+        }
+        return UNKNOWN_VALUE;
+    }
+
+}
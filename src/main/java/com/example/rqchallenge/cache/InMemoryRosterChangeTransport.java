@@ -0,0 +1,27 @@
+package com.example.rqchallenge.cache;
+
+import com.example.rqchallenge.model.RosterChange;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers changes synchronously to every subscriber of the same instance. Sharing one instance between several
+ * broadcasters simulates a cluster in tests, a single instance on its own simply echoes its own changes.
+ */
+public class InMemoryRosterChangeTransport implements RosterChangeTransport {
+
+    private final List<Consumer<RosterChange>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(RosterChange change) {
+        listeners.forEach(listener -> listener.accept(change));
+    }
+
+    @Override
+    public void subscribe(Consumer<RosterChange> listener) {
+        listeners.add(listener);
+    }
+
+}
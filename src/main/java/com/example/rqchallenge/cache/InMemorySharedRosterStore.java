@@ -0,0 +1,64 @@
+package com.example.rqchallenge.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local stand-in for the shared store, used for tests and for running several instances in one JVM.
+ */
+public class InMemorySharedRosterStore implements SharedRosterStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<byte[]> get(String key) {
+        return Optional.ofNullable(live(key)).map(entry -> entry.value);
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        entries.put(key, new Entry(value, expiry(ttl)));
+    }
+
+    @Override
+    public boolean tryLock(String key, String owner, Duration ttl) {
+        Entry lock = new Entry(owner.getBytes(StandardCharsets.UTF_8), expiry(ttl));
+        return entries.compute(key, (k, current) -> current == null || current.isExpired() ? lock : current) == lock;
+    }
+
+    @Override
+    public void unlock(String key, String owner) {
+        entries.computeIfPresent(key, (k, current) -> owner.equals(new String(current.value, StandardCharsets.UTF_8)) ? null : current);
+    }
+
+    private Entry live(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isExpired()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private static long expiry(Duration ttl) {
+        return System.currentTimeMillis() + ttl.toMillis();
+    }
+
+    private static final class Entry {
+        private final byte[] value;
+        private final long expiresAt;
+
+        private Entry(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.example.rqchallenge.cache;
+
+import com.example.rqchallenge.model.RosterChange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Sends roster changes as JSON datagrams to a UDP multicast group joined by every instance.
+ */
+public class MulticastRosterChangeTransport implements RosterChangeTransport, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MulticastRosterChangeTransport.class);
+    private static final int MAX_DATAGRAM_SIZE = 8192;
+
+    private final InetAddress group;
+    private final int port;
+    private final ObjectMapper objectMapper;
+    private final MulticastSocket socket;
+    private final List<Consumer<RosterChange>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread receiver;
+
+    public MulticastRosterChangeTransport(String groupAddress, int port, ObjectMapper objectMapper) throws IOException {
+        this.group = InetAddress.getByName(groupAddress);
+        this.port = port;
+        this.objectMapper = objectMapper;
+        this.socket = new MulticastSocket(port);
+        // A null interface joins on the socket's default multicast interface
+        this.socket.joinGroup(new InetSocketAddress(group, port), null);
+        this.receiver = new Thread(this::receive, "roster-change-receiver");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    @Override
+    public void send(RosterChange change) {
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(change);
+            if (payload.length > MAX_DATAGRAM_SIZE) {
+                logger.warn("Roster change {} is too large to broadcast ({} bytes).", change, payload.length);
+                return;
+            }
+            socket.send(new DatagramPacket(payload, payload.length, group, port));
+        } catch (IOException e) {
+            logger.error("Error while broadcasting roster change {}", change, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<RosterChange> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        receiver.interrupt();
+        socket.close();
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                RosterChange change = objectMapper.readValue(packet.getData(), packet.getOffset(), packet.getLength(), RosterChange.class);
+                listeners.forEach(listener -> listener.accept(change));
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    logger.warn("Dropped unreadable roster change datagram: {}", e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                logger.error("Error while applying roster change", e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.example.rqchallenge.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Used when no shared store is configured, every instance then only relies on its own in-process cache.
+ */
+public class NoopSharedRosterStore implements SharedRosterStore {
+
+    @Override
+    public Optional<byte[]> get(String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        // nothing is shared
+    }
+
+    @Override
+    public boolean tryLock(String key, String owner, Duration ttl) {
+        return true;
+    }
+
+    @Override
+    public void unlock(String key, String owner) {
+        // nothing is shared
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.example.rqchallenge.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Shared store speaking the Redis protocol (RESP) over a single connection. Any server implementing GET, SET with
+ * NX/PX and EVAL works, including embedded stand-ins. Failures are logged and treated as a cache miss, the service
+ * then falls back to the external API.
+ */
+public class RedisSharedRosterStore implements SharedRosterStore, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisSharedRosterStore.class);
+    private static final String UNLOCK_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
+    private final String host;
+    private final int port;
+    private final int timeoutMs;
+
+    private Socket socket;
+    private BufferedInputStream in;
+    private OutputStream out;
+
+    public RedisSharedRosterStore(String host, int port, int timeoutMs) {
+        this.host = host;
+        this.port = port;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public Optional<byte[]> get(String key) {
+        try {
+            return Optional.ofNullable((byte[]) command("GET", key));
+        } catch (IOException e) {
+            logger.warn("Shared cache GET failed for key {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        try {
+            command("SET".getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8), value,
+                    "PX".getBytes(StandardCharsets.UTF_8), Long.toString(ttl.toMillis()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("Shared cache SET failed for key {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean tryLock(String key, String owner, Duration ttl) {
+        try {
+            return command("SET", key, owner, "NX", "PX", Long.toString(ttl.toMillis())) != null;
+        } catch (IOException e) {
+            // Without the shared store every instance refreshes on its own
+            logger.warn("Shared cache lock failed for key {}: {}", key, e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void unlock(String key, String owner) {
+        try {
+            command("EVAL", UNLOCK_SCRIPT, "1", key, owner);
+        } catch (IOException e) {
+            logger.warn("Shared cache unlock failed for key {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        disconnect();
+    }
+
+    private Object command(String... args) throws IOException {
+        byte[][] parts = new byte[args.length][];
+        for (int i = 0; i < args.length; i++) {
+            parts[i] = args[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return command(parts);
+    }
+
+    private synchronized Object command(byte[]... args) throws IOException {
+        try {
+            connect();
+            ByteArrayOutputStream request = new ByteArrayOutputStream();
+            request.write(("*" + args.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+            for (byte[] arg : args) {
+                request.write(("$" + arg.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+                request.write(arg);
+                request.write('\r');
+                request.write('\n');
+            }
+            out.write(request.toByteArray());
+            out.flush();
+            return readReply();
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    private Object readReply() throws IOException {
+        int type = in.read();
+        String line = readLine();
+        switch (type) {
+            case '+':
+                return line;
+            case ':':
+                return Long.parseLong(line);
+            case '-':
+                throw new IOException("Redis error: " + line);
+            case '$':
+                int length = Integer.parseInt(line);
+                if (length < 0) {
+                    return null;
+                }
+                byte[] data = in.readNBytes(length);
+                readLine();
+                return data;
+            default:
+                throw new IOException("Unsupported Redis reply type: " + (char) type);
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new EOFException("Connection to Redis closed");
+            }
+            line.append((char) b);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private void connect() throws IOException {
+        if (socket != null && socket.isConnected() && !socket.isClosed()) {
+            return;
+        }
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), timeoutMs);
+        socket.setSoTimeout(timeoutMs);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    private void disconnect() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already broken
+            }
+            socket = null;
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.example.rqchallenge.cache;
+
+import com.example.rqchallenge.model.RosterChange;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries roster changes between service instances. Delivery is best effort, a lost change is repaired by the next
+ * roster refresh.
+ */
+public interface RosterChangeTransport {
+
+    void send(RosterChange change);
+
+    void subscribe(Consumer<RosterChange> listener);
+
+}
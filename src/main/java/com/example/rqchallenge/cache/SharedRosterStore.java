@@ -0,0 +1,28 @@
+package com.example.rqchallenge.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Second level store shared by all instances of the service. It holds the serialized roster snapshot and the lock that
+ * makes sure only one instance refreshes the roster from the external API per TTL.
+ */
+public interface SharedRosterStore {
+
+    Optional<byte[]> get(String key);
+
+    void put(String key, byte[] value, Duration ttl);
+
+    /**
+     * Acquires a lock entry if nobody else holds it.
+     *
+     * @param key   The lock key
+     * @param owner Token identifying the holder, needed to release the lock
+     * @param ttl   Time after which the lock expires if it is never released
+     * @return true when the lock was acquired
+     */
+    boolean tryLock(String key, String owner, Duration ttl);
+
+    void unlock(String key, String owner);
+
+}
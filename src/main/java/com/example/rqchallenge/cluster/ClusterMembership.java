@@ -0,0 +1,97 @@
+package com.example.rqchallenge.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The instances sharing the roster in cluster mode. {@code employee.cluster.members} lists the base URL of every
+ * instance, {@code employee.cluster.self} names this one. Each instance keeps only the employees it owns on the
+ * consistent-hash ring; without members every instance holds the whole roster as before.
+ */
+@Component
+public class ClusterMembership {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterMembership.class);
+
+    private final String self;
+    private final List<String> peers;
+    private final ConsistentHashRing ring;
+
+    @Autowired
+    public ClusterMembership(@Value("${employee.cluster.members:}") String members,
+                             @Value("${employee.cluster.self:}") String self,
+                             @Value("${employee.cluster.virtual-nodes:128}") int virtualNodes) {
+        List<String> memberList = Arrays.stream(members.split(","))
+                .map(String::trim)
+                .filter(member -> !member.isEmpty())
+                .map(ClusterMembership::normalize)
+                .distinct()
+                .collect(Collectors.toList());
+        if (memberList.isEmpty()) {
+            this.self = "";
+            this.peers = Collections.emptyList();
+            this.ring = null;
+            return;
+        }
+        this.self = normalize(self.trim());
+        if (!memberList.contains(this.self)) {
+            throw new IllegalArgumentException("employee.cluster.self '" + self + "' is not one of the cluster members " + memberList);
+        }
+        this.peers = Collections.unmodifiableList(memberList.stream()
+                .filter(member -> !member.equals(this.self))
+                .collect(Collectors.toList()));
+        this.ring = new ConsistentHashRing(memberList, virtualNodes);
+        logger.info("Cluster mode with {} members, this instance is {}.", memberList.size(), this.self);
+    }
+
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    /**
+     * @return All members including this instance in configuration order, empty outside cluster mode
+     */
+    public List<String> getMembers() {
+        return ring == null ? Collections.emptyList() : ring.getMembers();
+    }
+
+    /**
+     * @return The other members in configuration order, empty outside cluster mode
+     */
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    /**
+     * @param id An employee id
+     * @return The member owning the id, this instance outside cluster mode
+     */
+    public String ownerOf(String id) {
+        return ring == null ? self : ring.owner(id);
+    }
+
+    /**
+     * @param id An employee id
+     * @return True when this instance keeps the employee
+     */
+    public boolean isLocal(String id) {
+        return ring == null || self.equals(ring.owner(id));
+    }
+
+    private static String normalize(String member) {
+        return member.endsWith("/") ? member.substring(0, member.length() - 1) : member;
+    }
+
+}
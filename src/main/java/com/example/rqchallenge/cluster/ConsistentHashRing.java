@@ -0,0 +1,86 @@
+package com.example.rqchallenge.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Consistent-hash ring over the cluster members. Every member is placed on the ring at a number of virtual nodes and
+ * owns the keys hashing between its predecessor and itself, so the partitions stay balanced and adding or removing a
+ * member only moves the keys of its own arcs.
+ */
+public final class ConsistentHashRing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final List<String> members;
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * @param members      The member names, at least one
+     * @param virtualNodes Number of ring positions per member
+     */
+    public ConsistentHashRing(List<String> members, int virtualNodes) {
+        if (members.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one member and one virtual node per member");
+        }
+        this.members = Collections.unmodifiableList(new ArrayList<>(members));
+        long[][] placed = new long[members.size() * virtualNodes][];
+        for (int member = 0; member < members.size(); member++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                placed[member * virtualNodes + node] = new long[]{hash(members.get(member) + '#' + node), member};
+            }
+        }
+        // Ties are broken by member index, so every instance builds the same ring from the same configuration
+        Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[placed.length];
+        this.owners = new int[placed.length];
+        for (int i = 0; i < placed.length; i++) {
+            points[i] = placed[i][0];
+            owners[i] = (int) placed[i][1];
+        }
+    }
+
+    /**
+     * @param key The key, an employee id
+     * @return The member owning the key: the first ring position at or after the key's hash, wrapping around
+     */
+    public String owner(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            // Equal points are adjacent, the first of them owns the key
+            while (index > 0 && points[index - 1] == points[index]) {
+                index--;
+            }
+        }
+        return members.get(owners[index == points.length ? 0 : index]);
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, followed by the MurmurHash3 finalizer so that similar keys like consecutive
+     * ids spread over the whole ring.
+     */
+    static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.example.rqchallenge.cluster;
+
+/**
+ * Thrown when a cluster member owning part of the roster did not answer, so a complete result cannot be given.
+ */
+public class PartitionUnavailableException extends RuntimeException {
+
+    public PartitionUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
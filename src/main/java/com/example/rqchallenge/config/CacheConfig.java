@@ -0,0 +1,69 @@
+package com.example.rqchallenge.config;
+
+import com.example.rqchallenge.cache.AdaptiveRosterExpiry;
+import com.example.rqchallenge.cache.EmployeeCaches;
+import com.example.rqchallenge.cache.EstimatedSizeWeigher;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Cache manager with one Caffeine cache per kind of data, each configured with its own spec. Caches bounded with
+     * {@code maximumWeight} are weighed by estimated size in bytes. Only the caches named in {@link EmployeeCaches}
+     * exist, unknown names resolve to {@code null}. The roster expires after the adaptive TTL unless its spec sets a
+     * fixed expiry. Every cache publishes its hit ratio since startup as {@code cache.hit.ratio}.
+     *
+     * @param rosterExpiry  adaptive expiry of the roster
+     * @param rosterSpec    spec of the roster cache
+     * @param byIdSpec      spec of the single employee cache
+     * @param searchSpec    spec of the name search cache
+     * @param negativeSpec  spec of the cache of ids the external API does not know
+     * @param meterRegistry registry of the hit ratio gauges
+     * @return cache manager with statistics recorded for the cache metrics
+     */
+    @Bean
+    public CacheManager cacheManager(AdaptiveRosterExpiry rosterExpiry,
+                                     @Value("${employee.cache.roster.spec:maximumWeight=268435456,recordStats}") String rosterSpec,
+                                     @Value("${employee.cache.by-id.spec:maximumWeight=16777216,expireAfterWrite=5m,recordStats}") String byIdSpec,
+                                     @Value("${employee.cache.search.spec:maximumWeight=33554432,expireAfterAccess=10m,recordStats}") String searchSpec,
+                                     @Value("${employee.cache.negative.spec:maximumSize=10000,expireAfterWrite=30s,recordStats}") String negativeSpec,
+                                     MeterRegistry meterRegistry) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheNames(Collections.emptyList());
+        Caffeine<Object, Object> roster = builder(rosterSpec);
+        if (!rosterSpec.contains("expireAfter")) {
+            roster.expireAfter(rosterExpiry);
+        }
+        register(cacheManager, EmployeeCaches.ROSTER, roster.build(), meterRegistry);
+        register(cacheManager, EmployeeCaches.BY_ID, builder(byIdSpec).build(), meterRegistry);
+        register(cacheManager, EmployeeCaches.SEARCH, builder(searchSpec).build(), meterRegistry);
+        register(cacheManager, EmployeeCaches.NEGATIVE, builder(negativeSpec).build(), meterRegistry);
+        return cacheManager;
+    }
+
+    private static void register(CaffeineCacheManager cacheManager, String name, Cache<Object, Object> cache,
+                                 MeterRegistry meterRegistry) {
+        cacheManager.registerCustomCache(name, cache);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate()).tag("cache", name).register(meterRegistry);
+    }
+
+    private static Caffeine<Object, Object> builder(String spec) {
+        Caffeine<Object, Object> builder = Caffeine.from(spec);
+        if (spec.contains("maximumWeight")) {
+            builder.weigher(new EstimatedSizeWeigher());
+        }
+        return builder;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.example.rqchallenge.config;
+
+import com.example.rqchallenge.diagnostics.AggregationEvent;
+import com.example.rqchallenge.diagnostics.CacheLoadEvent;
+import com.example.rqchallenge.diagnostics.FlightEvents;
+import com.example.rqchallenge.diagnostics.UpstreamCallEvent;
+import jdk.jfr.FlightRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlightRecorderConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderConfig.class);
+
+    /**
+     * Turns the custom Flight Recorder events on with {@code employee.jfr.enabled}. Registering them up front makes
+     * them show up in recordings started before the first event is emitted.
+     *
+     * @param enabled whether the upstream, cache and aggregation events are emitted
+     */
+    public FlightRecorderConfig(@Value("${employee.jfr.enabled:false}") boolean enabled) {
+        FlightEvents.setEnabled(enabled);
+        if (enabled && FlightRecorder.isAvailable()) {
+            FlightRecorder.register(UpstreamCallEvent.class);
+            FlightRecorder.register(CacheLoadEvent.class);
+            FlightRecorder.register(AggregationEvent.class);
+            logger.info("Custom Flight Recorder events enabled.");
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.example.rqchallenge.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Replaces reflective getter, setter and constructor calls with generated lambdas. Spring Boot registers the module
+     * on the shared {@code ObjectMapper}, which is used by both the MVC message converters and the
+     * {@code RestTemplate} talking to the external API. A native image cannot define classes at runtime, so it keeps
+     * the reflective access.
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return NativeDetector.inNativeImage() ? new SimpleModule("blackbird-disabled") : new BlackbirdModule();
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.example.rqchallenge.config;
+
+import com.example.rqchallenge.cache.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+public class SharedCacheConfig {
+
+    /**
+     * Shared second level roster store, selected with {@code employee.cache.l2.type}: {@code none} (default),
+     * {@code memory} for a local stand-in or {@code redis}.
+     */
+    @Bean
+    public SharedRosterStore sharedRosterStore(@Value("${employee.cache.l2.type:none}") String type,
+                                               @Value("${employee.cache.l2.redis.host:localhost}") String host,
+                                               @Value("${employee.cache.l2.redis.port:6379}") int port,
+                                               @Value("${employee.cache.l2.redis.timeout-ms:500}") int timeoutMs) {
+        switch (type) {
+            case "redis":
+                return new RedisSharedRosterStore(host, port, timeoutMs);
+            case "memory":
+                return new InMemorySharedRosterStore();
+            case "none":
+                return new NoopSharedRosterStore();
+            default:
+                throw new IllegalArgumentException("Unknown shared cache type: " + type);
+        }
+    }
+
+    /**
+     * Transport for roster changes between instances, selected with {@code employee.cache.broadcast.type}:
+     * {@code memory} (default, local only) or {@code multicast}.
+     */
+    @Bean
+    public RosterChangeTransport rosterChangeTransport(@Value("${employee.cache.broadcast.type:memory}") String type,
+                                                       @Value("${employee.cache.broadcast.group:239.1.2.3}") String group,
+                                                       @Value("${employee.cache.broadcast.port:4446}") int port,
+                                                       ObjectMapper objectMapper) throws IOException {
+        switch (type) {
+            case "multicast":
+                return new MulticastRosterChangeTransport(group, port, objectMapper);
+            case "memory":
+                return new InMemoryRosterChangeTransport();
+            default:
+                throw new IllegalArgumentException("Unknown roster change transport: " + type);
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.example.rqchallenge.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "employee.startup.training-run", havingValue = "true")
+public class TrainingRunConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrainingRunConfig.class);
+
+    /**
+     * Stops the application once it is ready. The {@code cdsClassList} Gradle task uses it to record every class
+     * loaded during startup.
+     *
+     * @param context the application context to close
+     * @return listener exiting the JVM after startup
+     */
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> exitAfterStartup(ConfigurableApplicationContext context) {
+        return event -> {
+            logger.info("Training run finished, exiting.");
+            System.exit(SpringApplication.exit(context));
+        };
+    }
+
+}
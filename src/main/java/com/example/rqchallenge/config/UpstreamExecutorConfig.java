@@ -0,0 +1,131 @@
+package com.example.rqchallenge.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class UpstreamExecutorConfig {
+
+    /**
+     * Executor running all request-driven calls to the external API, so that slow upstream calls hold these threads
+     * instead of servlet threads. Its pool size is the upstream concurrency cap and its queue is bounded, a full queue
+     * rejects the task. Pool and queue usage are published under the {@code upstream} executor metrics.
+     *
+     * @param concurrency   maximum number of upstream calls running in parallel
+     * @param queueCapacity maximum number of upstream calls waiting for a thread
+     * @return fixed size executor with daemon threads
+     */
+    @Bean(name = "upstreamExecutor", destroyMethod = "shutdown")
+    public ExecutorService upstreamExecutor(@Value("${employee.upstream.concurrency:32}") int concurrency,
+                                            @Value("${employee.upstream.queue-capacity:200}") int queueCapacity,
+                                            MeterRegistry meterRegistry) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "upstream-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "upstream");
+    }
+
+    /**
+     * Executor running the create calls of bulk imports. Its pool size is the import parallelism; the import job itself
+     * never submits more rows than that, so the queue stays short.
+     *
+     * @param parallelism maximum number of import rows in flight
+     * @return fixed size executor with daemon threads
+     */
+    @Bean(name = "importExecutor", destroyMethod = "shutdown")
+    public ExecutorService importExecutor(@Value("${employee.import.parallelism:4}") int parallelism,
+                                          MeterRegistry meterRegistry) {
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "employee-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "import");
+    }
+
+    /**
+     * Executor running background roster refreshes. A single thread is enough, at most one refresh runs at a time.
+     *
+     * @return single thread executor with a daemon thread
+     */
+    @Bean(name = "rosterRefreshExecutor", destroyMethod = "shutdown")
+    public ExecutorService rosterRefreshExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "roster-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executor running the per-source calls of a federated roster fetch. The federation keeps at most one call per
+     * source in flight, so the queue never holds more than one task per source; idle threads time out.
+     *
+     * @param maxThreads maximum number of source calls running in parallel
+     * @return bounded executor with daemon threads
+     */
+    @Bean(name = "federationExecutor", destroyMethod = "shutdown")
+    public ExecutorService federationExecutor(@Value("${employee.federation.max-threads:8}") int maxThreads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "upstream-federation-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Executor running the calls to other cluster members. Those calls are answered from the members' caches, so
+     * they are kept apart from the upstream executor, whose threads may all be waiting on the external API.
+     *
+     * @return cached executor with daemon threads
+     */
+    @Bean(name = "clusterExecutor", destroyMethod = "shutdown")
+    public ExecutorService clusterExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executor running hedged attempts. It is kept apart from the upstream executor so that calls fanned out on that
+     * pool can hedge without waiting for a thread of their own pool. It has no queue: once all threads are busy a task
+     * is rejected and the call goes out without hedging. Pool usage is published under the {@code hedge} executor
+     * metrics.
+     *
+     * @param maxThreads maximum number of attempts running in parallel
+     * @return bounded executor with daemon threads
+     */
+    @Bean(name = "hedgeExecutor", destroyMethod = "shutdown")
+    public ExecutorService hedgeExecutor(@Value("${employee.upstream.hedging.max-threads:64}") int maxThreads,
+                                         MeterRegistry meterRegistry) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "upstream-hedge-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "hedge");
+    }
+
+}
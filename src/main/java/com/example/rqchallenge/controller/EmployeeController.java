@@ -1,50 +1,133 @@
 package com.example.rqchallenge.controller;
 
+import com.example.rqchallenge.cluster.ClusterMembership;
+import com.example.rqchallenge.cluster.PartitionUnavailableException;
 import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeExport;
+import com.example.rqchallenge.model.EmployeeLookupResult;
+import com.example.rqchallenge.model.EmployeeOperation;
+import com.example.rqchallenge.model.EmployeeQuery;
 import com.example.rqchallenge.model.EmployeeResponse;
+import com.example.rqchallenge.model.EmployeeSuggestion;
+import com.example.rqchallenge.model.ImportJobStatus;
+import com.example.rqchallenge.model.PartitionAggregates;
+import com.example.rqchallenge.model.RosterFileFormat;
+import com.example.rqchallenge.model.RosterSnapshot;
+import com.example.rqchallenge.service.ClusterQueryService;
+import com.example.rqchallenge.service.EmployeeBatchService;
+import com.example.rqchallenge.service.EmployeeChangeFeed;
+import com.example.rqchallenge.service.EmployeeExportService;
+import com.example.rqchallenge.service.EmployeeImportService;
+import com.example.rqchallenge.service.EmployeeQueryService;
 import com.example.rqchallenge.service.EmployeeService;
+import com.example.rqchallenge.service.EmployeeSuggestService;
+import com.example.rqchallenge.service.EmployeeWriteBehindService;
+import com.example.rqchallenge.service.RosterChangeBroadcaster;
+import com.example.rqchallenge.upstream.AdaptiveConcurrencyLimiter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping(value = "api/v1/employee")
 public class EmployeeController implements IEmployeeController {
 
     private final Logger logger = LoggerFactory.getLogger(EmployeeController.class);
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MIN_SUGGEST_PREFIX_LENGTH = 2;
+    private static final int MAX_QUERY_RESULTS = 1000;
+    private static final String ROSTER_VERSION_HEADER = "X-Roster-Version";
 
     private final EmployeeService employeeService;
     private final EmployeeExtController employeeExtController;
+    private final EmployeeBatchService employeeBatchService;
+    private final RosterChangeBroadcaster rosterChangeBroadcaster;
+    private final EmployeeChangeFeed employeeChangeFeed;
+    private final EmployeeSuggestService employeeSuggestService;
+    private final EmployeeQueryService employeeQueryService;
+    private final EmployeeExportService employeeExportService;
+    private final EmployeeImportService employeeImportService;
+    private final EmployeeWriteBehindService employeeWriteBehindService;
+    private final ClusterMembership clusterMembership;
+    private final ClusterQueryService clusterQueryService;
+    private final ExecutorService upstreamExecutor;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final int maxBatchSize;
+    private final long requestDeadlineMs;
 
     @Autowired
-    public EmployeeController(EmployeeService employeeService, EmployeeExtController employeeExtController) {
+    public EmployeeController(EmployeeService employeeService, EmployeeExtController employeeExtController,
+                              EmployeeBatchService employeeBatchService, RosterChangeBroadcaster rosterChangeBroadcaster,
+                              EmployeeChangeFeed employeeChangeFeed, EmployeeSuggestService employeeSuggestService,
+                              EmployeeQueryService employeeQueryService, EmployeeExportService employeeExportService,
+                              EmployeeImportService employeeImportService, EmployeeWriteBehindService employeeWriteBehindService,
+                              ClusterMembership clusterMembership, ClusterQueryService clusterQueryService,
+                              @Qualifier("upstreamExecutor") ExecutorService upstreamExecutor,
+                              AdaptiveConcurrencyLimiter concurrencyLimiter,
+                              @Value("${employee.batch.max-size:200}") int maxBatchSize,
+                              @Value("${employee.upstream.request-deadline-ms:15000}") long requestDeadlineMs) {
         this.employeeService = employeeService;
         this.employeeExtController = employeeExtController;
+        this.employeeBatchService = employeeBatchService;
+        this.rosterChangeBroadcaster = rosterChangeBroadcaster;
+        this.employeeChangeFeed = employeeChangeFeed;
+        this.employeeSuggestService = employeeSuggestService;
+        this.employeeQueryService = employeeQueryService;
+        this.employeeExportService = employeeExportService;
+        this.employeeImportService = employeeImportService;
+        this.employeeWriteBehindService = employeeWriteBehindService;
+        this.clusterMembership = clusterMembership;
+        this.clusterQueryService = clusterQueryService;
+        this.upstreamExecutor = upstreamExecutor;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.maxBatchSize = maxBatchSize;
+        this.requestDeadlineMs = requestDeadlineMs;
     }
 
-    @Cacheable("employeeCache")
     @Operation(summary = "Get a list of all employees")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of all employees"),
             @ApiResponse(responseCode = "204", description = "No employees found"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "400", description = "Roster version pinned in cluster mode, where answers have no version"),
+            @ApiResponse(responseCode = "410", description = "Pinned roster version is no longer retained or was issued by another instance"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "A cluster member owning part of the roster did not answer")
     })
-    public ResponseEntity<List<Employee>> getAllEmployees() {
+    public ResponseEntity<List<Employee>> getAllEmployees(@RequestHeader(value = ROSTER_VERSION_HEADER, required = false) String rosterVersion) {
+        if (clusterMembership.isEnabled()) {
+            return fromCluster("fetching employees", rosterVersion, () -> nonEmpty(clusterQueryService.getAllEmployees()));
+        }
         try {
-            List<Employee> allEmployees = employeeService.getAllCachedEmployees();
+            Optional<RosterSnapshot> snapshot = rosterSnapshot(rosterVersion);
+            if (snapshot.isEmpty()) {
+                return snapshotGone(rosterVersion);
+            }
+            List<Employee> allEmployees = snapshot.get().getEmployees();
 
             if (!allEmployees.isEmpty()) {
                 logger.info("Successfully fetched employee data from cache.");
-                return ResponseEntity.ok(allEmployees);
+                return withVersion(snapshot.get()).body(allEmployees);
             } else {
                 logger.warn("Cache returned an empty list of employees.");
                 return ResponseEntity.notFound().build();
@@ -59,22 +142,33 @@ public class EmployeeController implements IEmployeeController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of matching employees"),
             @ApiResponse(responseCode = "404", description = "No employees found"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "400", description = "Roster version pinned in cluster mode, where answers have no version"),
+            @ApiResponse(responseCode = "410", description = "Pinned roster version is no longer retained or was issued by another instance"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "A cluster member owning part of the roster did not answer")
     })
-    public ResponseEntity<List<Employee>> getEmployeesByNameSearch(@PathVariable String searchString) {
+    public ResponseEntity<List<Employee>> getEmployeesByNameSearch(@PathVariable String searchString,
+                                                                   @RequestHeader(value = ROSTER_VERSION_HEADER, required = false) String rosterVersion) {
+        if (clusterMembership.isEnabled()) {
+            return fromCluster("searching employees", rosterVersion, () -> nonEmpty(clusterQueryService.search(searchString)));
+        }
         try {
-            List<Employee> allEmployees = employeeService.getAllCachedEmployees();
+            Optional<RosterSnapshot> snapshot = rosterSnapshot(rosterVersion);
+            if (snapshot.isEmpty()) {
+                return snapshotGone(rosterVersion);
+            }
+            List<Employee> allEmployees = snapshot.get().getEmployees();
             if(allEmployees.isEmpty()) {
                 logger.warn("Cache returned an empty list of employees.");
                 return ResponseEntity.notFound().build();
             }
 
-            List<Employee> filteredEmployees = employeeService.getFilteredEmployees(searchString, allEmployees);
+            List<Employee> filteredEmployees = employeeService.getFilteredEmployees(searchString, snapshot.get());
             if (filteredEmployees.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok(filteredEmployees);
+            return withVersion(snapshot.get()).body(filteredEmployees);
         } catch (Exception e) {
             logger.error("Error during employee search", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -86,23 +180,257 @@ public class EmployeeController implements IEmployeeController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Employee found"),
             @ApiResponse(responseCode = "404", description = "Employee not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Upstream executor is saturated or the owning cluster member did not answer"),
+            @ApiResponse(responseCode = "504", description = "External API did not answer within the deadline")
+    })
+    public CompletableFuture<ResponseEntity<Employee>> getEmployeeById(@PathVariable String id) {
+        if (!clusterMembership.isLocal(id)) {
+            String owner = clusterMembership.ownerOf(id);
+            return clusterQueryService.getEmployeeFromOwner(owner, id)
+                    .thenApply(employee -> employee.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build()))
+                    .exceptionally(e -> {
+                        logger.warn("Cluster member {} did not answer for employee {}: {}", owner, id, String.valueOf(unwrap(e)));
+                        return overloaded();
+                    });
+        }
+        return getPartitionEmployeeById(id);
+    }
+
+    @Operation(summary = "Get an employee of this instance's partition by ID, used between cluster members")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Employee found"),
+            @ApiResponse(responseCode = "404", description = "Employee not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Upstream executor is saturated"),
+            @ApiResponse(responseCode = "504", description = "External API did not answer within the deadline")
+    })
+    public CompletableFuture<ResponseEntity<Employee>> getPartitionEmployeeById(@PathVariable String id) {
+        Optional<Employee> cached = employeeService.findCachedEmployee(id);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(cached.get()));
+        }
+        if (employeeService.isKnownMissing(id)) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        return supplyFromUpstream("fetching employee by ID: " + id, () -> {
+            EmployeeResponse response = employeeExtController.getEmployeeById(id);
+            return ResponseEntity.status(Integer.parseInt(response.getStatus()))
+                    .body(response.getData() != null && !response.getData().isEmpty() ? response.getData().get(0) : null);
+        });
+    }
+
+    @Operation(summary = "Suggest employees whose name has a word starting with the prefix")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching employee ids and names, best first"),
+            @ApiResponse(responseCode = "400", description = "Prefix shorter than two characters, invalid limit or sort"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "501", description = "Not available in cluster mode")
+    })
+    public ResponseEntity<List<EmployeeSuggestion>> suggestEmployees(@RequestParam String prefix,
+                                                                     @RequestParam(defaultValue = "10") int limit,
+                                                                     @RequestParam(defaultValue = "salary") String sort) {
+        if (clusterMembership.isEnabled()) {
+            return notInClusterMode("suggesting employees");
+        }
+        if (prefix.length() < MIN_SUGGEST_PREFIX_LENGTH || limit < 1 || limit > MAX_SUGGESTIONS
+                || !("salary".equals(sort) || "name".equals(sort))) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(employeeSuggestService.suggest(prefix, limit, "salary".equals(sort)));
+        } catch (Exception e) {
+            logger.error("Error during employee suggestion", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @Operation(summary = "Query employees by age and salary ranges and name")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching employees in the requested order, possibly empty"),
+            @ApiResponse(responseCode = "400", description = "Empty range, unknown sort key or invalid limit"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "501", description = "Not available in cluster mode")
+    })
+    public ResponseEntity<List<Employee>> queryEmployees(@RequestParam(required = false) Integer minAge,
+                                                         @RequestParam(required = false) Integer maxAge,
+                                                         @RequestParam(required = false) Integer age,
+                                                         @RequestParam(required = false) Integer minSalary,
+                                                         @RequestParam(required = false) Integer maxSalary,
+                                                         @RequestParam(required = false) Integer salary,
+                                                         @RequestParam(required = false) String name,
+                                                         @RequestParam(defaultValue = "-salary") String sort,
+                                                         @RequestParam(defaultValue = "100") int limit) {
+        if (clusterMembership.isEnabled()) {
+            return notInClusterMode("querying employees");
+        }
+        Optional<EmployeeQuery.Sort> sortOrder = EmployeeQuery.Sort.fromParameter(sort);
+        Integer fromAge = age != null ? age : minAge;
+        Integer toAge = age != null ? age : maxAge;
+        Integer fromSalary = salary != null ? salary : minSalary;
+        Integer toSalary = salary != null ? salary : maxSalary;
+        if (sortOrder.isEmpty() || limit < 1 || limit > MAX_QUERY_RESULTS
+                || (fromAge != null && toAge != null && fromAge > toAge)
+                || (fromSalary != null && toSalary != null && fromSalary > toSalary)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            EmployeeQuery query = new EmployeeQuery(fromAge, toAge, fromSalary, toSalary, name, sortOrder.get(), limit);
+            return ResponseEntity.ok(employeeQueryService.query(query));
+        } catch (Exception e) {
+            logger.error("Error during employee query", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @Operation(summary = "Export all employees as CSV or NDJSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export file of the roster version"),
+            @ApiResponse(responseCode = "206", description = "Requested byte range of the export file"),
+            @ApiResponse(responseCode = "304", description = "Export unchanged since the given entity tag"),
+            @ApiResponse(responseCode = "400", description = "Unknown format"),
+            @ApiResponse(responseCode = "404", description = "No employees found"),
+            @ApiResponse(responseCode = "410", description = "Pinned roster version is no longer retained or was issued by another instance"),
+            @ApiResponse(responseCode = "416", description = "Requested range is not satisfiable"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "501", description = "Not available in cluster mode")
+    })
+    public void exportEmployees(@RequestParam(defaultValue = "ndjson") String format,
+                                @RequestHeader(value = ROSTER_VERSION_HEADER, required = false) String rosterVersion,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (clusterMembership.isEnabled()) {
+            response.setStatus(notInClusterMode("exporting employees").getStatusCodeValue());
+            return;
+        }
+        Optional<RosterFileFormat> exportFormat = RosterFileFormat.fromParameter(format);
+        if (exportFormat.isEmpty()) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        try {
+            Optional<RosterSnapshot> snapshot = rosterSnapshot(rosterVersion);
+            if (snapshot.isEmpty()) {
+                response.setStatus(snapshotGone(rosterVersion).getStatusCodeValue());
+                return;
+            }
+            if (snapshot.get().getEmployees().isEmpty()) {
+                logger.warn("Cache returned an empty list of employees.");
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            EmployeeExport export = employeeExportService.export(snapshot.get(), exportFormat.get());
+            try {
+                response.setHeader(ROSTER_VERSION_HEADER, RosterSnapshot.versionTag(export.getVersion()));
+                FileRangeTransfer.send(export.getPath(), export.getSize(), export.getETag(),
+                        export.getFormat().getContentType(), export.getFileName(), request, response);
+            } finally {
+                employeeExportService.release(export);
+            }
+        } catch (Exception e) {
+            logger.error("Error occurred while exporting employees", e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        }
+    }
+
+    @Operation(summary = "Import employees from a CSV or NDJSON file")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Import job queued, its status is at the Location"),
+            @ApiResponse(responseCode = "400", description = "Empty file or unknown format"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable String id) {
-        EmployeeResponse response = employeeExtController.getEmployeeById(id);
-        return ResponseEntity.status(Integer.parseInt(response.getStatus()))
-                .body(response.getData() != null && !response.getData().isEmpty() ? response.getData().get(0) : null);
+    public ResponseEntity<ImportJobStatus> startImport(@RequestParam("file") MultipartFile file,
+                                                       @RequestParam(required = false) String format) {
+        String formatName = format != null ? format : StringUtils.getFilenameExtension(file.getOriginalFilename());
+        Optional<RosterFileFormat> importFormat = formatName == null ? Optional.empty()
+                : RosterFileFormat.fromParameter(formatName);
+        if (file.isEmpty() || importFormat.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try (InputStream upload = file.getInputStream()) {
+            ImportJobStatus status = employeeImportService.submit(upload, file.getOriginalFilename(), importFormat.get());
+            return ResponseEntity.accepted().location(URI.create("/api/v1/employee/imports/" + status.getId())).body(status);
+        } catch (Exception e) {
+            logger.error("Error occurred while starting an import", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @Operation(summary = "Get the progress of an import job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Progress and throughput of the job"),
+            @ApiResponse(responseCode = "404", description = "Unknown job")
+    })
+    public ResponseEntity<ImportJobStatus> getImportStatus(@PathVariable String jobId) {
+        return employeeImportService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Get the outcome of an employee create accepted in write-behind mode")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "State of the create, with the employee once created"),
+            @ApiResponse(responseCode = "404", description = "Unknown operation")
+    })
+    public ResponseEntity<EmployeeOperation> getOperation(@PathVariable String operationId) {
+        return employeeWriteBehindService.getOperation(operationId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Stream employee changes as Server-Sent Events")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream of created, updated and deleted events"),
+            @ApiResponse(responseCode = "501", description = "Not available in cluster mode")
+    })
+    public ResponseEntity<SseEmitter> streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (clusterMembership.isEnabled()) {
+            return notInClusterMode("streaming changes");
+        }
+        logger.info("New change feed subscriber, resuming after event {}.", lastEventId);
+        return ResponseEntity.ok(employeeChangeFeed.subscribe(lastEventId));
+    }
+
+    @Operation(summary = "Get multiple employees by their IDs")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-id results in request order"),
+            @ApiResponse(responseCode = "400", description = "No ids or too many ids requested"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<EmployeeLookupResult>> getEmployeesByIds(@RequestBody List<String> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > maxBatchSize) {
+            logger.warn("Rejected multi-get request with {} ids.", ids == null ? 0 : ids.size());
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(employeeBatchService.getEmployeesByIds(ids));
+        } catch (Exception e) {
+            logger.error("Error occurred while fetching employees by ids", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
     }
 
     @Operation(summary = "Get the highest salary among all employees")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Highest salary found"),
             @ApiResponse(responseCode = "200", description = "No employees found"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "400", description = "Roster version pinned in cluster mode, where answers have no version"),
+            @ApiResponse(responseCode = "410", description = "Pinned roster version is no longer retained or was issued by another instance"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "A cluster member owning part of the roster did not answer")
     })
-    public ResponseEntity<Integer> getHighestSalaryOfEmployees() {
+    public ResponseEntity<Integer> getHighestSalaryOfEmployees(@RequestHeader(value = ROSTER_VERSION_HEADER, required = false) String rosterVersion) {
+        if (clusterMembership.isEnabled()) {
+            return fromCluster("fetching the highest salary", rosterVersion, clusterQueryService::getHighestSalary);
+        }
         try {
-            List<Employee> allEmployees = employeeService.getAllCachedEmployees();
+            Optional<RosterSnapshot> snapshot = rosterSnapshot(rosterVersion);
+            if (snapshot.isEmpty()) {
+                return snapshotGone(rosterVersion);
+            }
+            List<Employee> allEmployees = snapshot.get().getEmployees();
             if(allEmployees.isEmpty()) {
                 logger.warn("Cache returned an empty list of employees.");
                 return ResponseEntity.notFound().build();
@@ -112,7 +440,7 @@ public class EmployeeController implements IEmployeeController {
             EmployeeResponse response = highestSalaryOptional.map(salary -> new EmployeeResponse("200", null, salary.toString()))
                     .orElseGet(() -> new EmployeeResponse("404", Collections.emptyList(), "No employees found"));
 
-            return ResponseEntity.ok(Integer.parseInt(response.getMessage()));
+            return withVersion(snapshot.get()).body(Integer.parseInt(response.getMessage()));
         } catch (Exception e) {
             logger.error("Error occurred while fetching the highest salary: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -123,11 +451,22 @@ public class EmployeeController implements IEmployeeController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Top ten names found"),
             @ApiResponse(responseCode = "404", description = "No employees found"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "400", description = "Roster version pinned in cluster mode, where answers have no version"),
+            @ApiResponse(responseCode = "410", description = "Pinned roster version is no longer retained or was issued by another instance"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "A cluster member owning part of the roster did not answer")
     })
-    public ResponseEntity<List<String>> getTopTenHighestEarningEmployeeNames() {
+    public ResponseEntity<List<String>> getTopTenHighestEarningEmployeeNames(@RequestHeader(value = ROSTER_VERSION_HEADER, required = false) String rosterVersion) {
+        if (clusterMembership.isEnabled()) {
+            return fromCluster("fetching the top ten names", rosterVersion, () -> nonEmpty(clusterQueryService.getTopTenNames())
+                    .map(names -> Arrays.asList(names.toString().split(","))));
+        }
         try {
-            List<Employee> allEmployees = employeeService.getAllCachedEmployees();
+            Optional<RosterSnapshot> snapshot = rosterSnapshot(rosterVersion);
+            if (snapshot.isEmpty()) {
+                return snapshotGone(rosterVersion);
+            }
+            List<Employee> allEmployees = snapshot.get().getEmployees();
             if(allEmployees.isEmpty()) {
                 logger.warn("Cache returned an empty list of employees.");
                 return ResponseEntity.notFound().build();
@@ -139,8 +478,50 @@ public class EmployeeController implements IEmployeeController {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok(Arrays.asList(names.toString().split(",")));
+            return withVersion(snapshot.get()).body(Arrays.asList(names.toString().split(",")));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @Operation(summary = "Get the employees of this instance's partition, used between cluster members")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Employees this instance owns, possibly empty"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<Employee>> getPartitionEmployees() {
+        try {
+            return ResponseEntity.ok(clusterQueryService.getLocalPartition());
         } catch (Exception e) {
+            logger.error("Error occurred while fetching the partition's employees", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @Operation(summary = "Search the employees of this instance's partition by name, used between cluster members")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching employees this instance owns, possibly empty"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<Employee>> searchPartition(@PathVariable String searchString) {
+        try {
+            return ResponseEntity.ok(clusterQueryService.searchLocalPartition(searchString));
+        } catch (Exception e) {
+            logger.error("Error during partition search", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @Operation(summary = "Get the highest salary and top earners of this instance's partition, used between cluster members")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Partial aggregates of the partition"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<PartitionAggregates> getPartitionAggregates() {
+        try {
+            return ResponseEntity.ok(clusterQueryService.getLocalAggregates());
+        } catch (Exception e) {
+            logger.error("Error occurred while aggregating the partition", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -148,25 +529,182 @@ public class EmployeeController implements IEmployeeController {
     @Operation(summary = "Create a new employee")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Employee created successfully"),
+            @ApiResponse(responseCode = "202", description = "Create queued in write-behind mode, its outcome is at the Location"),
             @ApiResponse(responseCode = "400", description = "Bad request"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Upstream executor or write-behind queue is saturated"),
+            @ApiResponse(responseCode = "504", description = "External API did not answer within the deadline. The create may "
+                    + "still have been applied, so check the roster before sending it again")
     })
-    public ResponseEntity<Employee> createEmployee(Map<String, Object> employeeInput) {
-        EmployeeResponse response = employeeExtController.createEmployee(employeeInput);
+    public CompletableFuture<ResponseEntity<Employee>> createEmployee(Map<String, Object> employeeInput) {
+        if (employeeWriteBehindService.isEnabled()) {
+            return CompletableFuture.completedFuture(queueCreate(employeeInput));
+        }
+        return supplyFromUpstream("creating an employee", () -> {
+            EmployeeResponse response = employeeExtController.createEmployee(employeeInput);
+            if (HttpStatus.CREATED.value() == Integer.parseInt(response.getStatus())
+                    && response.getData() != null && !response.getData().isEmpty()) {
+                rosterChangeBroadcaster.employeeCreated(response.getData().get(0));
+            }
+
+            return ResponseEntity.status(Integer.parseInt(response.getStatus()))
+                    .body(response.getData() != null && !response.getData().isEmpty() ? response.getData().get(0) : null);
+        });
+    }
 
-        return ResponseEntity.status(Integer.parseInt(response.getStatus()))
-                .body(response.getData() != null && !response.getData().isEmpty() ? response.getData().get(0) : null);
+    private ResponseEntity<Employee> queueCreate(Map<String, Object> employeeInput) {
+        try {
+            EmployeeOperation operation = employeeWriteBehindService.submit(employeeInput);
+            return ResponseEntity.accepted().location(URI.create("/api/v1/employee/operations/" + operation.getId())).build();
+        } catch (RejectedExecutionException e) {
+            logger.warn("Write-behind queue is full, rejecting the create");
+            return overloaded();
+        } catch (Exception e) {
+            logger.error("Error occurred while queueing an employee create", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
     }
 
     @Operation(summary = "Delete an employee by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Employee deleted successfully"),
             @ApiResponse(responseCode = "404", description = "Employee not found"),
-            @ApiResponse(responseCode = "500", description = "Internal server error")
+            @ApiResponse(responseCode = "500", description = "Internal server error"),
+            @ApiResponse(responseCode = "503", description = "Upstream executor is saturated"),
+            @ApiResponse(responseCode = "504", description = "External API did not answer within the deadline. The delete may "
+                    + "still have been applied")
     })
-    public ResponseEntity<String> deleteEmployeeById(@PathVariable String id) {
-        EmployeeResponse response = employeeExtController.deleteEmployeeById(id);
-        return ResponseEntity.status(Integer.parseInt(response.getStatus())).body(response.getMessage());
+    public CompletableFuture<ResponseEntity<String>> deleteEmployeeById(@PathVariable String id) {
+        return supplyFromUpstream("deleting the employee with ID: " + id, () -> {
+            EmployeeResponse response = employeeExtController.deleteEmployeeById(id);
+            if (EmployeeExtController.SUCCESS.equals(response.getStatus()) || String.valueOf(HttpStatus.OK.value()).equals(response.getStatus())) {
+                rosterChangeBroadcaster.employeeDeleted(id);
+            }
+            return ResponseEntity.status(Integer.parseInt(response.getStatus())).body(response.getMessage());
+        });
+    }
+
+    /**
+     * Runs a handler that calls the external API on the upstream executor, so it holds no servlet thread while waiting.
+     * The handler only starts when the adaptive concurrency limit has room for it.
+     *
+     * @param description What the handler does, used for logging
+     * @param handler     Produces the response, it may block on the external API
+     * @return Future completed with the handler's response, 504 after the request deadline or 503 when the concurrency
+     * limit is reached or the upstream executor rejects the work. The deadline does not cancel a call that already
+     * reached the external API, so after a 504 a write is indeterminate. The RestTemplate read timeout ends such a
+     * call shortly after.
+     */
+    private <T> CompletableFuture<ResponseEntity<T>> supplyFromUpstream(String description, Supplier<ResponseEntity<T>> handler) {
+        Optional<AdaptiveConcurrencyLimiter.Permit> permit = concurrencyLimiter.tryAcquire();
+        if (permit.isEmpty()) {
+            logger.warn("Upstream concurrency limit of {} reached, shedding {}", concurrencyLimiter.getLimit(), description);
+            return CompletableFuture.completedFuture(overloaded());
+        }
+        try {
+            CompletableFuture<ResponseEntity<T>> call = CompletableFuture.supplyAsync(handler, upstreamExecutor);
+            CompletableFuture<ResponseEntity<T>> deadline = call.copy().orTimeout(requestDeadlineMs, TimeUnit.MILLISECONDS);
+            // The permit is held until the upstream call really ends, a 504 at the deadline does not stop it
+            call.whenComplete((response, e) -> releasePermit(permit.get(), response, e, timedOut(deadline)));
+            return deadline
+                    .exceptionally(e -> {
+                        Throwable cause = unwrap(e);
+                        if (cause instanceof TimeoutException) {
+                            logger.warn("Deadline of {} ms exceeded while {}", requestDeadlineMs, description);
+                            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+                        }
+                        logger.error("Error occurred while {}", description, cause);
+                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                    });
+        } catch (RejectedExecutionException e) {
+            permit.get().onDropped();
+            logger.warn("Upstream executor rejected {}", description);
+            return CompletableFuture.completedFuture(overloaded());
+        }
+    }
+
+    private static boolean timedOut(CompletableFuture<?> deadline) {
+        return deadline.handle((response, e) -> e != null && unwrap(e) instanceof TimeoutException).getNow(false);
+    }
+
+    private void releasePermit(AdaptiveConcurrencyLimiter.Permit permit, ResponseEntity<?> response, Throwable e,
+                               boolean deadlineExceeded) {
+        if (deadlineExceeded) {
+            permit.onDropped();
+        } else if (e != null) {
+            permit.onIgnore();
+        } else if (response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS || response.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+            permit.onDropped();
+        } else {
+            permit.onSuccess();
+        }
+    }
+
+    /**
+     * Answers a request over the whole cluster. Such answers are merged from several partitions, so they carry no
+     * roster version and a pinned one cannot be honoured.
+     *
+     * @param description   What the query does, used for logging
+     * @param rosterVersion The pinned version tag of the request, {@code null} for none
+     * @param query         Produces the merged result, empty for 404
+     * @return The result, 400 for a pinned version, 503 when a member owning part of the roster did not answer
+     */
+    private <T> ResponseEntity<T> fromCluster(String description, String rosterVersion, Supplier<Optional<T>> query) {
+        if (rosterVersion != null) {
+            logger.warn("Rejected roster version {} while {} in cluster mode.", rosterVersion, description);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return query.get().map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (PartitionUnavailableException e) {
+            logger.warn("Partition unavailable while {}: {}", description, e.getMessage());
+            return overloaded();
+        } catch (Exception e) {
+            logger.error("Error occurred while {}", description, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Rejects a request answered from the local roster alone, which in cluster mode holds only this instance's
+     * partition.
+     */
+    private <T> ResponseEntity<T> notInClusterMode(String description) {
+        logger.warn("Rejected {} in cluster mode, this instance only holds its own partition.", description);
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+    }
+
+    private static <T> Optional<List<T>> nonEmpty(List<T> list) {
+        return list.isEmpty() ? Optional.empty() : Optional.of(list);
+    }
+
+    /**
+     * @param rosterVersion The pinned version tag, {@code null} for the latest roster
+     * @return The snapshot to answer from, empty when the tag is no longer retained or is not one of this process
+     */
+    private Optional<RosterSnapshot> rosterSnapshot(String rosterVersion) {
+        if (rosterVersion == null) {
+            return employeeService.getRosterSnapshot(null);
+        }
+        OptionalLong version = RosterSnapshot.parseVersionTag(rosterVersion);
+        return version.isPresent() ? employeeService.getRosterSnapshot(version.getAsLong()) : Optional.empty();
+    }
+
+    private static ResponseEntity.BodyBuilder withVersion(RosterSnapshot snapshot) {
+        return ResponseEntity.ok().header(ROSTER_VERSION_HEADER, snapshot.getVersionTag());
+    }
+
+    private <T> ResponseEntity<T> snapshotGone(String rosterVersion) {
+        logger.warn("Pinned roster version {} is not retained by this instance.", rosterVersion);
+        return ResponseEntity.status(HttpStatus.GONE).build();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static <T> ResponseEntity<T> overloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
     }
 
 }
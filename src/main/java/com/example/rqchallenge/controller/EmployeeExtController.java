@@ -1,8 +1,19 @@
 package com.example.rqchallenge.controller;
 
+import com.example.rqchallenge.cache.AdaptiveRosterExpiry;
+import com.example.rqchallenge.cache.EmployeeCaches;
+import com.example.rqchallenge.diagnostics.CacheLoadEvent;
+import com.example.rqchallenge.diagnostics.UpstreamCallEvent;
+import com.example.rqchallenge.model.CreateEmployeeResponse;
 import com.example.rqchallenge.model.Employee;
 import com.example.rqchallenge.model.EmployeeResponse;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.example.rqchallenge.service.RosterDeltaDetector;
+import com.example.rqchallenge.upstream.HedgedRequestExecutor;
+import com.example.rqchallenge.upstream.UpstreamPriority;
+import com.example.rqchallenge.upstream.UpstreamFederation;
+import com.example.rqchallenge.upstream.UpstreamScheduler;
+import com.example.rqchallenge.upstream.UpstreamSource;
+import com.example.rqchallenge.upstream.UpstreamThrottledException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,18 +27,23 @@ import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 @Controller
 public class EmployeeExtController {
 
     private final Logger logger = LoggerFactory.getLogger(EmployeeExtController.class);
-    private static final String CACHE_KEY_ALL_EMPLOYEES = "allEmployees";
     public static final String SUCCESS = "success";
     public static final String SALARY = "salary";
 
@@ -37,11 +53,36 @@ public class EmployeeExtController {
 
     private final CacheManager cacheManager;
 
+    private final UpstreamScheduler upstreamScheduler;
+
+    private final HedgedRequestExecutor hedgedRequestExecutor;
+
+    private final RosterDeltaDetector rosterDeltaDetector;
+
+    private final ObjectMapper objectMapper;
+
+    private final AdaptiveRosterExpiry rosterExpiry;
+
+    private final UpstreamFederation upstreamFederation;
+
+    private final Map<String, SourceRoster> lastSourceRosters = new ConcurrentHashMap<>();
+
+    private volatile RosterValidators rosterValidators;
+
     @Autowired
-    public EmployeeExtController(RestTemplate restTemplate, @Value("${external.api.url}") String externalApiUrl, CacheManager cacheManager) {
+    public EmployeeExtController(RestTemplate restTemplate, @Value("${external.api.url}") String externalApiUrl, CacheManager cacheManager,
+                                 UpstreamScheduler upstreamScheduler, HedgedRequestExecutor hedgedRequestExecutor,
+                                 RosterDeltaDetector rosterDeltaDetector, ObjectMapper objectMapper,
+                                 AdaptiveRosterExpiry rosterExpiry, UpstreamFederation upstreamFederation) {
         this.restTemplate = restTemplate;
         this.externalApiUrl = externalApiUrl;
         this.cacheManager = cacheManager;
+        this.upstreamScheduler = upstreamScheduler;
+        this.hedgedRequestExecutor = hedgedRequestExecutor;
+        this.rosterDeltaDetector = rosterDeltaDetector;
+        this.objectMapper = objectMapper;
+        this.rosterExpiry = rosterExpiry;
+        this.upstreamFederation = upstreamFederation;
     }
 
     /**
@@ -50,25 +91,175 @@ public class EmployeeExtController {
      * @return EmployeeResponse containing a list of all employees and status message
      */
     public EmployeeResponse getAllEmployeesFromApi() {
+        return getAllEmployeesFromApi(UpstreamPriority.INTERACTIVE);
+    }
+
+    /**
+     * Retrieves all employees from the external API and caches them. The refresh is conditional: the validators of
+     * the previous response are sent along, and a {@code 304 Not Modified} or a body identical to the previous one
+     * keeps the current roster without parsing it again.
+     *
+     * @param priority Scheduling priority of the upstream call, background refreshes yield to client requests
+     * @return EmployeeResponse containing a list of all employees and status message
+     */
+    public EmployeeResponse getAllEmployeesFromApi(UpstreamPriority priority) {
+        if (upstreamFederation.isEnabled()) {
+            return getFederatedRoster(priority);
+        }
+        RosterValidators validators = rosterValidators;
+        HttpEntity<Void> request = new HttpEntity<>(conditionalHeaders(validators));
         return executeApiRequest(
-                () -> restTemplate.getForEntity(externalApiUrl + "employees", EmployeeResponse.class),
-                this::processEmployeeApiResponse
+                () -> hedgedRequestExecutor.execute(() -> upstreamScheduler.execute(priority,
+                        () -> UpstreamCallEvent.record("getAllEmployees",
+                                () -> restTemplate.exchange(externalApiUrl + "employees", HttpMethod.GET, request, byte[].class)))),
+                response -> processRosterResponse(response, validators)
         );
     }
 
     /**
-     * Fetches an employee by their ID from the external API.
+     * Fetches the rosters of all federated sources in parallel and merges them, in source order, with ids qualified by
+     * source. A source that fails or misses its timeout contributes its last fetched roster, so one slow region delays
+     * the refresh by at most its timeout and never empties the others. That roster is dropped once it is older than
+     * {@code employee.federation.stale-roster-max-age-ms}, and the source is then reported missing in the message.
+     */
+    private EmployeeResponse getFederatedRoster(UpstreamPriority priority) {
+        Map<UpstreamSource, Optional<List<Employee>>> partials = upstreamFederation.scatter(source -> fetchSourceRoster(source, priority));
+        List<Employee> merged = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        int answered = 0;
+        long now = System.currentTimeMillis();
+        for (Map.Entry<UpstreamSource, Optional<List<Employee>>> partial : partials.entrySet()) {
+            String name = partial.getKey().getName();
+            if (partial.getValue().isPresent()) {
+                answered++;
+                lastSourceRosters.put(name, new SourceRoster(partial.getValue().get(), now));
+                merged.addAll(partial.getValue().get());
+                continue;
+            }
+            SourceRoster previous = lastSourceRosters.get(name);
+            if (previous != null && now - previous.fetchedAtMillis < upstreamFederation.getStaleRosterMaxAgeMs()) {
+                logger.warn("Serving the previous roster of source {}.", name);
+                merged.addAll(previous.roster);
+            } else {
+                if (previous != null) {
+                    logger.warn("The previous roster of source {} is older than {} ms, leaving the source out.",
+                            name, upstreamFederation.getStaleRosterMaxAgeMs());
+                    lastSourceRosters.remove(name, previous);
+                }
+                missing.add(name);
+            }
+        }
+        if (answered == 0 && merged.isEmpty()) {
+            return new EmployeeResponse(Integer.toString(HttpStatus.SERVICE_UNAVAILABLE.value()), Collections.emptyList(), "No employee source answered");
+        }
+        String message = "Fetched from " + answered + " of " + partials.size() + " sources"
+                + (missing.isEmpty() ? "" : ", missing " + String.join(", ", missing));
+        return processEmployeeApiResponse(new EmployeeResponse(SUCCESS, merged, message));
+    }
+
+    private List<Employee> fetchSourceRoster(UpstreamSource source, UpstreamPriority priority) {
+        ResponseEntity<byte[]> response = upstreamScheduler.execute(priority, () -> UpstreamCallEvent.record("getAllEmployees",
+                () -> restTemplate.exchange(source.getBaseUrl() + "employees", HttpMethod.GET, null, byte[].class)));
+        try {
+            EmployeeResponse body = objectMapper.readValue(response.getBody(), EmployeeResponse.class);
+            if (!SUCCESS.equals(body.getStatus())) {
+                throw new IllegalStateException("Source " + source.getName() + " answered " + body.getStatus());
+            }
+            List<Employee> roster = Optional.ofNullable(body.getData()).orElse(Collections.emptyList());
+            roster.forEach(employee -> employee.setId(upstreamFederation.qualify(source, employee.getId())));
+            return roster;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable roster from source " + source.getName(), e);
+        }
+    }
+
+    private static HttpHeaders conditionalHeaders(RosterValidators validators) {
+        HttpHeaders headers = new HttpHeaders();
+        if (validators != null) {
+            if (validators.etag != null) {
+                headers.set(HttpHeaders.IF_NONE_MATCH, validators.etag);
+            }
+            if (validators.lastModified != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, validators.lastModified);
+            }
+        }
+        return headers;
+    }
+
+    private EmployeeResponse processRosterResponse(ResponseEntity<byte[]> response, RosterValidators validators) throws IOException {
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && validators != null) {
+            logger.debug("Roster not modified according to the external API.");
+            return keepCurrentRoster();
+        }
+        byte[] body = response.getBody();
+        byte[] bodyHash = sha256(body);
+        if (validators != null && Arrays.equals(validators.bodyHash, bodyHash)) {
+            logger.debug("Roster body identical to the previous refresh, skipping parsing.");
+            rosterValidators = new RosterValidators(response.getHeaders(), bodyHash);
+            return keepCurrentRoster();
+        }
+        EmployeeResponse result = processEmployeeApiResponse(objectMapper.readValue(body, EmployeeResponse.class));
+        if (SUCCESS.equals(result.getStatus())) {
+            rosterValidators = new RosterValidators(response.getHeaders(), bodyHash);
+        }
+        return result;
+    }
+
+    private EmployeeResponse keepCurrentRoster() {
+        // Writing the unchanged roster again restarts its expiry, with a TTL grown by this unchanged refresh
+        rosterExpiry.recordRefresh(false);
+        List<Employee> roster = rosterDeltaDetector.republish(current -> cacheData(EmployeeCaches.ROSTER, EmployeeCaches.ROSTER_KEY, current));
+        return new EmployeeResponse(SUCCESS, roster, "Roster not modified");
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Fetches an employee by their ID from the external API. A found employee is cached by ID, an unknown ID is
+     * remembered in the negative cache.
      *
      * @param id The ID of the employee to be fetched
      * @return EmployeeResponse containing the employee details or an error message
      */
     public EmployeeResponse getEmployeeById(String id) {
-        try {
-            ResponseEntity<EmployeeResponse> response = restTemplate.getForEntity(externalApiUrl + "employee/" + id, EmployeeResponse.class);
-            return processResponseById(id, response);
-        } catch (Exception e) {
-            return handleApiException(e, "Error while fetching employee by ID: " + id);
+        Optional<UpstreamFederation.Route> route = upstreamFederation.route(id);
+        EmployeeResponse result;
+        if (route.isEmpty()) {
+            result = unknownSource(id);
+        } else {
+            try {
+                String url = route.get().getSource().getBaseUrl() + "employee/" + route.get().getId();
+                ResponseEntity<EmployeeResponse> response = hedgedRequestExecutor.execute(() -> upstreamScheduler.execute(UpstreamPriority.INTERACTIVE,
+                        () -> UpstreamCallEvent.record("getEmployeeById",
+                                () -> restTemplate.getForEntity(url, EmployeeResponse.class))));
+                result = qualifyIds(route.get().getSource(), processResponseById(id, response));
+            } catch (Exception e) {
+                result = handleApiException(e, "Error while fetching employee by ID: " + id);
+            }
+        }
+        if (SUCCESS.equals(result.getStatus()) && result.getData() != null && result.getData().size() == 1) {
+            cacheData(EmployeeCaches.BY_ID, id, result.getData().get(0));
+        } else if (Integer.toString(HttpStatus.NOT_FOUND.value()).equals(result.getStatus())) {
+            cacheData(EmployeeCaches.NEGATIVE, id, Boolean.TRUE);
+        }
+        return result;
+    }
+
+    private EmployeeResponse qualifyIds(UpstreamSource source, EmployeeResponse response) {
+        if (upstreamFederation.isEnabled() && SUCCESS.equals(response.getStatus()) && response.getData() != null) {
+            response.getData().forEach(employee -> employee.setId(upstreamFederation.qualify(source, employee.getId())));
         }
+        return response;
+    }
+
+    private EmployeeResponse unknownSource(String id) {
+        return new EmployeeResponse(Integer.toString(HttpStatus.NOT_FOUND.value()), Collections.emptyList(), "No source owns the employee ID: " + id);
     }
 
     private EmployeeResponse handleApiException(Exception e, String errorMessage) {
@@ -76,13 +267,17 @@ public class EmployeeExtController {
             HttpClientErrorException httpException = (HttpClientErrorException) e;
             logger.error(errorMessage, httpException);
             return new EmployeeResponse(String.valueOf(httpException.getStatusCode().value()), Collections.emptyList(), httpException.getStatusText());
+        } else if (e instanceof UpstreamThrottledException) {
+            logger.warn("{}: {}", errorMessage, e.getMessage());
+            return new EmployeeResponse(Integer.toString(HttpStatus.SERVICE_UNAVAILABLE.value()), Collections.emptyList(), e.getMessage());
         } else {
             logger.error(errorMessage, e);
             return new EmployeeResponse(Integer.toString(HttpStatus.INTERNAL_SERVER_ERROR.value()), Collections.emptyList(), "Internal server error");
         }
     }
 
-    public ResponseEntity<Object> sendCreateEmployeeRequest(Map<String, Object> employeeInput) {
+    public ResponseEntity<CreateEmployeeResponse> sendCreateEmployeeRequest(UpstreamSource source, Map<String, Object> employeeInput,
+                                                                            UpstreamPriority priority) {
         MultiValueMap<String, String> requestBody = new LinkedMultiValueMap<>();
         requestBody.add("name", (String) employeeInput.get("name"));
         requestBody.add(SALARY, (String) employeeInput.get(SALARY));
@@ -93,12 +288,13 @@ public class EmployeeExtController {
 
         HttpEntity<MultiValueMap<String, String>> requestEntity = new HttpEntity<>(requestBody, headers);
 
-        return restTemplate.exchange(
-                externalApiUrl + "create",
-                HttpMethod.POST,
-                requestEntity,
-                Object.class
-        );
+        return upstreamScheduler.execute(priority, () -> UpstreamCallEvent.record("createEmployee",
+                () -> restTemplate.exchange(
+                        source.getBaseUrl() + "create",
+                        HttpMethod.POST,
+                        requestEntity,
+                        CreateEmployeeResponse.class
+                )));
     }
 
     /**
@@ -108,12 +304,18 @@ public class EmployeeExtController {
      * @return EmployeeResponse indicating the result of the deletion operation
      */
     public EmployeeResponse deleteEmployeeById(String id) {
+        Optional<UpstreamFederation.Route> route = upstreamFederation.route(id);
+        if (route.isEmpty()) {
+            return unknownSource(id);
+        }
         try {
-            ResponseEntity<EmployeeResponse> response = restTemplate.exchange(
-                    externalApiUrl + "delete/" + id,
-                    HttpMethod.DELETE,
-                    null,
-                    EmployeeResponse.class);
+            String url = route.get().getSource().getBaseUrl() + "delete/" + route.get().getId();
+            ResponseEntity<EmployeeResponse> response = upstreamScheduler.execute(UpstreamPriority.WRITE, () -> UpstreamCallEvent.record("deleteEmployee",
+                    () -> restTemplate.exchange(
+                            url,
+                            HttpMethod.DELETE,
+                            null,
+                            EmployeeResponse.class)));
 
             if (response.getStatusCode() == HttpStatus.OK) {
                 EmployeeResponse responseBody = response.getBody();
@@ -142,11 +344,12 @@ public class EmployeeExtController {
         return createErrorResponse(response.getStatusCode(), "Employee not found with ID: " + id);
     }
 
-    private <T> EmployeeResponse executeApiRequest(Supplier<ResponseEntity<T>> requestSupplier, Function<T, EmployeeResponse> successHandler) {
+    private <T> EmployeeResponse executeApiRequest(Supplier<ResponseEntity<T>> requestSupplier, ResponseHandler<T> successHandler) {
         try {
             ResponseEntity<T> response = requestSupplier.get();
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                return successHandler.apply(response.getBody());
+            if ((response.getStatusCode() == HttpStatus.OK && response.getBody() != null)
+                    || response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                return successHandler.handle(response);
             }
             return createErrorResponse(response.getStatusCode(), "Unexpected response format");
         } catch (Exception e) {
@@ -160,7 +363,18 @@ public class EmployeeExtController {
 
     private EmployeeResponse processEmployeeApiResponse(EmployeeResponse response) {
         if (SUCCESS.equals(response.getStatus())) {
-            cacheData(CACHE_KEY_ALL_EMPLOYEES, response.getData());
+            CacheLoadEvent.record(EmployeeCaches.ROSTER, "refresh", () -> {
+                // An unchanged roster keeps the cached instance, so nothing derived from it needs rebuilding
+                RosterDeltaDetector.Detection detection = rosterDeltaDetector.detect(
+                        Optional.ofNullable(response.getData()).orElse(Collections.emptyList()), current -> {
+                            rosterExpiry.recordRefresh(!current.getDelta().isEmpty());
+                            cacheData(EmployeeCaches.ROSTER, EmployeeCaches.ROSTER_KEY, current.getRoster());
+                        });
+                if (detection.getDelta().isEmpty()) {
+                    logger.debug("Roster unchanged since the previous refresh.");
+                }
+                return detection.getRoster();
+            });
             return response;
         }
         return new EmployeeResponse("500", Collections.emptyList(), "Invalid response status");
@@ -173,61 +387,80 @@ public class EmployeeExtController {
      * @return EmployeeResponse indicating the result of the creation operation
      */
     public EmployeeResponse createEmployee(Map<String, Object> employeeInput) {
+        return createEmployee(employeeInput, UpstreamPriority.WRITE);
+    }
+
+    /**
+     * Creates a new employee with the provided input data.
+     *
+     * @param employeeInput Map containing employee data such as name, salary, and age
+     * @param priority      Scheduling priority of the upstream call, bulk imports yield to client requests
+     * @return EmployeeResponse indicating the result of the creation operation
+     */
+    public EmployeeResponse createEmployee(Map<String, Object> employeeInput, UpstreamPriority priority) {
+        Optional<UpstreamSource> source = upstreamFederation.writeSource(employeeInput);
+        if (source.isEmpty()) {
+            return new EmployeeResponse(Integer.toString(HttpStatus.BAD_REQUEST.value()), Collections.emptyList(),
+                    "Unknown source " + employeeInput.get(UpstreamFederation.SOURCE_FIELD));
+        }
         try {
-            ResponseEntity<Object> response = sendCreateEmployeeRequest(employeeInput);
+            ResponseEntity<CreateEmployeeResponse> response = sendCreateEmployeeRequest(source.get(), employeeInput, priority);
 
-            return processCreateEmployeeResponse(response);
+            return processCreateEmployeeResponse(source.get(), response);
         } catch (Exception e) {
             logger.error("Error while creating a new employee", e);
             return new EmployeeResponse("500", Collections.emptyList(), "Error while creating employee: " + e.getMessage());
         }
     }
 
-    private EmployeeResponse processCreateEmployeeResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-            try {
-                // Convert the response body to a Map or a custom DTO
-                ObjectMapper mapper = new ObjectMapper();
-                Map<String, Object> responseBody = mapper.convertValue(response.getBody(), new TypeReference<>() {});
-
-                // Extract and process the data
-                if (SUCCESS.equals(responseBody.get("status"))) {
-                    Map<String, Object> data = (Map<String, Object>) responseBody.get("data");
-                    if (data != null) {
-                        Employee createdEmployee = convertMapToEmployee(data);
-                        logger.info("Successfully created a new employee with ID: {}", createdEmployee.getId());
-                        return new EmployeeResponse("201", Collections.singletonList(createdEmployee), "Employee created successfully");
-                    }
-                }
-            } catch (Exception e) {
-                logger.error("Error while processing response", e);
-            }
+    private EmployeeResponse processCreateEmployeeResponse(UpstreamSource source, ResponseEntity<CreateEmployeeResponse> response) {
+        CreateEmployeeResponse responseBody = response.getBody();
+        if (response.getStatusCode() == HttpStatus.OK && responseBody != null
+                && SUCCESS.equals(responseBody.getStatus()) && responseBody.getData() != null) {
+            Employee createdEmployee = toEmployee(source, responseBody.getData());
+            logger.info("Successfully created a new employee with ID: {}", createdEmployee.getId());
+            return new EmployeeResponse("201", Collections.singletonList(createdEmployee), "Employee created successfully");
         }
         return new EmployeeResponse("500", Collections.emptyList(), "Failed to create a new employee or process the response");
     }
 
-    private void cacheData(String key, Object data) {
-        Optional.ofNullable(cacheManager.getCache("employeeCache")).ifPresent(cache -> cache.put(key, data));
+    private void cacheData(String cacheName, String key, Object data) {
+        Optional.ofNullable(cacheManager.getCache(cacheName)).ifPresent(cache -> cache.put(key, data));
     }
 
-    private Employee convertMapToEmployee(Map<String, Object> data) {
-        Employee employee = new Employee();
+    private Employee toEmployee(UpstreamSource source, CreateEmployeeResponse.CreatedEmployee data) {
+        return new Employee(upstreamFederation.qualify(source, data.getId()), data.getName(), data.getSalary(), data.getAge(), "");
+    }
 
-        if (data.containsKey("name")) {
-            employee.setEmployeeName((String) data.get("name"));
-        }
-        if (data.containsKey(SALARY)) {
-            employee.setEmployeeSalary((String) data.get(SALARY));
-        }
-        if (data.containsKey("age")) {
-            employee.setEmployeeAge(String.valueOf(data.get("age")));
-        }
-        if (data.containsKey("id")) {
-            employee.setId(String.valueOf(data.get("id")));
-        }
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+        EmployeeResponse handle(ResponseEntity<T> response) throws IOException;
+    }
 
-        employee.setProfileImage("");
+    /**
+     * Validators of the last roster response that was fully processed.
+     */
+    private static final class RosterValidators {
+        private final String etag;
+        private final String lastModified;
+        private final byte[] bodyHash;
+
+        private RosterValidators(HttpHeaders headers, byte[] bodyHash) {
+            this.etag = headers.getETag();
+            this.lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+            this.bodyHash = bodyHash;
+        }
+    }
+    /**
+     * The last roster a federated source answered with.
+     */
+    private static final class SourceRoster {
+        private final List<Employee> roster;
+        private final long fetchedAtMillis;
 
-        return employee;
+        private SourceRoster(List<Employee> roster, long fetchedAtMillis) {
+            this.roster = roster;
+            this.fetchedAtMillis = fetchedAtMillis;
+        }
     }
 }
@@ -1,35 +1,96 @@
 package com.example.rqchallenge.controller;
 
 import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeLookupResult;
+import com.example.rqchallenge.model.EmployeeOperation;
+import com.example.rqchallenge.model.EmployeeSuggestion;
+import com.example.rqchallenge.model.ImportJobStatus;
+import com.example.rqchallenge.model.PartitionAggregates;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 public interface IEmployeeController {
 
     @GetMapping()
-    ResponseEntity<List<Employee>> getAllEmployees() throws IOException;
+    ResponseEntity<List<Employee>> getAllEmployees(@RequestHeader(value = "X-Roster-Version", required = false) String rosterVersion) throws IOException;
 
     @GetMapping("/search/{searchString}")
-    ResponseEntity<List<Employee>> getEmployeesByNameSearch(@PathVariable String searchString);
+    ResponseEntity<List<Employee>> getEmployeesByNameSearch(@PathVariable String searchString,
+                                                          @RequestHeader(value = "X-Roster-Version", required = false) String rosterVersion);
+
+    @GetMapping("/suggest")
+    ResponseEntity<List<EmployeeSuggestion>> suggestEmployees(@RequestParam String prefix,
+                                                              @RequestParam(defaultValue = "10") int limit,
+                                                              @RequestParam(defaultValue = "salary") String sort);
+
+    @GetMapping("/query")
+    ResponseEntity<List<Employee>> queryEmployees(@RequestParam(required = false) Integer minAge,
+                                                  @RequestParam(required = false) Integer maxAge,
+                                                  @RequestParam(required = false) Integer age,
+                                                  @RequestParam(required = false) Integer minSalary,
+                                                  @RequestParam(required = false) Integer maxSalary,
+                                                  @RequestParam(required = false) Integer salary,
+                                                  @RequestParam(required = false) String name,
+                                                  @RequestParam(defaultValue = "-salary") String sort,
+                                                  @RequestParam(defaultValue = "100") int limit);
+
+    @GetMapping("/export")
+    void exportEmployees(@RequestParam(defaultValue = "ndjson") String format,
+                         @RequestHeader(value = "X-Roster-Version", required = false) String rosterVersion,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException;
+
+    @PostMapping(value = "/imports", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    ResponseEntity<ImportJobStatus> startImport(@RequestParam("file") MultipartFile file,
+                                                @RequestParam(required = false) String format);
+
+    @GetMapping("/imports/{jobId}")
+    ResponseEntity<ImportJobStatus> getImportStatus(@PathVariable String jobId);
+
+    @GetMapping("/operations/{operationId}")
+    ResponseEntity<EmployeeOperation> getOperation(@PathVariable String operationId);
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    ResponseEntity<SseEmitter> streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId);
+
+    @PostMapping("/byIds")
+    ResponseEntity<List<EmployeeLookupResult>> getEmployeesByIds(@RequestBody List<String> ids);
 
     @GetMapping("/{id}")
-    ResponseEntity<Employee> getEmployeeById(@PathVariable String id);
+    CompletableFuture<ResponseEntity<Employee>> getEmployeeById(@PathVariable String id);
 
     @GetMapping("/highestSalary")
-    ResponseEntity<Integer> getHighestSalaryOfEmployees();
+    ResponseEntity<Integer> getHighestSalaryOfEmployees(@RequestHeader(value = "X-Roster-Version", required = false) String rosterVersion);
 
     @GetMapping("/topTenHighestEarningEmployeeNames")
-    ResponseEntity<List<String>> getTopTenHighestEarningEmployeeNames();
+    ResponseEntity<List<String>> getTopTenHighestEarningEmployeeNames(@RequestHeader(value = "X-Roster-Version", required = false) String rosterVersion);
+
+    @GetMapping("/partition/employees")
+    ResponseEntity<List<Employee>> getPartitionEmployees();
+
+    @GetMapping("/partition/search/{searchString}")
+    ResponseEntity<List<Employee>> searchPartition(@PathVariable String searchString);
+
+    @GetMapping("/partition/aggregates")
+    ResponseEntity<PartitionAggregates> getPartitionAggregates();
+
+    @GetMapping("/partition/employee/{id}")
+    CompletableFuture<ResponseEntity<Employee>> getPartitionEmployeeById(@PathVariable String id);
 
     @PostMapping()
-    ResponseEntity<Employee> createEmployee(@RequestBody Map<String, Object> employeeInput);
+    CompletableFuture<ResponseEntity<Employee>> createEmployee(@RequestBody Map<String, Object> employeeInput);
 
     @DeleteMapping("/{id}")
-    ResponseEntity<String> deleteEmployeeById(@PathVariable String id);
+    CompletableFuture<ResponseEntity<String>> deleteEmployeeById(@PathVariable String id);
 
 }
@@ -0,0 +1,46 @@
+package com.example.rqchallenge.diagnostics;
+
+import jdk.jfr.*;
+
+import java.util.function.Supplier;
+
+/**
+ * One pass of an employee service aggregation over the roster.
+ */
+@Name("com.example.rqchallenge.Aggregation")
+@Label("Roster Aggregation")
+@Category({"Employee Service", "Aggregation"})
+@Description("Search, top-N or maximum computed over the roster")
+@StackTrace(false)
+public class AggregationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows Scanned")
+    int rowsScanned;
+
+    /**
+     * Runs an aggregation, recording it when flight events are enabled.
+     *
+     * @param operation   Name of the aggregation
+     * @param rowsScanned Number of employees the aggregation goes through
+     * @param aggregation Computes the result
+     * @return The aggregation's result
+     */
+    public static <T> T record(String operation, int rowsScanned, Supplier<T> aggregation) {
+        if (!FlightEvents.isEnabled()) {
+            return aggregation.get();
+        }
+        AggregationEvent event = new AggregationEvent();
+        event.operation = operation;
+        event.rowsScanned = rowsScanned;
+        event.begin();
+        try {
+            return aggregation.get();
+        } finally {
+            event.commit();
+        }
+    }
+
+}
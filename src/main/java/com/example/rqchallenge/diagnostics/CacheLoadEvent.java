@@ -0,0 +1,52 @@
+package com.example.rqchallenge.diagnostics;
+
+import jdk.jfr.*;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Load or refresh of a cached roster.
+ */
+@Name("com.example.rqchallenge.CacheLoad")
+@Label("Cache Load")
+@Category({"Employee Service", "Cache"})
+@Description("Roster loaded into or refreshed in a cache")
+@StackTrace(false)
+public class CacheLoadEvent extends Event {
+
+    @Label("Cache")
+    String cache;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Entries")
+    int entries;
+
+    /**
+     * Runs a cache load, recording it when flight events are enabled.
+     *
+     * @param cache     Name of the cache being loaded
+     * @param operation What kind of load it is
+     * @param load      Produces the loaded roster
+     * @return The loaded roster
+     */
+    public static <T> List<T> record(String cache, String operation, Supplier<List<T>> load) {
+        if (!FlightEvents.isEnabled()) {
+            return load.get();
+        }
+        CacheLoadEvent event = new CacheLoadEvent();
+        event.cache = cache;
+        event.operation = operation;
+        event.begin();
+        try {
+            List<T> result = load.get();
+            event.entries = result == null ? 0 : result.size();
+            return result;
+        } finally {
+            event.commit();
+        }
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.example.rqchallenge.diagnostics;
+
+/**
+ * Switch for the custom Flight Recorder events. While it is off the instrumented code paths only read this flag and
+ * no event object is created; while it is on the events are recorded by any running recording that enables them.
+ */
+public final class FlightEvents {
+
+    private static volatile boolean enabled;
+
+    private FlightEvents() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        FlightEvents.enabled = enabled;
+    }
+
+}
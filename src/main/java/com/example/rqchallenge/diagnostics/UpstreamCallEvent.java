@@ -0,0 +1,59 @@
+package com.example.rqchallenge.diagnostics;
+
+import jdk.jfr.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.util.function.Supplier;
+
+/**
+ * One HTTP call to the external API. Retried and hedged attempts are recorded as separate events.
+ */
+@Name("com.example.rqchallenge.UpstreamCall")
+@Label("Upstream Call")
+@Category({"Employee Service", "Upstream"})
+@Description("HTTP call to the external employee API")
+@StackTrace(false)
+public class UpstreamCallEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Status")
+    @Description("HTTP status code, 0 when no response was received")
+    int status;
+
+    @Label("Bytes")
+    @Description("Response body size from Content-Length, -1 when unknown")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Runs an upstream call, recording it when flight events are enabled.
+     *
+     * @param operation Name of the API operation
+     * @param call      The HTTP call
+     * @return The call's response
+     */
+    public static <T> ResponseEntity<T> record(String operation, Supplier<ResponseEntity<T>> call) {
+        if (!FlightEvents.isEnabled()) {
+            return call.get();
+        }
+        UpstreamCallEvent event = new UpstreamCallEvent();
+        event.operation = operation;
+        event.bytes = -1;
+        event.begin();
+        try {
+            ResponseEntity<T> response = call.get();
+            event.status = response.getStatusCodeValue();
+            event.bytes = response.getHeaders().getContentLength();
+            return response;
+        } catch (HttpStatusCodeException e) {
+            event.status = e.getRawStatusCode();
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+}
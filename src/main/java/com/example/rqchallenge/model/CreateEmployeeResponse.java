@@ -0,0 +1,92 @@
+package com.example.rqchallenge.model;
+
+/**
+ * Response of the external API's create endpoint, which uses plain field names unlike the employee listing.
+ */
+public class CreateEmployeeResponse {
+    private String status;
+    private CreatedEmployee data;
+    private String message;
+
+    public CreateEmployeeResponse(String status, CreatedEmployee data, String message) {
+        this.status = status;
+        this.data = data;
+        this.message = message;
+    }
+
+    public CreateEmployeeResponse() {
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public CreatedEmployee getData() {
+        return data;
+    }
+
+    public void setData(CreatedEmployee data) {
+        this.data = data;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public static class CreatedEmployee {
+        private String id;
+        private String name;
+        private String salary;
+        private String age;
+
+        public CreatedEmployee(String id, String name, String salary, String age) {
+            this.id = id;
+            this.name = name;
+            this.salary = salary;
+            this.age = age;
+        }
+
+        public CreatedEmployee() {
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getSalary() {
+            return salary;
+        }
+
+        public void setSalary(String salary) {
+            this.salary = salary;
+        }
+
+        public String getAge() {
+            return age;
+        }
+
+        public void setAge(String age) {
+            this.age = age;
+        }
+    }
+}
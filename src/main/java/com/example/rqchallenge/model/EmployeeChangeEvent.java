@@ -0,0 +1,70 @@
+package com.example.rqchallenge.model;
+
+/**
+ * Entry of the employee change feed. The id increases monotonically and, prefixed with the epoch of this run, is used
+ * as the SSE event id.
+ */
+public class EmployeeChangeEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private long id;
+    private Type type;
+    private String employeeId;
+    private Employee employee;
+
+    public EmployeeChangeEvent(long id, Type type, String employeeId, Employee employee) {
+        this.id = id;
+        this.type = type;
+        this.employeeId = employeeId;
+        this.employee = employee;
+    }
+
+    public EmployeeChangeEvent() {
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    public void setEmployee(Employee employee) {
+        this.employee = employee;
+    }
+
+    @Override
+    public String toString() {
+        return "EmployeeChangeEvent{" +
+                "id=" + id +
+                ", type=" + type +
+                ", employeeId='" + employeeId + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.rqchallenge.model;
+
+import java.nio.file.Path;
+
+/**
+ * Export file of one roster snapshot version in one format. The file is written once and never changes afterwards. Its
+ * entity tag is the hash of its content, so it stays the same across instances and restarts for the same roster.
+ */
+public class EmployeeExport {
+
+    private final Path path;
+    private final long version;
+    private final RosterFileFormat format;
+    private final long size;
+    private final String contentHash;
+
+    public EmployeeExport(Path path, long version, RosterFileFormat format, long size, String contentHash) {
+        this.path = path;
+        this.version = version;
+        this.format = format;
+        this.size = size;
+        this.contentHash = contentHash;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public RosterFileFormat getFormat() {
+        return format;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return URL-safe Base64 of the SHA-256 of the file
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * @return Strong entity tag derived from the file content
+     */
+    public String getETag() {
+        return "\"" + contentHash + "\"";
+    }
+
+    public String getFileName() {
+        return "employees-v" + version + "." + format.getExtension();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.rqchallenge.model;
+
+/**
+ * Per-id result of a multi-get lookup. The status follows the HTTP status codes used by the single-id endpoint.
+ */
+public class EmployeeLookupResult {
+    private String id;
+    private String status;
+    private Employee employee;
+    private String message;
+
+    public EmployeeLookupResult(String id, String status, Employee employee, String message) {
+        this.id = id;
+        this.status = status;
+        this.employee = employee;
+        this.message = message;
+    }
+
+    public EmployeeLookupResult() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    public void setEmployee(Employee employee) {
+        this.employee = employee;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "EmployeeLookupResult{" +
+                "id='" + id + '\'' +
+                ", status='" + status + '\'' +
+                ", employee=" + employee +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
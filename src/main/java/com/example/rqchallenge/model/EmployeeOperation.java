@@ -0,0 +1,68 @@
+package com.example.rqchallenge.model;
+
+/**
+ * Outcome of an employee create accepted in write-behind mode. The operation is {@code PENDING} until the external API
+ * created the employee or the create failed for good.
+ */
+public final class EmployeeOperation {
+
+    public enum State {
+        PENDING, SUCCEEDED, FAILED
+    }
+
+    private final String id;
+    private final State state;
+    private final int attempts;
+    private final long submittedAtMillis;
+    private final Long completedAtMillis;
+    private final Employee employee;
+    private final String error;
+
+    public EmployeeOperation(String id, State state, int attempts, long submittedAtMillis, Long completedAtMillis,
+                             Employee employee, String error) {
+        this.id = id;
+        this.state = state;
+        this.attempts = attempts;
+        this.submittedAtMillis = submittedAtMillis;
+        this.completedAtMillis = completedAtMillis;
+        this.employee = employee;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return Create calls made so far by this instance, a restart starts counting again
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getSubmittedAtMillis() {
+        return submittedAtMillis;
+    }
+
+    public Long getCompletedAtMillis() {
+        return completedAtMillis;
+    }
+
+    /**
+     * @return The created employee, {@code null} unless the operation succeeded
+     */
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    /**
+     * @return Why the last attempt failed, {@code null} when it did not fail
+     */
+    public String getError() {
+        return error;
+    }
+}
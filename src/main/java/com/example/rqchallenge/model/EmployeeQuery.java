@@ -0,0 +1,92 @@
+package com.example.rqchallenge.model;
+
+import java.util.Optional;
+
+/**
+ * Criteria of a multi-predicate roster query. Range bounds are inclusive and {@code null} when unbounded.
+ */
+public class EmployeeQuery {
+
+    public enum Sort {
+        SALARY_DESC("-salary"), SALARY_ASC("salary"), AGE_DESC("-age"), AGE_ASC("age"), NAME_DESC("-name"), NAME_ASC("name");
+
+        private final String parameter;
+
+        Sort(String parameter) {
+            this.parameter = parameter;
+        }
+
+        /**
+         * @param parameter A sort key, prefixed with {@code -} for descending order
+         * @return The matching sort order, empty for an unknown key
+         */
+        public static Optional<Sort> fromParameter(String parameter) {
+            for (Sort sort : values()) {
+                if (sort.parameter.equals(parameter)) {
+                    return Optional.of(sort);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private final Integer minAge;
+    private final Integer maxAge;
+    private final Integer minSalary;
+    private final Integer maxSalary;
+    private final String name;
+    private final Sort sort;
+    private final int limit;
+
+    public EmployeeQuery(Integer minAge, Integer maxAge, Integer minSalary, Integer maxSalary, String name, Sort sort, int limit) {
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.minSalary = minSalary;
+        this.maxSalary = maxSalary;
+        this.name = name;
+        this.sort = sort;
+        this.limit = limit;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public Integer getMinSalary() {
+        return minSalary;
+    }
+
+    public Integer getMaxSalary() {
+        return maxSalary;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean hasAgePredicate() {
+        return minAge != null || maxAge != null;
+    }
+
+    public boolean hasSalaryPredicate() {
+        return minSalary != null || maxSalary != null;
+    }
+
+    @Override
+    public String toString() {
+        return "EmployeeQuery{age=[" + minAge + ", " + maxAge + "], salary=[" + minSalary + ", " + maxSalary
+                + "], name='" + name + "', sort=" + sort + ", limit=" + limit + '}';
+    }
+}
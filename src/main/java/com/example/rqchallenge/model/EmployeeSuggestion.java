@@ -0,0 +1,36 @@
+package com.example.rqchallenge.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Compact autocomplete entry holding only what a suggestion list needs.
+ */
+public class EmployeeSuggestion {
+    private String id;
+    @JsonProperty("employee_name")
+    private String employeeName;
+
+    public EmployeeSuggestion(String id, String employeeName) {
+        this.id = id;
+        this.employeeName = employeeName;
+    }
+
+    public EmployeeSuggestion() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEmployeeName() {
+        return employeeName;
+    }
+
+    public void setEmployeeName(String employeeName) {
+        this.employeeName = employeeName;
+    }
+}
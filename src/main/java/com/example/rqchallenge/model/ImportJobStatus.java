@@ -0,0 +1,103 @@
+package com.example.rqchallenge.model;
+
+import java.util.List;
+
+/**
+ * Progress of a bulk import job. Rows are numbered from zero in file order; every row below {@code checkpointedRows}
+ * is done and will not be sent to the external API again when the job resumes.
+ */
+public final class ImportJobStatus {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final String fileName;
+    private final String format;
+    private final State state;
+    private final long rowsRead;
+    private final long succeeded;
+    private final long failed;
+    private final long checkpointedRows;
+    private final double rowsPerSecond;
+    private final long createdAtMillis;
+    private final Long finishedAtMillis;
+    private final List<String> errors;
+
+    public ImportJobStatus(String id, String fileName, String format, State state, long rowsRead, long succeeded,
+                           long failed, long checkpointedRows, double rowsPerSecond, long createdAtMillis,
+                           Long finishedAtMillis, List<String> errors) {
+        this.id = id;
+        this.fileName = fileName;
+        this.format = format;
+        this.state = state;
+        this.rowsRead = rowsRead;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.checkpointedRows = checkpointedRows;
+        this.rowsPerSecond = rowsPerSecond;
+        this.createdAtMillis = createdAtMillis;
+        this.finishedAtMillis = finishedAtMillis;
+        this.errors = errors;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getCheckpointedRows() {
+        return checkpointedRows;
+    }
+
+    /**
+     * @return Rows finished per second since the job last started or resumed
+     */
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public Long getFinishedAtMillis() {
+        return finishedAtMillis;
+    }
+
+    /**
+     * @return The most recent row failures, oldest first
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportJobStatus{id='" + id + "', state=" + state + ", succeeded=" + succeeded + ", failed=" + failed + '}';
+    }
+}
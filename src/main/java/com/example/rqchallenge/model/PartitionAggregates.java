@@ -0,0 +1,42 @@
+package com.example.rqchallenge.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Partial aggregates of the roster partition one cluster member owns, merged by the member answering the request.
+ */
+public class PartitionAggregates {
+    private Integer highestSalary;
+    private List<Employee> topEarners = Collections.emptyList();
+
+    public PartitionAggregates(Integer highestSalary, List<Employee> topEarners) {
+        this.highestSalary = highestSalary;
+        this.topEarners = topEarners;
+    }
+
+    public PartitionAggregates() {
+    }
+
+    /**
+     * @return The highest salary in the partition, {@code null} for an empty partition
+     */
+    public Integer getHighestSalary() {
+        return highestSalary;
+    }
+
+    public void setHighestSalary(Integer highestSalary) {
+        this.highestSalary = highestSalary;
+    }
+
+    /**
+     * @return The partition's top earners, highest salary first
+     */
+    public List<Employee> getTopEarners() {
+        return topEarners;
+    }
+
+    public void setTopEarners(List<Employee> topEarners) {
+        this.topEarners = topEarners;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.rqchallenge.model;
+
+import java.util.List;
+
+/**
+ * A change to the employee roster, broadcast between service instances so they can patch their cached roster. A
+ * {@code CREATED_BATCH} change carries several created employees in {@code employees} instead of one in
+ * {@code employee}. {@code version} numbers the changes of one origin without gaps, {@code rosterVersion} is the
+ * origin's roster snapshot tag after applying the change, null when the origin had no roster cached.
+ */
+public class RosterChange {
+
+    public enum Type {
+        CREATED,
+        CREATED_BATCH,
+        DELETED
+    }
+
+    private Type type;
+    private String employeeId;
+    private Employee employee;
+    private List<Employee> employees;
+    private long version;
+    private String origin;
+    private String rosterVersion;
+
+    public RosterChange(Type type, String employeeId, Employee employee, long version, String origin) {
+        this.type = type;
+        this.employeeId = employeeId;
+        this.employee = employee;
+        this.version = version;
+        this.origin = origin;
+    }
+
+    public RosterChange(List<Employee> employees, long version, String origin) {
+        this.type = Type.CREATED_BATCH;
+        this.employees = employees;
+        this.version = version;
+        this.origin = origin;
+    }
+
+    public RosterChange() {
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    public void setEmployee(Employee employee) {
+        this.employee = employee;
+    }
+
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    public void setEmployees(List<Employee> employees) {
+        this.employees = employees;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    public String getRosterVersion() {
+        return rosterVersion;
+    }
+
+    public void setRosterVersion(String rosterVersion) {
+        this.rosterVersion = rosterVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "RosterChange{" +
+                "type=" + type +
+                ", employeeId='" + employeeId + '\'' +
+                ", employees=" + (employees == null ? 0 : employees.size()) +
+                ", version=" + version +
+                ", origin='" + origin + '\'' +
+                ", rosterVersion='" + rosterVersion + '\'' +
+                '}';
+    }
+}
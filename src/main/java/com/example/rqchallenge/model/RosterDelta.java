@@ -0,0 +1,50 @@
+package com.example.rqchallenge.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Difference between two successive roster snapshots, compared by employee id and content hash.
+ */
+public class RosterDelta {
+    private final List<Employee> added;
+    private final List<Employee> removed;
+    private final List<Employee> changed;
+
+    public RosterDelta(List<Employee> added, List<Employee> removed, List<Employee> changed) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+    }
+
+    public List<Employee> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return The employees as they were in the previous snapshot
+     */
+    public List<Employee> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return The employees as they are in the new snapshot
+     */
+    public List<Employee> getChanged() {
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "RosterDelta{" +
+                "added=" + added.size() +
+                ", removed=" + removed.size() +
+                ", changed=" + changed.size() +
+                '}';
+    }
+}
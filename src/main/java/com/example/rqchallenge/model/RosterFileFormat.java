@@ -0,0 +1,40 @@
+package com.example.rqchallenge.model;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * File format of a roster file, written by the export and read by the import.
+ */
+public enum RosterFileFormat {
+    CSV("csv", "text/csv"), NDJSON("ndjson", "application/x-ndjson");
+
+    private final String extension;
+    private final String contentType;
+
+    RosterFileFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @param parameter Value of the {@code format} request parameter
+     * @return The matching format, empty for an unknown one
+     */
+    public static Optional<RosterFileFormat> fromParameter(String parameter) {
+        for (RosterFileFormat format : values()) {
+            if (format.extension.equals(parameter.toLowerCase(Locale.ROOT))) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+}
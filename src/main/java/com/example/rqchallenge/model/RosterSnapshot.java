@@ -0,0 +1,78 @@
+package com.example.rqchallenge.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Immutable roster as of one version. Versions increase by one with every change of the roster's content. They are
+ * counted per process, so clients get them as a tag qualified with this process's random epoch, and a tag from another
+ * instance or an earlier run is not mistaken for a local version.
+ */
+public final class RosterSnapshot {
+
+    public static final RosterSnapshot EMPTY = new RosterSnapshot(0, Collections.emptyList(), 0);
+
+    private static final String EPOCH = UUID.randomUUID().toString().substring(0, 8);
+
+    private final long version;
+    private final List<Employee> employees;
+    private final long createdAtMillis;
+
+    /**
+     * @param version         The snapshot version
+     * @param employees       The roster, unmodifiable. It is kept as it is, so the snapshot shares the identity of
+     *                        the roster the listeners received
+     * @param createdAtMillis When the snapshot was published
+     */
+    public RosterSnapshot(long version, List<Employee> employees, long createdAtMillis) {
+        this.version = version;
+        this.employees = employees;
+        this.createdAtMillis = createdAtMillis;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    /**
+     * @return The version qualified with this process's epoch, as sent in {@code X-Roster-Version}
+     */
+    public String getVersionTag() {
+        return versionTag(version);
+    }
+
+    public static String versionTag(long version) {
+        return EPOCH + "." + version;
+    }
+
+    /**
+     * @param tag A version tag sent by a client
+     * @return The version, empty when the tag is malformed or was issued by another instance or an earlier run
+     */
+    public static OptionalLong parseVersionTag(String tag) {
+        int separator = tag.lastIndexOf('.');
+        if (separator < 0 || !EPOCH.equals(tag.substring(0, separator).trim())) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(tag.substring(separator + 1).trim()));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RosterSnapshot{version=" + version + ", employees=" + employees.size() + '}';
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.cluster.ClusterMembership;
+import com.example.rqchallenge.cluster.PartitionUnavailableException;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.PartitionAggregates;
+import com.example.rqchallenge.model.RosterSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Answers roster-wide requests in cluster mode. Reads by id go to the member owning the id; listing, search, highest
+ * salary and top earners are scattered to every member, each answering from its own partition, and the partial
+ * results are merged here. A member that does not answer fails the request, a result without its partition would be
+ * silently incomplete.
+ */
+@Service
+public class ClusterQueryService {
+
+    public static final String PARTITION_PATH = "/api/v1/employee/partition/";
+    public static final int TOP_EARNERS = 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterQueryService.class);
+    private static final ParameterizedTypeReference<List<Employee>> EMPLOYEE_LIST = new ParameterizedTypeReference<>() {};
+    private static final Comparator<Employee> BY_SALARY_DESCENDING =
+            Comparator.comparingInt(employee -> -Integer.parseInt(employee.getEmployeeSalary()));
+
+    private final ClusterMembership clusterMembership;
+    private final EmployeeService employeeService;
+    private final RestTemplate restTemplate;
+    private final ExecutorService clusterExecutor;
+    private final long timeoutMs;
+
+    @Autowired
+    public ClusterQueryService(ClusterMembership clusterMembership, EmployeeService employeeService, RestTemplate restTemplate,
+                               @Qualifier("clusterExecutor") ExecutorService clusterExecutor,
+                               @Value("${employee.cluster.timeout-ms:2000}") long timeoutMs) {
+        this.clusterMembership = clusterMembership;
+        this.employeeService = employeeService;
+        this.restTemplate = restTemplate;
+        this.clusterExecutor = clusterExecutor;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * @return The employees this instance owns
+     */
+    public List<Employee> getLocalPartition() {
+        return getLocalSnapshot().getEmployees();
+    }
+
+    private RosterSnapshot getLocalSnapshot() {
+        RosterSnapshot snapshot = employeeService.getRosterSnapshot(null).orElse(RosterSnapshot.EMPTY);
+        if (snapshot.getVersion() > 0 || !clusterMembership.isEnabled()) {
+            return snapshot;
+        }
+        // Version 0 is the roster as loaded, before the delta detector reduced it to this instance's partition
+        return new RosterSnapshot(0, snapshot.getEmployees().stream()
+                .filter(employee -> clusterMembership.isLocal(employee.getId()))
+                .collect(Collectors.toList()), snapshot.getCreatedAtMillis());
+    }
+
+    /**
+     * @param searchString The string to filter employees by, case-insensitive
+     * @return The matching employees of this instance's partition
+     */
+    public List<Employee> searchLocalPartition(String searchString) {
+        return employeeService.getFilteredEmployees(searchString, getLocalSnapshot());
+    }
+
+    /**
+     * @return Highest salary and top earners of this instance's partition
+     */
+    public PartitionAggregates getLocalAggregates() {
+        List<Employee> partition = getLocalPartition();
+        return new PartitionAggregates(employeeService.filterHighestSalary(partition).orElse(null),
+                employeeService.getTopEarners(partition, TOP_EARNERS));
+    }
+
+    /**
+     * @param owner The member owning the id
+     * @param id    The employee id
+     * @return Future of the employee as the owner has it, empty when the owner does not know the id. It fails when
+     * the owner does not answer within the timeout.
+     */
+    public CompletableFuture<Optional<Employee>> getEmployeeFromOwner(String owner, String id) {
+        return CompletableFuture.supplyAsync(() -> Optional.ofNullable(fetchEmployee(owner, id)), clusterExecutor)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private Employee fetchEmployee(String owner, String id) {
+        try {
+            return restTemplate.getForObject(owner + PARTITION_PATH + "employee/{id}", Employee.class, id);
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The employees of all partitions, partition by partition in member order
+     */
+    public List<Employee> getAllEmployees() {
+        return gather(this::getLocalPartition,
+                member -> restTemplate.exchange(member + PARTITION_PATH + "employees", HttpMethod.GET, null, EMPLOYEE_LIST).getBody())
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param searchString The string to filter employees by, case-insensitive
+     * @return The matching employees of all partitions
+     */
+    public List<Employee> search(String searchString) {
+        return gather(() -> searchLocalPartition(searchString),
+                member -> restTemplate.exchange(member + PARTITION_PATH + "search/{searchString}", HttpMethod.GET, null,
+                        EMPLOYEE_LIST, searchString).getBody())
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return The highest of the partitions' highest salaries, empty when all partitions are empty
+     */
+    public Optional<Integer> getHighestSalary() {
+        return gatherAggregates().stream()
+                .map(PartitionAggregates::getHighestSalary)
+                .filter(Objects::nonNull)
+                .max(Integer::compare);
+    }
+
+    /**
+     * @return The names of the ten highest earners of the whole roster
+     */
+    public List<String> getTopTenNames() {
+        return mergeTopEarners(gatherAggregates().stream()
+                .map(PartitionAggregates::getTopEarners)
+                .collect(Collectors.toList()), TOP_EARNERS).stream()
+                .map(Employee::getEmployeeName)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Every partition's top earners contain all of its employees that can be among the overall top earners, so the
+     * overall top earners are the top of their union. Equal salaries keep the member order.
+     *
+     * @param partials The top earners of each partition, highest salary first
+     * @param limit    The maximum number of employees returned
+     * @return The overall top earners, highest salary first
+     */
+    static List<Employee> mergeTopEarners(List<List<Employee>> partials, int limit) {
+        return partials.stream()
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .sorted(BY_SALARY_DESCENDING)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private List<PartitionAggregates> gatherAggregates() {
+        return gather(this::getLocalAggregates,
+                member -> restTemplate.getForObject(member + PARTITION_PATH + "aggregates", PartitionAggregates.class));
+    }
+
+    /**
+     * Asks every peer for its partial result in parallel and computes the local one meanwhile.
+     *
+     * @return One partial result per member, in member order
+     * @throws PartitionUnavailableException when a peer fails or does not answer within the timeout
+     */
+    private <T> List<T> gather(Supplier<T> local, Function<String, T> remote) {
+        Map<String, CompletableFuture<T>> pending = new LinkedHashMap<>();
+        for (String peer : clusterMembership.getPeers()) {
+            pending.put(peer, CompletableFuture.supplyAsync(() -> remote.apply(peer), clusterExecutor)
+                    .orTimeout(timeoutMs, TimeUnit.MILLISECONDS));
+        }
+        T own = local.get();
+        List<T> results = new ArrayList<>(pending.size() + 1);
+        for (String member : clusterMembership.getMembers()) {
+            if (member.equals(clusterMembership.getSelf())) {
+                results.add(own);
+                continue;
+            }
+            try {
+                results.add(pending.get(member).join());
+            } catch (CompletionException e) {
+                pending.values().forEach(future -> future.cancel(true));
+                throw unavailable(member, e);
+            }
+        }
+        return results;
+    }
+
+    private PartitionUnavailableException unavailable(String member, CompletionException e) {
+        logger.warn("Cluster member {} did not answer: {}", member, String.valueOf(e.getCause()));
+        return new PartitionUnavailableException("Cluster member " + member + " did not answer", e.getCause());
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.cluster.ClusterMembership;
+import com.example.rqchallenge.controller.EmployeeExtController;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeLookupResult;
+import com.example.rqchallenge.model.EmployeeResponse;
+import com.example.rqchallenge.upstream.AdaptiveConcurrencyLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class EmployeeBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeBatchService.class);
+
+    private final EmployeeService employeeService;
+    private final EmployeeExtController employeeExtController;
+    private final ExecutorService upstreamExecutor;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ClusterMembership clusterMembership;
+    private final ClusterQueryService clusterQueryService;
+    private final long requestDeadlineMs;
+
+    @Autowired
+    public EmployeeBatchService(EmployeeService employeeService, EmployeeExtController employeeExtController,
+                                @Qualifier("upstreamExecutor") ExecutorService upstreamExecutor,
+                                AdaptiveConcurrencyLimiter concurrencyLimiter, ClusterMembership clusterMembership,
+                                ClusterQueryService clusterQueryService,
+                                @Value("${employee.upstream.request-deadline-ms:15000}") long requestDeadlineMs) {
+        this.employeeService = employeeService;
+        this.employeeExtController = employeeExtController;
+        this.upstreamExecutor = upstreamExecutor;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.clusterMembership = clusterMembership;
+        this.clusterQueryService = clusterQueryService;
+        this.requestDeadlineMs = requestDeadlineMs;
+    }
+
+    /**
+     * Resolves a batch of employee ids. Ids present in the cached roster are answered in one pass, the remaining
+     * ones are fetched from the external API in parallel on the upstream executor. In cluster mode, ids owned by
+     * another member are asked from that member instead, like a read by id. Ids that are not answered within the
+     * request deadline get a 504 result, the others are returned as they are.
+     *
+     * @param ids The ids to resolve, duplicates are allowed
+     * @return One result per requested id, in request order
+     */
+    public List<EmployeeLookupResult> getEmployeesByIds(List<String> ids) {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestDeadlineMs);
+        Map<String, Employee> rosterById = employeeService.getAllCachedEmployees().stream()
+                .collect(Collectors.toMap(Employee::getId, Function.identity(), (first, second) -> first));
+
+        Map<String, EmployeeLookupResult> resolved = new HashMap<>();
+        Map<String, CompletableFuture<EmployeeLookupResult>> pending = new LinkedHashMap<>();
+        for (String id : ids) {
+            Employee cached = rosterById.get(id);
+            if (!clusterMembership.isLocal(id)) {
+                if (!pending.containsKey(id)) {
+                    pending.put(id, fetchFromOwner(id));
+                }
+            } else if (cached != null) {
+                resolved.put(id, new EmployeeLookupResult(id, "200", cached, null));
+            } else if (!pending.containsKey(id)) {
+                try {
+                    pending.put(id, CompletableFuture.supplyAsync(() -> fetchFromApi(id), upstreamExecutor));
+                } catch (RejectedExecutionException e) {
+                    pending.put(id, CompletableFuture.completedFuture(
+                            new EmployeeLookupResult(id, "503", null, "Upstream executor is saturated")));
+                }
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            logger.info("Resolved {} ids from cache, fetching {} from the external API or their owners.", resolved.size(), pending.size());
+            pending.forEach((id, future) -> {
+                long remainingNanos = Math.max(0, deadlineNanos - System.nanoTime());
+                // A late answer still releases its permit, only the batch stops waiting for it
+                resolved.put(id, future.copy()
+                        .completeOnTimeout(new EmployeeLookupResult(id, "504", null, "Not answered within the deadline"),
+                                remainingNanos, TimeUnit.NANOSECONDS)
+                        .join());
+            });
+            long timedOut = pending.keySet().stream().filter(id -> "504".equals(resolved.get(id).getStatus())).count();
+            if (timedOut > 0) {
+                logger.warn("Deadline of {} ms exceeded for {} of {} batch ids", requestDeadlineMs, timedOut, pending.size());
+            }
+        }
+
+        return ids.stream().map(resolved::get).collect(Collectors.toList());
+    }
+
+    private CompletableFuture<EmployeeLookupResult> fetchFromOwner(String id) {
+        String owner = clusterMembership.ownerOf(id);
+        return clusterQueryService.getEmployeeFromOwner(owner, id)
+                .thenApply(employee -> employee
+                        .map(found -> new EmployeeLookupResult(id, "200", found, null))
+                        .orElseGet(() -> new EmployeeLookupResult(id, "404", null, "Employee not found")))
+                .exceptionally(e -> {
+                    logger.warn("Cluster member {} did not answer for employee {}: {}", owner, id, String.valueOf(e));
+                    return new EmployeeLookupResult(id, "503", null, "Owning cluster member did not answer");
+                });
+    }
+
+    private EmployeeLookupResult fetchFromApi(String id) {
+        Optional<AdaptiveConcurrencyLimiter.Permit> permit = concurrencyLimiter.tryAcquire();
+        if (permit.isEmpty()) {
+            return new EmployeeLookupResult(id, "503", null, "Upstream concurrency limit reached");
+        }
+        try {
+            EmployeeResponse response = employeeExtController.getEmployeeById(id);
+            if (String.valueOf(HttpStatus.TOO_MANY_REQUESTS.value()).equals(response.getStatus())
+                    || String.valueOf(HttpStatus.SERVICE_UNAVAILABLE.value()).equals(response.getStatus())) {
+                permit.get().onDropped();
+            } else {
+                permit.get().onSuccess();
+            }
+            if (response.getData() != null && !response.getData().isEmpty()) {
+                return new EmployeeLookupResult(id, "200", response.getData().get(0), null);
+            }
+            return new EmployeeLookupResult(id, response.getStatus(), null, response.getMessage());
+        } catch (Exception e) {
+            permit.get().onIgnore();
+            logger.error("Error while fetching employee by ID: {}", id, e);
+            return new EmployeeLookupResult(id, "500", null, "Internal server error");
+        }
+    }
+
+}
@@ -0,0 +1,339 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeChangeEvent;
+import com.example.rqchallenge.model.RosterChange;
+import com.example.rqchallenge.model.RosterDelta;
+import com.example.rqchallenge.model.RosterSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Events feed of employee changes coming from local writes, writes on other instances and roster
+ * refreshes. The latest events are kept in a bounded log so a reconnecting client can resume from its
+ * {@code Last-Event-ID}. Event ids carry the epoch of this run like roster version tags, so an id issued by another
+ * instance or an earlier run gets a reset event instead of a wrong replay. Every subscriber has its own bounded queue; a
+ * subscriber whose queue overflows or whose send does not finish within the send timeout is disconnected instead of
+ * slowing down the others, and resumes from the log when it reconnects. A replay that would not fit into the
+ * subscriber's queue is replaced by a reset event. Idle subscribers get a periodic heartbeat comment, which also
+ * detects clients that went away. An employee state that is already the latest logged one for its id is not published
+ * again, so a write announced before the roster was cached is not repeated by the next refresh.
+ */
+@Service
+public class EmployeeChangeFeed implements RosterDeltaListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeChangeFeed.class);
+    static final String RESET_EVENT = "reset";
+    private static final String HEARTBEAT_COMMENT = "heartbeat";
+
+    private final int logCapacity;
+    private final int subscriberQueueCapacity;
+    private final long emitterTimeoutMs;
+    private final long sendTimeoutMs;
+
+    private final Deque<EmployeeChangeEvent> eventLog = new ArrayDeque<>();
+    private final Map<String, EmployeeChangeEvent> latestById = new HashMap<>();
+    private long lastEventId;
+    private boolean initialLoadSeen;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor dispatcher;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "employee-change-feed-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public EmployeeChangeFeed(@Value("${employee.changes.log-capacity:1000}") int logCapacity,
+                              @Value("${employee.changes.subscriber-queue-capacity:256}") int subscriberQueueCapacity,
+                              @Value("${employee.changes.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                              @Value("${employee.changes.send-timeout-ms:5000}") long sendTimeoutMs,
+                              @Value("${employee.changes.heartbeat-interval-ms:15000}") long heartbeatIntervalMs,
+                              @Value("${employee.changes.dispatcher-threads:4}") int dispatcherThreads) {
+        this.logCapacity = logCapacity;
+        this.subscriberQueueCapacity = subscriberQueueCapacity;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        // Every subscriber has at most one drain task, so the queue is bounded by the number of subscribers
+        this.dispatcher = new ThreadPoolExecutor(dispatcherThreads, dispatcherThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "employee-change-feed");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.dispatcher.allowCoreThreadTimeOut(true);
+        long checkIntervalMs = Math.max(sendTimeoutMs / 2, 1);
+        scheduler.scheduleWithFixedDelay(this::checkSendTimeouts, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a new subscription, replaying the logged events after the given id first.
+     *
+     * @param lastEventId Value of the {@code Last-Event-ID} header, an epoch-prefixed event id, null for a new client
+     * @return The emitter streaming the events
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(emitterTimeoutMs));
+    }
+
+    SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::discard);
+        emitter.onTimeout(subscriber::discard);
+        emitter.onError(error -> subscriber.discard());
+
+        synchronized (this) {
+            if (lastEventId != null) {
+                OptionalLong afterId = RosterSnapshot.parseVersionTag(lastEventId);
+                List<EmployeeChangeEvent> missed = afterId.isPresent() ? eventsAfter(afterId.getAsLong()) : null;
+                if (missed == null || missed.size() >= subscriberQueueCapacity) {
+                    // The client missed more than the log or its queue holds, or its id is from another epoch, and
+                    // has to reload the roster
+                    String resetId = RosterSnapshot.versionTag(this.lastEventId);
+                    subscriber.offer(() -> SseEmitter.event().name(RESET_EVENT).id(resetId).data(resetId));
+                } else {
+                    missed.forEach(event -> subscriber.offer(() -> toSse(event)));
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    @Override
+    public synchronized void onRosterDelta(RosterDelta delta, List<Employee> roster) {
+        // The very first roster load is not a change anybody needs to be told about
+        if (!initialLoadSeen) {
+            initialLoadSeen = true;
+            return;
+        }
+        delta.getAdded().forEach(employee -> append(EmployeeChangeEvent.Type.CREATED, employee.getId(), employee));
+        delta.getChanged().forEach(employee -> append(EmployeeChangeEvent.Type.UPDATED, employee.getId(), employee));
+        delta.getRemoved().forEach(employee -> append(EmployeeChangeEvent.Type.DELETED, employee.getId(), null));
+    }
+
+    /**
+     * Publishes a write that could not be applied to a cached roster and therefore produced no roster delta.
+     *
+     * @param change The local or remote write
+     */
+    public void onRosterChange(RosterChange change) {
+        if (change.getType() == RosterChange.Type.CREATED) {
+            append(EmployeeChangeEvent.Type.CREATED, change.getEmployeeId(), change.getEmployee());
+        } else if (change.getType() == RosterChange.Type.CREATED_BATCH) {
+            change.getEmployees().forEach(employee -> append(EmployeeChangeEvent.Type.CREATED, employee.getId(), employee));
+        } else {
+            append(EmployeeChangeEvent.Type.DELETED, change.getEmployeeId(), null);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * @param afterId Id of the last event the client has seen
+     * @return Events newer than the id, or null when some of them are no longer in the log
+     */
+    synchronized List<EmployeeChangeEvent> eventsAfter(long afterId) {
+        long oldestId = eventLog.isEmpty() ? lastEventId + 1 : eventLog.peekFirst().getId();
+        if (afterId < oldestId - 1 || afterId > lastEventId) {
+            return null;
+        }
+        List<EmployeeChangeEvent> events = new ArrayList<>();
+        for (EmployeeChangeEvent event : eventLog) {
+            if (event.getId() > afterId) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Disconnects the subscribers whose current send has been running for longer than the send timeout.
+     */
+    void checkSendTimeouts() {
+        long now = System.nanoTime();
+        subscribers.forEach(subscriber -> subscriber.checkSendTimeout(now));
+    }
+
+    /**
+     * Queues a heartbeat comment for the subscribers that have nothing else to send.
+     */
+    void sendHeartbeats() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.disconnect(null));
+        dispatcher.shutdown();
+    }
+
+    private synchronized void append(EmployeeChangeEvent.Type type, String employeeId, Employee employee) {
+        EmployeeChangeEvent latest = latestById.get(employeeId);
+        boolean deleted = type == EmployeeChangeEvent.Type.DELETED;
+        if (latest != null && (latest.getType() == EmployeeChangeEvent.Type.DELETED) == deleted) {
+            if (deleted || sameContent(latest.getEmployee(), employee)) {
+                return;
+            }
+            // Clients already know the employee, e.g. from a write announced before the roster was cached
+            type = EmployeeChangeEvent.Type.UPDATED;
+        }
+        EmployeeChangeEvent event = new EmployeeChangeEvent(++lastEventId, type, employeeId, employee);
+        eventLog.addLast(event);
+        latestById.put(employeeId, event);
+        if (eventLog.size() > logCapacity) {
+            EmployeeChangeEvent evicted = eventLog.removeFirst();
+            latestById.remove(evicted.getEmployeeId(), evicted);
+        }
+        // Building an SSE event mutates the builder, so every subscriber gets its own
+        subscribers.forEach(subscriber -> subscriber.offer(() -> toSse(event)));
+    }
+
+    private static boolean sameContent(Employee logged, Employee employee) {
+        return logged != null && employee != null
+                && RosterDeltaDetector.contentHash(logged) == RosterDeltaDetector.contentHash(employee);
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(EmployeeChangeEvent event) {
+        return SseEmitter.event()
+                .id(RosterSnapshot.versionTag(event.getId()))
+                .name(event.getType().name().toLowerCase(Locale.ROOT))
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> queue = new ArrayBlockingQueue<>(subscriberQueueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long sendStartedNanos;
+        private Thread sender;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Supplier<SseEmitter.SseEventBuilder> event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                disconnect("fell behind");
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void heartbeat() {
+            if (queue.isEmpty() && sendStartedNanos == 0) {
+                offer(() -> SseEmitter.event().comment(HEARTBEAT_COMMENT));
+            }
+        }
+
+        private void checkSendTimeout(long now) {
+            long started = sendStartedNanos;
+            if (started != 0 && now - started > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs)) {
+                disconnect("did not accept an event within " + sendTimeoutMs + " ms");
+            }
+        }
+
+        /**
+         * Disconnects the subscriber without waiting for a send in progress. The emitter is completed by the drain
+         * task, because completing it waits for that send.
+         *
+         * @param reason Logged reason, null for a regular shutdown
+         */
+        private void disconnect(String reason) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            if (reason != null) {
+                logger.warn("Change feed subscriber {}, disconnecting it.", reason);
+            }
+            subscribers.remove(this);
+            queue.clear();
+            interruptSend();
+            scheduleDrain();
+        }
+
+        /**
+         * Forgets a subscriber whose emitter already completed, timed out or failed.
+         */
+        private void discard() {
+            closed.set(true);
+            subscribers.remove(this);
+            queue.clear();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Supplier<SseEmitter.SseEventBuilder> event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    send(event.get());
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Change feed subscriber went away: {}", e.getMessage());
+                discard();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (closed.get()) {
+                emitter.complete();
+            } else if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            synchronized (this) {
+                sender = Thread.currentThread();
+            }
+            sendStartedNanos = System.nanoTime();
+            try {
+                emitter.send(event);
+            } finally {
+                sendStartedNanos = 0;
+                synchronized (this) {
+                    sender = null;
+                    // An interrupt meant for this send must not hit the next subscriber served by the thread
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        private synchronized void interruptSend() {
+            if (sender != null) {
+                sender.interrupt();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,228 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeExport;
+import com.example.rqchallenge.model.RosterFileFormat;
+import com.example.rqchallenge.model.RosterSnapshot;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Writes each roster snapshot version to an export file once per format, so repeated exports of the same version are
+ * served straight from disk. Files of versions the snapshot store no longer retains are deleted once no download holds
+ * them and a grace period has passed since the last one was handed out. The grace period covers sendfile, where the
+ * container only opens the file after the request handler returned. Every instance writes into its own temporary
+ * directory, removed on shutdown, because versions restart with the process.
+ */
+@Service
+public class EmployeeExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeExportService.class);
+    private static final String CSV_HEADER = "id,employee_name,employee_salary,employee_age,profile_image\n";
+
+    private final RosterSnapshotStore rosterSnapshotStore;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long deleteGraceMs;
+    private final LongSupplier clock;
+    private final Map<String, ExportFile> exports = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EmployeeExportService(RosterSnapshotStore rosterSnapshotStore, ObjectMapper objectMapper,
+                                 @Value("${employee.export.dir:${java.io.tmpdir}}") String baseDirectory,
+                                 @Value("${employee.export.delete-grace-ms:60000}") long deleteGraceMs) throws IOException {
+        this(rosterSnapshotStore, objectMapper, baseDirectory, deleteGraceMs, System::currentTimeMillis);
+    }
+
+    EmployeeExportService(RosterSnapshotStore rosterSnapshotStore, ObjectMapper objectMapper, String baseDirectory,
+                          long deleteGraceMs, LongSupplier clock) throws IOException {
+        this.rosterSnapshotStore = rosterSnapshotStore;
+        this.deleteGraceMs = deleteGraceMs;
+        this.clock = clock;
+        this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        Path base = Files.createDirectories(Paths.get(baseDirectory));
+        this.directory = Files.createTempDirectory(base, "rqchallenge-export-");
+    }
+
+    /**
+     * Returns the export file of a snapshot, writing it on the first request for this version and format. The file is
+     * not deleted before the caller hands it back with {@link #release(EmployeeExport)}.
+     *
+     * @param snapshot The roster snapshot to export
+     * @param format   The file format
+     * @return The export file
+     * @throws UncheckedIOException when the file could not be written
+     */
+    public EmployeeExport export(RosterSnapshot snapshot, RosterFileFormat format) {
+        String key = key(snapshot.getVersion(), format);
+        EmployeeExport export = null;
+        while (export == null) {
+            ExportFile file = exports.computeIfAbsent(key, ignored -> new ExportFile(write(snapshot, format)));
+            synchronized (file) {
+                // A file deleted between the lookup and here is written again
+                if (!file.deleted) {
+                    file.leases++;
+                    export = file.export;
+                }
+            }
+        }
+        deleteUnretained();
+        return export;
+    }
+
+    /**
+     * Hands back an export file once its download is done, or handed to the container.
+     *
+     * @param export A file returned by {@link #export(RosterSnapshot, RosterFileFormat)}
+     */
+    public void release(EmployeeExport export) {
+        ExportFile file = exports.get(key(export.getVersion(), export.getFormat()));
+        if (file != null) {
+            synchronized (file) {
+                file.leases--;
+                file.releasedAtMillis = clock.getAsLong();
+            }
+        }
+        deleteUnretained();
+    }
+
+    private static String key(long version, RosterFileFormat format) {
+        return version + "." + format.getExtension();
+    }
+
+    private EmployeeExport write(RosterSnapshot snapshot, RosterFileFormat format) {
+        long start = System.nanoTime();
+        Path target = directory.resolve("roster-v" + snapshot.getVersion() + "." + format.getExtension());
+        try {
+            Path temporary = Files.createTempFile(directory, "roster-", ".tmp");
+            MessageDigest digest = sha256();
+            try (OutputStream out = new BufferedOutputStream(new DigestOutputStream(Files.newOutputStream(temporary), digest), 1 << 16)) {
+                if (format == RosterFileFormat.CSV) {
+                    writeCsv(snapshot.getEmployees(), out);
+                } else {
+                    writeNdjson(snapshot.getEmployees(), out);
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            EmployeeExport export = new EmployeeExport(target, snapshot.getVersion(), format, Files.size(target),
+                    Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()));
+            logger.info("Wrote {} export of roster version {} ({} bytes) in {} ms.", format, snapshot.getVersion(),
+                    export.getSize(), (System.nanoTime() - start) / 1_000_000);
+            return export;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while writing the roster export " + target, e);
+        }
+    }
+
+    private void writeNdjson(List<Employee> employees, OutputStream out) throws IOException {
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            writer.writeAll(employees);
+        }
+        if (!employees.isEmpty()) {
+            out.write('\n');
+        }
+    }
+
+    private static void writeCsv(List<Employee> employees, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write(CSV_HEADER);
+        for (Employee employee : employees) {
+            writeCsvField(writer, employee.getId());
+            writer.write(',');
+            writeCsvField(writer, employee.getEmployeeName());
+            writer.write(',');
+            writeCsvField(writer, employee.getEmployeeSalary());
+            writer.write(',');
+            writeCsvField(writer, employee.getEmployeeAge());
+            writer.write(',');
+            writeCsvField(writer, employee.getProfileImage());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void deleteUnretained() {
+        long now = clock.getAsLong();
+        exports.values().removeIf(file -> {
+            if (rosterSnapshotStore.get(file.export.getVersion()).isPresent()) {
+                return false;
+            }
+            synchronized (file) {
+                if (file.leases > 0 || now - file.releasedAtMillis < deleteGraceMs) {
+                    return false;
+                }
+                file.deleted = true;
+            }
+            try {
+                Files.deleteIfExists(file.export.getPath());
+            } catch (IOException e) {
+                logger.warn("Could not delete the outdated export {}", file.export.getPath(), e);
+            }
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    /**
+     * An export file with the number of downloads holding it. Guarded by its own monitor.
+     */
+    private static final class ExportFile {
+        private final EmployeeExport export;
+        private int leases;
+        private long releasedAtMillis;
+        private boolean deleted;
+
+        private ExportFile(EmployeeExport export) {
+            this.export = export;
+        }
+    }
+
+}
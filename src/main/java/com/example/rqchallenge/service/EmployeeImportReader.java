@@ -0,0 +1,190 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.RosterFileFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Streams the rows of an import file, one at a time. CSV files need a header row and may quote fields as RFC 4180
+ * describes; NDJSON files hold one object per line. Both accept the column names of the export as well as the create
+ * request's {@code name}, {@code salary} and {@code age}, so an export can be imported again.
+ */
+final class EmployeeImportReader implements Closeable {
+
+    private static final Map<String, String> COLUMNS = Map.of(
+            "name", "name", "employee_name", "name",
+            "salary", "salary", "employee_salary", "salary",
+            "age", "age", "employee_age", "age");
+
+    private final BufferedReader reader;
+    private final RosterFileFormat format;
+    private final ObjectMapper objectMapper;
+    private String[] header;
+
+    private EmployeeImportReader(BufferedReader reader, RosterFileFormat format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    static EmployeeImportReader open(Path file, RosterFileFormat format, ObjectMapper objectMapper) throws IOException {
+        EmployeeImportReader importReader = new EmployeeImportReader(
+                Files.newBufferedReader(file, StandardCharsets.UTF_8), format, objectMapper);
+        if (format == RosterFileFormat.CSV) {
+            List<String> header = importReader.readCsvRecord();
+            if (header == null) {
+                header = Collections.emptyList();
+            }
+            importReader.header = new String[header.size()];
+            for (int i = 0; i < header.size(); i++) {
+                importReader.header[i] = COLUMNS.get(header.get(i).trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return importReader;
+    }
+
+    /**
+     * @return The next row, {@code null} at the end of the file
+     */
+    Row next() throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        if (format == RosterFileFormat.CSV) {
+            List<String> record;
+            do {
+                record = readCsvRecord();
+                if (record == null) {
+                    return null;
+                }
+            } while (record.size() == 1 && record.get(0).isBlank());
+            for (int i = 0; i < record.size() && i < header.length; i++) {
+                if (header[i] != null) {
+                    fields.put(header[i], record.get(i).trim());
+                }
+            }
+        } else {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                return Row.invalid("Malformed JSON");
+            }
+            if (!node.isObject()) {
+                return Row.invalid("Not a JSON object");
+            }
+            node.fields().forEachRemaining(field -> {
+                String column = COLUMNS.get(field.getKey().toLowerCase(Locale.ROOT));
+                if (column != null && !field.getValue().isNull()) {
+                    fields.put(column, field.getValue().asText().trim());
+                }
+            });
+        }
+        return toRow(fields);
+    }
+
+    private static Row toRow(Map<String, String> fields) {
+        String name = fields.get("name");
+        if (name == null || name.isEmpty()) {
+            return Row.invalid("Missing name");
+        }
+        if (!isNonNegativeInteger(fields.get("salary"))) {
+            return Row.invalid("Invalid salary: " + fields.get("salary"));
+        }
+        if (!isNonNegativeInteger(fields.get("age"))) {
+            return Row.invalid("Invalid age: " + fields.get("age"));
+        }
+        Map<String, Object> input = new HashMap<>(fields);
+        return new Row(input, null);
+    }
+
+    private static boolean isNonNegativeInteger(String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(value) >= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private List<String> readCsvRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (following != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * One row of the import file: the create request input, or why the row cannot be imported.
+     */
+    static final class Row {
+        final Map<String, Object> input;
+        final String error;
+
+        private Row(Map<String, Object> input, String error) {
+            this.input = input;
+            this.error = error;
+        }
+
+        private static Row invalid(String error) {
+            return new Row(null, error);
+        }
+    }
+
+}
@@ -0,0 +1,424 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.controller.EmployeeExtController;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeResponse;
+import com.example.rqchallenge.model.ImportJobStatus;
+import com.example.rqchallenge.model.RosterFileFormat;
+import com.example.rqchallenge.upstream.UpstreamPriority;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs bulk imports of employee files. An upload is stored next to a checkpoint file and then read row by row, each row
+ * becoming one create call to the external API. Up to {@code parallelism} creates are in flight, paced to the
+ * configured rate, and the external API's own rate limit still applies through the upstream scheduler.
+ * <p>
+ * Created employees are applied to the cached roster in one patch per checkpoint, not one per row, since every patch
+ * republishes the whole roster to the shared cache, the roster listeners and the other instances.
+ * <p>
+ * The checkpoint holds the number of leading rows that are done. It is written every {@code checkpointInterval} rows
+ * and when the job ends, so after a crash or restart the job resumes at the checkpoint. Rows after the checkpoint that
+ * had already been created are created again, so a resumed import is at-least-once. Jobs run one after the other.
+ */
+@Service
+public class EmployeeImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeImportService.class);
+    private static final String UPLOAD_SUFFIX = ".upload";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final int MAX_ERRORS = 20;
+
+    private final EmployeeExtController employeeExtController;
+    private final RosterChangeBroadcaster rosterChangeBroadcaster;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService rowExecutor;
+    private final ExecutorService jobRunner;
+    private final Path directory;
+    private final int parallelism;
+    private final double rowsPerSecond;
+    private final int checkpointInterval;
+    private final Counter succeededCounter;
+    private final Counter failedCounter;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EmployeeImportService(EmployeeExtController employeeExtController, RosterChangeBroadcaster rosterChangeBroadcaster,
+                                 ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 @Qualifier("importExecutor") ExecutorService rowExecutor,
+                                 @Value("${employee.import.dir:${java.io.tmpdir}/rqchallenge-imports}") String directory,
+                                 @Value("${employee.import.parallelism:4}") int parallelism,
+                                 @Value("${employee.import.rate:5}") double rowsPerSecond,
+                                 @Value("${employee.import.checkpoint-interval:100}") int checkpointInterval) throws IOException {
+        this.employeeExtController = employeeExtController;
+        this.rosterChangeBroadcaster = rosterChangeBroadcaster;
+        this.objectMapper = objectMapper;
+        this.rowExecutor = rowExecutor;
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.parallelism = parallelism;
+        this.rowsPerSecond = rowsPerSecond;
+        this.checkpointInterval = checkpointInterval;
+        this.succeededCounter = meterRegistry.counter("employee.import.rows", "outcome", "succeeded");
+        this.failedCounter = meterRegistry.counter("employee.import.rows", "outcome", "failed");
+        this.jobRunner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "employee-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stores an uploaded file and queues its import.
+     *
+     * @param upload   The file content, read to the end but not closed
+     * @param fileName The original file name, for the status only
+     * @param format   The file format
+     * @return The status of the queued job
+     * @throws IOException when the upload could not be stored
+     */
+    public ImportJobStatus submit(InputStream upload, String fileName, RosterFileFormat format) throws IOException {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), fileName, format, System.currentTimeMillis());
+        Files.copy(upload, uploadPath(job.id));
+        writeCheckpoint(job);
+        jobs.put(job.id, job);
+        jobRunner.execute(() -> run(job));
+        logger.info("Queued import job {} for {}.", job.id, fileName);
+        return job.status();
+    }
+
+    public Optional<ImportJobStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::status);
+    }
+
+    /**
+     * Loads the jobs found in the import directory and resumes the unfinished ones from their checkpoint.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(CHECKPOINT_SUFFIX))
+                    .sorted()
+                    .forEach(this::load);
+        } catch (IOException e) {
+            logger.error("Could not list the import directory {}", directory, e);
+        }
+    }
+
+    private void load(Path checkpointFile) {
+        Properties checkpoint = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            checkpoint.load(in);
+        } catch (IOException e) {
+            logger.warn("Skipping the unreadable import checkpoint {}", checkpointFile, e);
+            return;
+        }
+        ImportJob job = ImportJob.fromCheckpoint(checkpoint);
+        if (jobs.putIfAbsent(job.id, job) != null || job.isFinished()) {
+            return;
+        }
+        if (!Files.exists(uploadPath(job.id))) {
+            job.finish(ImportJobStatus.State.FAILED, "Uploaded file is missing");
+            writeCheckpoint(job);
+            return;
+        }
+        logger.info("Resuming import job {} at row {}.", job.id, job.checkpointedRows);
+        jobRunner.execute(() -> run(job));
+    }
+
+    private void run(ImportJob job) {
+        long resumeAt = job.start();
+        Semaphore slots = new Semaphore(parallelism);
+        long intervalNanos = rowsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rowsPerSecond) : 0;
+        long nextSlotNanos = System.nanoTime();
+        try (EmployeeImportReader reader = EmployeeImportReader.open(uploadPath(job.id), job.format, objectMapper)) {
+            EmployeeImportReader.Row row;
+            for (long number = 0; (row = reader.next()) != null; number++) {
+                job.rowRead(number);
+                if (number < resumeAt) {
+                    continue;
+                }
+                if (row.error != null) {
+                    rowDone(job, number, false, row.error);
+                    continue;
+                }
+                if (intervalNanos > 0) {
+                    long waitNanos = nextSlotNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    }
+                    nextSlotNanos = Math.max(nextSlotNanos, System.nanoTime()) + intervalNanos;
+                }
+                slots.acquire();
+                long rowNumber = number;
+                Map<String, Object> input = row.input;
+                try {
+                    rowExecutor.execute(() -> {
+                        try {
+                            create(job, rowNumber, input);
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    slots.release();
+                    throw e;
+                }
+            }
+            slots.acquire(parallelism);
+            flushCreated(job);
+            job.finish(ImportJobStatus.State.COMPLETED, null);
+            writeCheckpoint(job);
+            Files.deleteIfExists(uploadPath(job.id));
+            ImportJobStatus status = job.status();
+            logger.info("Import job {} completed: {} created, {} failed.", job.id, status.getSucceeded(), status.getFailed());
+        } catch (InterruptedException e) {
+            // Shutting down, the job stays unfinished and resumes at its checkpoint on the next start
+            Thread.currentThread().interrupt();
+            flushCreated(job);
+            writeCheckpoint(job);
+            logger.info("Import job {} interrupted at row {}.", job.id, job.status().getCheckpointedRows());
+        } catch (Exception e) {
+            logger.error("Import job {} failed", job.id, e);
+            flushCreated(job);
+            job.finish(ImportJobStatus.State.FAILED, "Import failed: " + e.getMessage());
+            writeCheckpoint(job);
+        }
+    }
+
+    private void create(ImportJob job, long number, Map<String, Object> input) {
+        String error = null;
+        try {
+            EmployeeResponse response = employeeExtController.createEmployee(input, UpstreamPriority.BACKGROUND);
+            if (Integer.toString(HttpStatus.CREATED.value()).equals(response.getStatus())
+                    && response.getData() != null && !response.getData().isEmpty()) {
+                job.created(response.getData().get(0));
+            } else {
+                error = response.getStatus() + " " + response.getMessage();
+            }
+        } catch (Exception e) {
+            logger.error("Error while importing row {} of job {}", number, job.id, e);
+            error = String.valueOf(e.getMessage());
+        }
+        rowDone(job, number, error == null, error);
+    }
+
+    private void rowDone(ImportJob job, long number, boolean succeeded, String error) {
+        (succeeded ? succeededCounter : failedCounter).increment();
+        if (job.rowDone(number, succeeded, error, checkpointInterval)) {
+            flushCreated(job);
+            try {
+                writeCheckpoint(job);
+            } catch (UncheckedIOException e) {
+                // The next checkpoint is attempted after another interval, a resume repeats a few more rows meanwhile
+                logger.warn("Could not write the checkpoint of import job {}", job.id, e);
+            }
+        }
+    }
+
+    private void flushCreated(ImportJob job) {
+        List<Employee> created = job.drainCreated();
+        if (created.isEmpty()) {
+            return;
+        }
+        try {
+            rosterChangeBroadcaster.employeesCreated(created);
+        } catch (RuntimeException e) {
+            // The employees exist upstream, the next roster refresh picks them up
+            logger.warn("Could not apply {} imported employees of job {} to the cached roster", created.size(), job.id, e);
+        }
+    }
+
+    private void writeCheckpoint(ImportJob job) {
+        Path target = directory.resolve(job.id + CHECKPOINT_SUFFIX);
+        // Serialized per job, so an older checkpoint never replaces a newer one
+        synchronized (job) {
+            Properties checkpoint = job.toCheckpoint();
+            try {
+                Path temporary = Files.createTempFile(directory, job.id, ".tmp");
+                try (OutputStream out = Files.newOutputStream(temporary)) {
+                    checkpoint.store(out, null);
+                }
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error while writing the import checkpoint " + target, e);
+            }
+        }
+    }
+
+    private Path uploadPath(String jobId) {
+        return directory.resolve(jobId + UPLOAD_SUFFIX);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdownNow();
+    }
+
+    /**
+     * Mutable state of one job. Rows finish out of order, so the finished rows above the checkpoint are kept in bit
+     * sets until every row before them is done too.
+     */
+    private static final class ImportJob {
+        private final String id;
+        private final String fileName;
+        private final RosterFileFormat format;
+        private final long createdAtMillis;
+        private final Deque<String> errors = new ArrayDeque<>();
+        private final BitSet done = new BitSet();
+        private final BitSet succeededRows = new BitSet();
+
+        private ImportJobStatus.State state = ImportJobStatus.State.QUEUED;
+        private List<Employee> created = new ArrayList<>();
+        private Long finishedAtMillis;
+        private long checkpointedRows;
+        private long checkpointedSucceeded;
+        private long checkpointedFailed;
+        private long lastWrittenRows;
+        private long rowsRead;
+        private long succeeded;
+        private long failed;
+        private long startedNanos;
+        private long finishedNanos;
+        private long finishedAtStart;
+
+        private ImportJob(String id, String fileName, RosterFileFormat format, long createdAtMillis) {
+            this.id = id;
+            this.fileName = fileName;
+            this.format = format;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        private static ImportJob fromCheckpoint(Properties checkpoint) {
+            ImportJob job = new ImportJob(checkpoint.getProperty("id"), checkpoint.getProperty("fileName"),
+                    RosterFileFormat.valueOf(checkpoint.getProperty("format")),
+                    Long.parseLong(checkpoint.getProperty("createdAtMillis")));
+            job.state = ImportJobStatus.State.valueOf(checkpoint.getProperty("state"));
+            job.checkpointedRows = Long.parseLong(checkpoint.getProperty("checkpointedRows"));
+            job.checkpointedSucceeded = Long.parseLong(checkpoint.getProperty("succeeded"));
+            job.checkpointedFailed = Long.parseLong(checkpoint.getProperty("failed"));
+            String finishedAt = checkpoint.getProperty("finishedAtMillis");
+            job.finishedAtMillis = finishedAt == null ? null : Long.parseLong(finishedAt);
+            job.lastWrittenRows = job.checkpointedRows;
+            job.rowsRead = job.checkpointedRows;
+            job.succeeded = job.checkpointedSucceeded;
+            job.failed = job.checkpointedFailed;
+            return job;
+        }
+
+        private synchronized Properties toCheckpoint() {
+            Properties checkpoint = new Properties();
+            checkpoint.setProperty("id", id);
+            checkpoint.setProperty("fileName", String.valueOf(fileName));
+            checkpoint.setProperty("format", format.name());
+            checkpoint.setProperty("createdAtMillis", Long.toString(createdAtMillis));
+            checkpoint.setProperty("state", state.name());
+            checkpoint.setProperty("checkpointedRows", Long.toString(checkpointedRows));
+            checkpoint.setProperty("succeeded", Long.toString(checkpointedSucceeded));
+            checkpoint.setProperty("failed", Long.toString(checkpointedFailed));
+            if (finishedAtMillis != null) {
+                checkpoint.setProperty("finishedAtMillis", Long.toString(finishedAtMillis));
+            }
+            lastWrittenRows = checkpointedRows;
+            return checkpoint;
+        }
+
+        /**
+         * @return The first row that still has to be imported
+         */
+        private synchronized long start() {
+            state = ImportJobStatus.State.RUNNING;
+            startedNanos = System.nanoTime();
+            finishedAtStart = succeeded + failed;
+            return checkpointedRows;
+        }
+
+        private synchronized void rowRead(long number) {
+            rowsRead = Math.max(rowsRead, number + 1);
+        }
+
+        /**
+         * @return Whether the checkpoint moved far enough to be written
+         */
+        private synchronized boolean rowDone(long number, boolean rowSucceeded, String error, int checkpointInterval) {
+            if (rowSucceeded) {
+                succeeded++;
+                succeededRows.set(Math.toIntExact(number));
+            } else {
+                failed++;
+                errors.addLast("Row " + number + ": " + error);
+                if (errors.size() > MAX_ERRORS) {
+                    errors.removeFirst();
+                }
+            }
+            done.set(Math.toIntExact(number));
+            while (done.get(Math.toIntExact(checkpointedRows))) {
+                if (succeededRows.get(Math.toIntExact(checkpointedRows))) {
+                    checkpointedSucceeded++;
+                } else {
+                    checkpointedFailed++;
+                }
+                checkpointedRows++;
+            }
+            return checkpointedRows - lastWrittenRows >= checkpointInterval;
+        }
+
+        private synchronized void created(Employee employee) {
+            created.add(employee);
+        }
+
+        /**
+         * @return The employees created since the previous call
+         */
+        private synchronized List<Employee> drainCreated() {
+            List<Employee> drained = created;
+            created = new ArrayList<>();
+            return drained;
+        }
+
+        private synchronized void finish(ImportJobStatus.State finalState, String error) {
+            state = finalState;
+            finishedAtMillis = System.currentTimeMillis();
+            finishedNanos = System.nanoTime();
+            if (error != null) {
+                errors.addLast(error);
+            }
+        }
+
+        private synchronized boolean isFinished() {
+            return state == ImportJobStatus.State.COMPLETED || state == ImportJobStatus.State.FAILED;
+        }
+
+        private synchronized ImportJobStatus status() {
+            long endNanos = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+            double elapsedSeconds = startedNanos == 0 ? 0 : (endNanos - startedNanos) / 1e9;
+            double throughput = elapsedSeconds > 0 ? (succeeded + failed - finishedAtStart) / elapsedSeconds : 0;
+            return new ImportJobStatus(id, fileName, format.getExtension(), state, rowsRead, succeeded, failed,
+                    checkpointedRows, throughput, createdAtMillis, finishedAtMillis, new ArrayList<>(errors));
+        }
+    }
+
+}
@@ -0,0 +1,288 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeQuery;
+import com.example.rqchallenge.model.RosterDelta;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.*;
+
+/**
+ * Immutable column store over a roster snapshot answering range queries on age and salary and a name match. Each
+ * numeric column keeps its rows sorted by value and cut into equal-depth buckets, each bucket with a compressed
+ * bitmap of its rows. A range selects the buckets it fully covers as bitmaps and only resolves the two edge buckets
+ * row by row, by binary search in the sorted values. Predicates are combined with bitmap intersections, and only the
+ * surviving candidates are checked against the name. A roster delta produces a new index that carries the parsed rows
+ * and sorted column order of the unchanged employees over, so only the added and changed employees are parsed and
+ * sorted before being merged in.
+ */
+final class EmployeeQueryIndex {
+
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    static final EmployeeQueryIndex EMPTY = new EmployeeQueryIndex(new Employee[0], new int[0], new int[0], new String[0],
+            RangeColumn.EMPTY, RangeColumn.EMPTY);
+
+    private final Employee[] employees;
+    private final int[] ages;
+    private final int[] salaries;
+    private final String[] foldedNames;
+    private final RangeColumn ageColumn;
+    private final RangeColumn salaryColumn;
+
+    private EmployeeQueryIndex(Employee[] employees, int[] ages, int[] salaries, String[] foldedNames,
+                               RangeColumn ageColumn, RangeColumn salaryColumn) {
+        this.employees = employees;
+        this.ages = ages;
+        this.salaries = salaries;
+        this.foldedNames = foldedNames;
+        this.ageColumn = ageColumn;
+        this.salaryColumn = salaryColumn;
+    }
+
+    static EmployeeQueryIndex build(List<Employee> roster) {
+        return EMPTY.apply(new RosterDelta(roster, Collections.emptyList(), Collections.emptyList()));
+    }
+
+    /**
+     * @param delta The changes since the roster this index was built from
+     * @return A new index over the changed roster
+     */
+    EmployeeQueryIndex apply(RosterDelta delta) {
+        Set<String> replaced = new HashSet<>();
+        delta.getRemoved().forEach(employee -> replaced.add(employee.getId()));
+        delta.getChanged().forEach(employee -> replaced.add(employee.getId()));
+        List<Employee> incoming = new ArrayList<>(delta.getChanged().size() + delta.getAdded().size());
+        incoming.addAll(delta.getChanged());
+        incoming.addAll(delta.getAdded());
+
+        // Carried over rows keep their relative order and are renumbered without the replaced ones
+        int[] rowMap = new int[employees.length];
+        int kept = 0;
+        for (int row = 0; row < employees.length; row++) {
+            rowMap[row] = replaced.contains(employees[row].getId()) ? -1 : kept++;
+        }
+        int size = kept + incoming.size();
+        Employee[] newEmployees = new Employee[size];
+        int[] newAges = new int[size];
+        int[] newSalaries = new int[size];
+        String[] newFoldedNames = new String[size];
+        for (int row = 0; row < employees.length; row++) {
+            if (rowMap[row] >= 0) {
+                newEmployees[rowMap[row]] = employees[row];
+                newAges[rowMap[row]] = ages[row];
+                newSalaries[rowMap[row]] = salaries[row];
+                newFoldedNames[rowMap[row]] = foldedNames[row];
+            }
+        }
+        for (int i = 0; i < incoming.size(); i++) {
+            int row = kept + i;
+            newEmployees[row] = incoming.get(i);
+            newAges[row] = parse(newEmployees[row].getEmployeeAge());
+            newSalaries[row] = parse(newEmployees[row].getEmployeeSalary());
+            String name = newEmployees[row].getEmployeeName();
+            newFoldedNames[row] = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        }
+        return new EmployeeQueryIndex(newEmployees, newAges, newSalaries, newFoldedNames,
+                ageColumn.apply(rowMap, newAges, kept), salaryColumn.apply(rowMap, newSalaries, kept));
+    }
+
+    /**
+     * Runs a query over the snapshot.
+     *
+     * @param query The predicates, sort order and limit
+     * @return At most {@code limit} matching employees in the requested order
+     */
+    List<Employee> query(EmployeeQuery query) {
+        RoaringBitmap candidates = null;
+        if (query.hasAgePredicate()) {
+            candidates = ageColumn.select(query.getMinAge(), query.getMaxAge());
+        }
+        if (query.hasSalaryPredicate() && (candidates == null || !candidates.isEmpty())) {
+            RoaringBitmap bySalary = salaryColumn.select(query.getMinSalary(), query.getMaxSalary());
+            candidates = candidates == null ? bySalary : RoaringBitmap.and(candidates, bySalary);
+        }
+        if (candidates == null) {
+            candidates = RoaringBitmap.bitmapOfRange(0, employees.length);
+        }
+
+        String name = query.getName() == null || query.getName().isEmpty() ? null : query.getName().toLowerCase(Locale.ROOT);
+        Comparator<Integer> better = comparator(query.getSort());
+        int limit = query.getLimit();
+        // Keeps the current top-k with the worst of them on top, so it can be evicted cheaply
+        PriorityQueue<Integer> top = new PriorityQueue<>(Math.min(limit, employees.length) + 1, better.reversed());
+        candidates.forEach((int row) -> {
+            if (name == null || foldedNames[row].contains(name)) {
+                top.offer(row);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        });
+
+        List<Integer> ranked = new ArrayList<>(top);
+        ranked.sort(better);
+        List<Employee> result = new ArrayList<>(ranked.size());
+        for (int row : ranked) {
+            result.add(employees[row]);
+        }
+        return result;
+    }
+
+    int size() {
+        return employees.length;
+    }
+
+    private Comparator<Integer> comparator(EmployeeQuery.Sort sort) {
+        Comparator<Integer> byName = Comparator.comparing(row -> foldedNames[row]);
+        Comparator<Integer> primary;
+        switch (sort) {
+            case SALARY_ASC:
+                primary = Comparator.comparingInt(row -> salaries[row]);
+                break;
+            case SALARY_DESC:
+                primary = Comparator.<Integer>comparingInt(row -> salaries[row]).reversed();
+                break;
+            case AGE_ASC:
+                primary = Comparator.comparingInt(row -> ages[row]);
+                break;
+            case AGE_DESC:
+                primary = Comparator.<Integer>comparingInt(row -> ages[row]).reversed();
+                break;
+            case NAME_DESC:
+                return byName.reversed().thenComparingInt(row -> row);
+            default:
+                return byName.thenComparingInt(row -> row);
+        }
+        return primary.thenComparing(byName).thenComparingInt(row -> row);
+    }
+
+    private static int parse(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return MISSING;
+        }
+    }
+
+    /**
+     * One numeric column: the rows sorted by value and a bitmap per equal-depth bucket of that order. Rows without a
+     * value never match a range.
+     */
+    private static final class RangeColumn {
+
+        private static final int TARGET_BUCKETS = 64;
+        private static final int MIN_BUCKET_SIZE = 1024;
+
+        private final int[] sortedRows;
+        private final int[] sortedValues;
+        private final int bucketSize;
+        private final RoaringBitmap[] buckets;
+
+        static final RangeColumn EMPTY = new RangeColumn(new int[0], new int[0]);
+
+        private RangeColumn(int[] sortedRows, int[] sortedValues) {
+            this.sortedRows = sortedRows;
+            this.sortedValues = sortedValues;
+            int present = sortedRows.length;
+            bucketSize = Math.max(MIN_BUCKET_SIZE, (present + TARGET_BUCKETS - 1) / TARGET_BUCKETS);
+            buckets = new RoaringBitmap[(present + bucketSize - 1) / bucketSize];
+            for (int b = 0; b < buckets.length; b++) {
+                int from = b * bucketSize;
+                int to = Math.min(present, from + bucketSize);
+                RoaringBitmap bucket = new RoaringBitmap();
+                bucket.addN(sortedRows, from, to - from);
+                bucket.runOptimize();
+                buckets[b] = bucket;
+            }
+        }
+
+        /**
+         * Drops the replaced rows, renumbers the others and merges the incoming rows in. Equal values stay ordered by
+         * row, as in a column sorted from scratch.
+         *
+         * @param rowMap      New row of every row of this column, -1 for a replaced row
+         * @param values      The column's values by new row
+         * @param firstNewRow The first incoming row, all rows from there on are new
+         * @return The column over the new rows
+         */
+        RangeColumn apply(int[] rowMap, int[] values, int firstNewRow) {
+            Integer[] order = new Integer[values.length - firstNewRow];
+            int present = 0;
+            for (int row = firstNewRow; row < values.length; row++) {
+                if (values[row] != MISSING) {
+                    order[present++] = row;
+                }
+            }
+            order = Arrays.copyOf(order, present);
+            Arrays.sort(order, Comparator.comparingInt(row -> values[row]));
+
+            int kept = 0;
+            for (int row : sortedRows) {
+                if (rowMap[row] >= 0) {
+                    kept++;
+                }
+            }
+            int[] rows = new int[kept + order.length];
+            int[] merged = new int[rows.length];
+            int oldIndex = 0;
+            int addedIndex = 0;
+            for (int i = 0; i < rows.length; i++) {
+                while (oldIndex < sortedRows.length && rowMap[sortedRows[oldIndex]] < 0) {
+                    oldIndex++;
+                }
+                if (oldIndex < sortedRows.length && (addedIndex == order.length || sortedValues[oldIndex] <= values[order[addedIndex]])) {
+                    rows[i] = rowMap[sortedRows[oldIndex]];
+                    merged[i] = sortedValues[oldIndex];
+                    oldIndex++;
+                } else {
+                    rows[i] = order[addedIndex];
+                    merged[i] = values[order[addedIndex]];
+                    addedIndex++;
+                }
+            }
+            return new RangeColumn(rows, merged);
+        }
+
+        /**
+         * @param min Inclusive lower bound, {@code null} when unbounded
+         * @param max Inclusive upper bound, {@code null} when unbounded
+         * @return The rows with a value in the range
+         */
+        RoaringBitmap select(Integer min, Integer max) {
+            int from = min == null ? 0 : lowerBound(min);
+            int to = max == null ? sortedValues.length : (max == Integer.MAX_VALUE ? sortedValues.length : lowerBound(max + 1));
+            RoaringBitmap result = new RoaringBitmap();
+            if (from >= to) {
+                return result;
+            }
+            int firstFull = (from + bucketSize - 1) / bucketSize;
+            int lastFull = to / bucketSize;
+            if (firstFull >= lastFull) {
+                result.addN(sortedRows, from, to - from);
+                return result;
+            }
+            result.addN(sortedRows, from, firstFull * bucketSize - from);
+            for (int b = firstFull; b < lastFull; b++) {
+                result.or(buckets[b]);
+            }
+            result.addN(sortedRows, lastFull * bucketSize, to - lastFull * bucketSize);
+            return result;
+        }
+
+        private int lowerBound(int key) {
+            int low = 0;
+            int high = sortedValues.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedValues[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+}
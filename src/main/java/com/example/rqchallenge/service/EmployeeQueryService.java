@@ -0,0 +1,52 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.diagnostics.AggregationEvent;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeQuery;
+import com.example.rqchallenge.model.RosterDelta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Answers multi-predicate queries over age, salary and name from a column index with bucket bitmaps, see
+ * {@link EmployeeQueryIndex}. Each query reads the roster through the cache first, which starts the refresh of an
+ * expired roster like any other read does.
+ */
+@Service
+public class EmployeeQueryService implements RosterDeltaListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeQueryService.class);
+
+    private final EmployeeService employeeService;
+    private volatile EmployeeQueryIndex index = EmployeeQueryIndex.EMPTY;
+
+    @Autowired
+    public EmployeeQueryService(EmployeeService employeeService) {
+        this.employeeService = employeeService;
+    }
+
+    @Override
+    public void onRosterDelta(RosterDelta delta, List<Employee> roster) {
+        long start = System.nanoTime();
+        // Deltas arrive serialized under the detector's lock, so each one applies to the index of the previous roster
+        index = index.apply(delta);
+        logger.debug("Merged {} into the query columns in {} us.", delta, (System.nanoTime() - start) / 1000);
+    }
+
+    /**
+     * Finds the employees matching all predicates of the query.
+     *
+     * @param query Age and salary ranges, name fragment, sort order and limit
+     * @return At most {@code limit} employees in the requested order
+     */
+    public List<Employee> query(EmployeeQuery query) {
+        employeeService.getAllCachedEmployees();
+        EmployeeQueryIndex current = index;
+        return AggregationEvent.record("query", current.size(), () -> current.query(query));
+    }
+
+}
@@ -1,64 +1,222 @@
 package com.example.rqchallenge.service;
 
+import com.example.rqchallenge.cache.EmployeeCaches;
 import com.example.rqchallenge.controller.EmployeeExtController;
+import com.example.rqchallenge.diagnostics.AggregationEvent;
+import com.example.rqchallenge.diagnostics.CacheLoadEvent;
 import com.example.rqchallenge.model.Employee;
 import com.example.rqchallenge.model.EmployeeResponse;
+import com.example.rqchallenge.model.RosterSnapshot;
+import com.example.rqchallenge.upstream.UpstreamPriority;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class EmployeeService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmployeeService.class);
-    private static final String CACHE_KEY_ALL_EMPLOYEES = "allEmployees";
     private final EmployeeExtController employeeExtController;
     private final CacheManager cacheManager;
+    private final SharedRosterCache sharedRosterCache;
+    private final RosterSnapshotStore rosterSnapshotStore;
+    private final FederatedRosterAggregates federatedRosterAggregates;
+    private final Executor rosterRefreshExecutor;
+    private final long refreshRetryMs;
+    private final LongSupplier clock;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile long refreshRetryAfterMillis;
 
     @Autowired
-    public EmployeeService(EmployeeExtController employeeExtController, CacheManager cacheManager) {
+    public EmployeeService(EmployeeExtController employeeExtController, CacheManager cacheManager, SharedRosterCache sharedRosterCache,
+                           RosterSnapshotStore rosterSnapshotStore, FederatedRosterAggregates federatedRosterAggregates,
+                           @Qualifier("rosterRefreshExecutor") Executor rosterRefreshExecutor,
+                           @Value("${employee.cache.roster.refresh-retry-ms:5000}") long refreshRetryMs) {
+        this(employeeExtController, cacheManager, sharedRosterCache, rosterSnapshotStore, federatedRosterAggregates,
+                rosterRefreshExecutor, refreshRetryMs, System::currentTimeMillis);
+    }
+
+    EmployeeService(EmployeeExtController employeeExtController, CacheManager cacheManager, SharedRosterCache sharedRosterCache,
+                    RosterSnapshotStore rosterSnapshotStore, FederatedRosterAggregates federatedRosterAggregates,
+                    Executor rosterRefreshExecutor, long refreshRetryMs, LongSupplier clock) {
         this.employeeExtController = employeeExtController;
         this.cacheManager = cacheManager;
+        this.sharedRosterCache = sharedRosterCache;
+        this.rosterSnapshotStore = rosterSnapshotStore;
+        this.federatedRosterAggregates = federatedRosterAggregates;
+        this.rosterRefreshExecutor = rosterRefreshExecutor;
+        this.refreshRetryMs = refreshRetryMs;
+        this.clock = clock;
+    }
+
+    private <T> Optional<T> getFromCache(String cacheName, Object key, Class<T> type) {
+        return Optional.ofNullable(cacheManager.getCache(cacheName)).map(cache -> cache.get(key, type));
     }
 
-    private <T> Optional<T> getFromCache(String key, Class<T> type) {
-        return Optional.ofNullable(cacheManager.getCache("employeeCache")).map(cache -> cache.get(key, type));
+    @SuppressWarnings("unchecked")
+    private Optional<List<Employee>> getCachedRoster() {
+        return getFromCache(EmployeeCaches.ROSTER, EmployeeCaches.ROSTER_KEY, List.class).map(roster -> (List<Employee>) roster);
     }
 
     /**
-     * Retrieves all employees from the cache, or fetches them from the API if the cache is empty.
+     * Retrieves all employees from the local cache, then from the shared cache, or fetches them from the API if both
+     * are empty. Once the cached roster expired, the current snapshot keeps being served while a background refresh,
+     * which yields to client calls in the upstream scheduler, replaces it. After a failed refresh the next one waits for
+     * {@code employee.cache.roster.refresh-retry-ms}.
      *
      * @return List of all employees, either from the cache or API
      */
     public List<Employee> getAllCachedEmployees() {
-        return getFromCache(CACHE_KEY_ALL_EMPLOYEES, List.class)
-                .orElseGet(() -> {
-                    EmployeeResponse response = employeeExtController.getAllEmployeesFromApi();
-                    return response.getData().isEmpty() ? Collections.emptyList() : response.getData();
-                });
+        Optional<List<Employee>> cached = getCachedRoster();
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        RosterSnapshot current = rosterSnapshotStore.current();
+        if (current.getVersion() > 0) {
+            refreshInBackground();
+            return current.getEmployees();
+        }
+        return loadRoster(UpstreamPriority.INTERACTIVE);
+    }
+
+    private List<Employee> loadRoster(UpstreamPriority priority) {
+        return CacheLoadEvent.record(EmployeeCaches.ROSTER, "load", () -> sharedRosterCache.getOrLoad(() -> {
+            EmployeeResponse response = employeeExtController.getAllEmployeesFromApi(priority);
+            return response.getData().isEmpty() ? Collections.emptyList() : response.getData();
+        }));
+    }
+
+    private void refreshInBackground() {
+        if (clock.getAsLong() < refreshRetryAfterMillis || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rosterRefreshExecutor.execute(() -> {
+                try {
+                    // A failed load answers an empty roster, which is not cached
+                    if (loadRoster(UpstreamPriority.BACKGROUND).isEmpty()) {
+                        refreshFailed("no employees loaded");
+                    } else {
+                        refreshRetryAfterMillis = 0;
+                    }
+                } catch (RuntimeException e) {
+                    refreshFailed(e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+        }
+    }
+
+    private void refreshFailed(String reason) {
+        // Without a pause every request served from the stale snapshot would start another refresh
+        refreshRetryAfterMillis = clock.getAsLong() + refreshRetryMs;
+        logger.warn("Background roster refresh failed, retrying in {} ms: {}", refreshRetryMs, reason);
+    }
+
+    /**
+     * Returns the immutable roster snapshot a request should be answered from.
+     *
+     * @param pinnedVersion Version the client pinned with {@code X-Roster-Version}, {@code null} for the latest roster
+     * @return The snapshot, empty when the pinned version is no longer retained
+     */
+    public Optional<RosterSnapshot> getRosterSnapshot(Long pinnedVersion) {
+        if (pinnedVersion != null) {
+            return rosterSnapshotStore.get(pinnedVersion);
+        }
+        // Loads the roster, or refreshes it once the cache entry expired, which publishes a new snapshot on change
+        List<Employee> roster = getAllCachedEmployees();
+        RosterSnapshot current = rosterSnapshotStore.current();
+        if (roster.isEmpty()) {
+            // The load failed, answer as if there were no employees rather than from an older snapshot
+            return Optional.of(current.getEmployees().isEmpty() ? current : RosterSnapshot.EMPTY);
+        }
+        return Optional.of(current.getVersion() > 0 ? current
+                : new RosterSnapshot(0, Collections.unmodifiableList(roster), System.currentTimeMillis()));
+    }
+
+    /**
+     * Looks an employee up in the locally cached roster, then among the employees fetched by ID, without going to the
+     * external API.
+     *
+     * @param id The ID of the employee
+     * @return The cached employee, empty when neither cache contains the ID
+     */
+    public Optional<Employee> findCachedEmployee(String id) {
+        Optional<Employee> fromRoster = getCachedRoster()
+                .flatMap(roster -> roster.stream()
+                        .filter(employee -> id.equals(employee.getId()))
+                        .findFirst());
+        return fromRoster.isPresent() ? fromRoster : getFromCache(EmployeeCaches.BY_ID, id, Employee.class);
+    }
+
+    /**
+     * @param id The ID of the employee
+     * @return True when the external API recently answered 404 for this ID
+     */
+    public boolean isKnownMissing(String id) {
+        return getFromCache(EmployeeCaches.NEGATIVE, id, Boolean.class).isPresent();
+    }
+
+    /**
+     * Filters a roster snapshot by name, case-insensitive. Results are cached under the snapshot version and the
+     * case-folded search string, as the positions of the matches in the snapshot. A refresh or write publishes a new
+     * version, so results of replaced versions are never read for the current roster and age out of the cache.
+     *
+     * @param searchString The string to filter employees by
+     * @param snapshot     The snapshot to search within
+     * @return List of filtered employees, in roster order
+     */
+    public List<Employee> getFilteredEmployees(String searchString, RosterSnapshot snapshot) {
+        List<Employee> roster = snapshot.getEmployees();
+        // Version 0 is a roster that was loaded without publishing a snapshot, its content is not tied to the version
+        Optional<Cache> searchCache = snapshot.getVersion() > 0
+                ? Optional.ofNullable(cacheManager.getCache(EmployeeCaches.SEARCH)) : Optional.empty();
+        String foldedSearchString = fold(searchString);
+        String key = snapshot.getVersion() + ":" + foldedSearchString;
+        Optional<int[]> cached = searchCache.map(cache -> cache.get(key, int[].class));
+        if (cached.isPresent()) {
+            return new MatchList(roster, cached.get());
+        }
+        int[] positions = matchingPositions(foldedSearchString, roster);
+        searchCache.ifPresent(cache -> cache.put(key, positions));
+        return new MatchList(roster, positions);
     }
 
     /**
-     * Filters employees based on a given search string. The search is case-insensitive.
+     * Filters employees based on a given search string. The search is case-insensitive and not cached.
      *
      * @param searchString The string to filter employees by
      * @param allEmployees The list of all employees to search within
      * @return List of filtered employees
      */
     public List<Employee> getFilteredEmployees(String searchString, List<Employee> allEmployees) {
-        String lowerCaseSearchString = searchString.toLowerCase();
-        List<Employee> filteredEmployees = allEmployees.stream()
-                .filter(employee -> employee.getEmployeeName().toLowerCase().contains(lowerCaseSearchString))
-                .collect(Collectors.toList());
-        return filteredEmployees;
+        return new MatchList(allEmployees, matchingPositions(fold(searchString), allEmployees));
+    }
+
+    private static int[] matchingPositions(String foldedSearchString, List<Employee> roster) {
+        return AggregationEvent.record("search", roster.size(), () -> IntStream.range(0, roster.size())
+                .filter(i -> fold(roster.get(i).getEmployeeName()).contains(foldedSearchString))
+                .toArray());
+    }
+
+    private static String fold(String value) {
+        return value.toLowerCase(Locale.ROOT);
     }
 
     /**
@@ -68,16 +226,31 @@ public class EmployeeService {
      * @return EmployeeResponse containing the names of the top ten highest earners
      */
     public List<String> getTopTenNames(List<Employee> allEmployees) {
+        Optional<FederatedRosterAggregates.Partials> partials = federatedRosterAggregates.forRoster(allEmployees)
+                .filter(FederatedRosterAggregates.Partials::isUsable);
+        if (partials.isPresent()) {
+            return AggregationEvent.record("topTenNames", partials.get().getPartialRows(), () -> partials.get().topNames(10));
+        }
 
-        List<String> topTenNames = allEmployees.stream()
-                .sorted(Comparator.comparingInt(employee -> -Integer.parseInt(employee.getEmployeeSalary())))
-                .limit(10)
+        List<String> topTenNames = AggregationEvent.record("topTenNames", allEmployees.size(), () -> getTopEarners(allEmployees, 10).stream()
                 .map(Employee::getEmployeeName)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
 
         return topTenNames;
     }
 
+    /**
+     * @param allEmployees The list of employees to rank
+     * @param limit        The maximum number of employees returned
+     * @return The highest earning employees, highest salary first
+     */
+    public List<Employee> getTopEarners(List<Employee> allEmployees, int limit) {
+        return allEmployees.stream()
+                .sorted(Comparator.comparingInt(employee -> -Integer.parseInt(employee.getEmployeeSalary())))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Determines the highest salary among all employees.
      *
@@ -85,10 +258,39 @@ public class EmployeeService {
      * @return Optional containing the highest salary found
      */
     public Optional<Integer> filterHighestSalary(List<Employee> allEmployees) {
-        Optional<Integer> highestSalary = allEmployees.stream()
+        Optional<FederatedRosterAggregates.Partials> partials = federatedRosterAggregates.forRoster(allEmployees)
+                .filter(FederatedRosterAggregates.Partials::isUsable);
+        if (partials.isPresent()) {
+            return AggregationEvent.record("highestSalary", partials.get().getPartialRows(), () -> partials.get().highestSalary());
+        }
+        Optional<Integer> highestSalary = AggregationEvent.record("highestSalary", allEmployees.size(), () -> allEmployees.stream()
                 .map(employee -> Integer.parseInt(employee.getEmployeeSalary()))
-                .max(Integer::compare);
+                .max(Integer::compare));
         return highestSalary;
     }
 
+    /**
+     * Read-only view of the employees at the given positions of a roster, so a search result shares the roster's
+     * employees instead of copying them.
+     */
+    private static final class MatchList extends AbstractList<Employee> implements RandomAccess {
+        private final List<Employee> roster;
+        private final int[] positions;
+
+        private MatchList(List<Employee> roster, int[] positions) {
+            this.roster = roster;
+            this.positions = positions;
+        }
+
+        @Override
+        public Employee get(int index) {
+            return roster.get(positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
+
 }
@@ -0,0 +1,257 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeSuggestion;
+import com.example.rqchallenge.model.RosterDelta;
+
+import java.util.*;
+
+/**
+ * Immutable prefix index over the case-folded name tokens of a roster snapshot. The tokens are stored sorted in a flat
+ * array, which is a trie laid out in key order: all tokens sharing a prefix form one contiguous range found with two
+ * binary searches. Only ids, names and salaries are kept, in parallel primitive-friendly arrays. For each ranking a
+ * segment tree over the token array holds the best token of every node, so the best {@code k} employees of a prefix
+ * range are extracted in {@code O(k log n)} without visiting the rest of the range. A roster delta produces a new index
+ * that carries the rows and sorted tokens of the unchanged employees over, so only the added and changed employees are
+ * tokenized and sorted.
+ */
+final class EmployeeSuggestIndex {
+
+    static final EmployeeSuggestIndex EMPTY = new EmployeeSuggestIndex(new String[0], new int[0], new String[0], new String[0], new int[0]);
+
+    private final String[] tokens;
+    private final int[] owners;
+    private final String[] ids;
+    private final String[] names;
+    private final int[] salaries;
+    private final BestTokenTree bySalary;
+    private final BestTokenTree byName;
+
+    private EmployeeSuggestIndex(String[] tokens, int[] owners, String[] ids, String[] names, int[] salaries) {
+        this.tokens = tokens;
+        this.owners = owners;
+        this.ids = ids;
+        this.names = names;
+        this.salaries = salaries;
+        this.bySalary = new BestTokenTree(Comparator.<Integer>comparingInt(owner -> salaries[owner]).reversed()
+                .thenComparing(owner -> names[owner]));
+        this.byName = new BestTokenTree(Comparator.<Integer, String>comparing(owner -> names[owner])
+                .thenComparing(owner -> ids[owner], Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    static EmployeeSuggestIndex build(List<Employee> roster) {
+        return EMPTY.apply(new RosterDelta(roster, Collections.emptyList(), Collections.emptyList()));
+    }
+
+    /**
+     * @param delta The changes since the roster this index was built from
+     * @return A new index over the changed roster
+     */
+    EmployeeSuggestIndex apply(RosterDelta delta) {
+        Set<String> replaced = new HashSet<>();
+        delta.getRemoved().forEach(employee -> replaced.add(employee.getId()));
+        delta.getChanged().forEach(employee -> replaced.add(employee.getId()));
+        List<Employee> incoming = new ArrayList<>(delta.getChanged().size() + delta.getAdded().size());
+        incoming.addAll(delta.getChanged());
+        incoming.addAll(delta.getAdded());
+
+        // Carried over rows keep their relative order and are renumbered without the replaced ones
+        int[] rowMap = new int[ids.length];
+        int kept = 0;
+        for (int row = 0; row < ids.length; row++) {
+            rowMap[row] = replaced.contains(ids[row]) ? -1 : kept++;
+        }
+        int size = kept + incoming.size();
+        String[] newIds = new String[size];
+        String[] newNames = new String[size];
+        int[] newSalaries = new int[size];
+        for (int row = 0; row < ids.length; row++) {
+            if (rowMap[row] >= 0) {
+                newIds[rowMap[row]] = ids[row];
+                newNames[rowMap[row]] = names[row];
+                newSalaries[rowMap[row]] = salaries[row];
+            }
+        }
+
+        List<String> tokenList = new ArrayList<>(incoming.size() * 2);
+        List<Integer> ownerList = new ArrayList<>(incoming.size() * 2);
+        for (int i = 0; i < incoming.size(); i++) {
+            Employee employee = incoming.get(i);
+            int row = kept + i;
+            newIds[row] = employee.getId();
+            newNames[row] = employee.getEmployeeName() == null ? "" : employee.getEmployeeName();
+            newSalaries[row] = parseSalary(employee.getEmployeeSalary());
+            for (String token : newNames[row].toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!token.isEmpty()) {
+                    tokenList.add(token);
+                    ownerList.add(row);
+                }
+            }
+        }
+        Integer[] order = new Integer[tokenList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(tokenList::get));
+
+        // Merges the still sorted carried over tokens with the sorted tokens of the incoming rows
+        int keptTokens = 0;
+        for (int owner : owners) {
+            if (rowMap[owner] >= 0) {
+                keptTokens++;
+            }
+        }
+        String[] newTokens = new String[keptTokens + order.length];
+        int[] newOwners = new int[newTokens.length];
+        int oldIndex = 0;
+        int addedIndex = 0;
+        for (int i = 0; i < newTokens.length; i++) {
+            while (oldIndex < tokens.length && rowMap[owners[oldIndex]] < 0) {
+                oldIndex++;
+            }
+            boolean takeOld = oldIndex < tokens.length && (addedIndex == order.length
+                    || tokens[oldIndex].compareTo(tokenList.get(order[addedIndex])) <= 0);
+            if (takeOld) {
+                newTokens[i] = tokens[oldIndex];
+                newOwners[i] = rowMap[owners[oldIndex]];
+                oldIndex++;
+            } else {
+                newTokens[i] = tokenList.get(order[addedIndex]);
+                newOwners[i] = ownerList.get(order[addedIndex]);
+                addedIndex++;
+            }
+        }
+        return new EmployeeSuggestIndex(newTokens, newOwners, newIds, newNames, newSalaries);
+    }
+
+    /**
+     * Finds the best employees having a name token that starts with the prefix.
+     *
+     * @param prefix   The prefix, matched case-insensitively
+     * @param limit    Maximum number of suggestions
+     * @param bySalary Rank by descending salary when true, by name otherwise
+     * @return At most {@code limit} suggestions, best first
+     */
+    List<EmployeeSuggestion> suggest(String prefix, int limit, boolean bySalary) {
+        String folded = prefix.toLowerCase(Locale.ROOT);
+        int from = lowerBound(folded);
+        int to = prefixEnd(folded, from);
+        List<EmployeeSuggestion> suggestions = new ArrayList<>(Math.min(limit, to - from));
+        if (from >= to) {
+            return suggestions;
+        }
+        BestTokenTree tree = bySalary ? this.bySalary : byName;
+        // Token ranges ordered by their best token. Taking the best range and splitting it around that token yields the
+        // tokens of the prefix range best first, so extraction stops after the first limit distinct owners.
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> tree.compare(a[2], b[2]));
+        ranges.add(new int[]{from, to, tree.best(from, to)});
+        Set<Integer> seen = new HashSet<>();
+        while (!ranges.isEmpty() && suggestions.size() < limit) {
+            int[] range = ranges.poll();
+            int position = range[2];
+            int owner = owners[position];
+            if (seen.add(owner)) {
+                suggestions.add(new EmployeeSuggestion(ids[owner], names[owner]));
+            }
+            if (range[0] < position) {
+                ranges.add(new int[]{range[0], position, tree.best(range[0], position)});
+            }
+            if (position + 1 < range[1]) {
+                ranges.add(new int[]{position + 1, range[1], tree.best(position + 1, range[1])});
+            }
+        }
+        return suggestions;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int prefixEnd(String prefix, int from) {
+        int low = from;
+        int high = tokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int parseSalary(String salary) {
+        try {
+            return Integer.parseInt(salary);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Iterative segment tree over the token positions, each node holding the position of its best token. Tokens of
+     * equally ranked owners are ordered by position, so the order is total.
+     */
+    private final class BestTokenTree {
+
+        private final Comparator<Integer> better;
+        private final int[] tree;
+
+        private BestTokenTree(Comparator<Integer> betterOwner) {
+            this.better = betterOwner;
+            int n = tokens.length;
+            tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int node = n - 1; node > 0; node--) {
+                tree[node] = min(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        int compare(int position, int other) {
+            int result = better.compare(owners[position], owners[other]);
+            return result != 0 ? result : Integer.compare(position, other);
+        }
+
+        /**
+         * @return The position of the best token in {@code [from, to)}, which must not be empty
+         */
+        int best(int from, int to) {
+            int n = tokens.length;
+            int result = -1;
+            for (int low = from + n, high = to + n; low < high; low >>= 1, high >>= 1) {
+                if ((low & 1) == 1) {
+                    result = min(result, tree[low++]);
+                }
+                if ((high & 1) == 1) {
+                    result = min(result, tree[--high]);
+                }
+            }
+            return result;
+        }
+
+        private int min(int position, int other) {
+            if (position < 0) {
+                return other;
+            }
+            return compare(position, other) <= 0 ? position : other;
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeSuggestion;
+import com.example.rqchallenge.model.RosterDelta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Answers autocomplete requests from a prefix index over the name tokens. The index follows the roster through its
+ * deltas, and every request first goes through the roster cache, so an expired roster is refreshed for suggestions
+ * just as for the list endpoint.
+ */
+@Service
+public class EmployeeSuggestService implements RosterDeltaListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeSuggestService.class);
+
+    private final EmployeeService employeeService;
+    private volatile EmployeeSuggestIndex index = EmployeeSuggestIndex.EMPTY;
+
+    @Autowired
+    public EmployeeSuggestService(EmployeeService employeeService) {
+        this.employeeService = employeeService;
+    }
+
+    @Override
+    public void onRosterDelta(RosterDelta delta, List<Employee> roster) {
+        long start = System.nanoTime();
+        index = index.apply(delta);
+        logger.debug("Updated suggestion index to {} employees in {} us.", roster.size(), (System.nanoTime() - start) / 1000);
+    }
+
+    /**
+     * Suggests employees whose name has a word starting with the prefix.
+     *
+     * @param prefix   The prefix typed so far, matched case-insensitively, at least the minimum prefix length
+     * @param limit    Maximum number of suggestions
+     * @param bySalary Rank by descending salary when true, by name otherwise
+     * @return Suggestions with only id and name, best first
+     */
+    public List<EmployeeSuggestion> suggest(String prefix, int limit, boolean bySalary) {
+        // A first or expired load publishes its delta to this listener before it returns
+        employeeService.getAllCachedEmployees();
+        return index.suggest(prefix, limit, bySalary);
+    }
+
+}
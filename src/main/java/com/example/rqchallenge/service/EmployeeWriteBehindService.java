@@ -0,0 +1,642 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.controller.EmployeeExtController;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeOperation;
+import com.example.rqchallenge.model.EmployeeResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind queue for employee creates. An accepted create is appended to a journal file and forced to disk before
+ * the client gets its operation id. A single worker then sends the queued creates to the external API in batches of
+ * up to {@code batchSize}, paced to the configured rate, and appends the outcomes of a batch to the journal with one
+ * force. Creates that fail for a transient reason go back to the head of the queue and are retried with exponential
+ * backoff, up to {@code maxAttempts}; a rejected input fails right away.
+ * <p>
+ * On startup the journal is replayed, operations without an outcome are queued again in submission order, and the
+ * journal is rewritten with only those and the latest {@code retainedOperations} outcomes. A create that reached the
+ * external API just before a crash, but whose outcome was not journaled yet, is sent again, so delivery is
+ * at-least-once. Outcomes that could not be journaled stay reported as pending and are appended again with the next
+ * batch.
+ * <p>
+ * The journal directory is locked while the service runs, so two instances on one host cannot share a journal. When
+ * write-behind is disabled, no journal is opened and no worker runs.
+ */
+@Service
+public class EmployeeWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeWriteBehindService.class);
+    private static final String JOURNAL_FILE = "operations.journal";
+    private static final String LOCK_FILE = "operations.lock";
+    private static final String SUBMITTED = "submitted";
+    private static final String COMPLETED = "completed";
+    private static final long MAX_BACKOFF_MS = 60000;
+    private static final TypeReference<Map<String, Object>> INPUT_TYPE = new TypeReference<>() {};
+
+    private final EmployeeExtController employeeExtController;
+    private final RosterChangeBroadcaster rosterChangeBroadcaster;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final Path journalPath;
+    private final int batchSize;
+    private final double createsPerSecond;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final int maxPending;
+    private final int retainedOperations;
+    private final long compactThresholdBytes;
+    private final Counter succeededCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private final BlockingDeque<Operation> pending = new LinkedBlockingDeque<>();
+    // Completed operation ids, oldest first. Only touched during recovery and by the worker
+    private final Deque<String> completedOrder = new ArrayDeque<>();
+    // Completed operations whose outcome could not be journaled yet. Only touched by the worker
+    private final List<Operation> unjournaled = new ArrayList<>();
+    // Lock order is syncLock before journalLock
+    private final Object syncLock = new Object();
+    private final Object journalLock = new Object();
+    private FileChannel journal;
+    private FileChannel lockChannel;
+    private long syncedPosition;
+    // Set after a failed append, so the next one starts on a new line instead of continuing a torn record
+    private boolean appendFailed;
+    private long nextSlotNanos;
+    private Thread worker;
+
+    @Autowired
+    public EmployeeWriteBehindService(EmployeeExtController employeeExtController, RosterChangeBroadcaster rosterChangeBroadcaster,
+                                      ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                      @Value("${employee.write-behind.enabled:false}") boolean enabled,
+                                      @Value("${employee.write-behind.dir:${java.io.tmpdir}/rqchallenge-write-behind-${server.port:8080}}") String directory,
+                                      @Value("${employee.write-behind.batch-size:20}") int batchSize,
+                                      @Value("${employee.write-behind.rate:5}") double createsPerSecond,
+                                      @Value("${employee.write-behind.max-attempts:5}") int maxAttempts,
+                                      @Value("${employee.write-behind.retry-backoff-ms:1000}") long retryBackoffMs,
+                                      @Value("${employee.write-behind.max-pending:10000}") int maxPending,
+                                      @Value("${employee.write-behind.retained-operations:10000}") int retainedOperations,
+                                      @Value("${employee.write-behind.compact-threshold-bytes:67108864}") long compactThresholdBytes) throws IOException {
+        this.employeeExtController = employeeExtController;
+        this.rosterChangeBroadcaster = rosterChangeBroadcaster;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.journalPath = this.directory.resolve(JOURNAL_FILE);
+        this.batchSize = batchSize;
+        this.createsPerSecond = createsPerSecond;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxPending = maxPending;
+        this.retainedOperations = retainedOperations;
+        this.compactThresholdBytes = compactThresholdBytes;
+        this.succeededCounter = meterRegistry.counter("employee.write-behind.operations", "outcome", "succeeded");
+        this.failedCounter = meterRegistry.counter("employee.write-behind.operations", "outcome", "failed");
+        this.retriedCounter = meterRegistry.counter("employee.write-behind.operations", "outcome", "retried");
+        Gauge.builder("employee.write-behind.pending", pending, Collection::size).register(meterRegistry);
+        if (enabled) {
+            Files.createDirectories(this.directory);
+            lockDirectory();
+            try {
+                recover();
+            } catch (IOException | RuntimeException e) {
+                lockChannel.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return True when creates are accepted into the queue instead of being sent to the external API right away
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Journals a create and queues it for the worker.
+     *
+     * @param employeeInput The create request
+     * @return The pending operation
+     * @throws RejectedExecutionException when {@code maxPending} creates are already queued
+     * @throws IOException                when the create could not be journaled, it is not queued then
+     * @throws IllegalStateException      when write-behind is disabled
+     */
+    public EmployeeOperation submit(Map<String, Object> employeeInput) throws IOException {
+        if (!enabled) {
+            throw new IllegalStateException("Write-behind creates are disabled");
+        }
+        if (pending.size() >= maxPending) {
+            throw new RejectedExecutionException("Write-behind queue already holds " + maxPending + " creates");
+        }
+        Operation operation = new Operation(UUID.randomUUID().toString(), sequence.incrementAndGet(),
+                new LinkedHashMap<>(employeeInput), System.currentTimeMillis());
+        long end;
+        synchronized (journalLock) {
+            end = append(Collections.singletonList(submittedRecord(operation)));
+            // Registered under the journal lock, so a compaction running next keeps the operation
+            operations.put(operation.id, operation);
+        }
+        try {
+            sync(end);
+        } catch (IOException e) {
+            operations.remove(operation.id);
+            throw e;
+        }
+        pending.offerLast(operation);
+        return operation.status();
+    }
+
+    public Optional<EmployeeOperation> getOperation(String operationId) {
+        return Optional.ofNullable(operations.get(operationId)).map(Operation::status);
+    }
+
+    /**
+     * Starts the worker once the application is ready. Creates journaled by a previous run are sent first.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || worker != null) {
+            return;
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Resuming {} journaled employee creates.", pending.size());
+        }
+        worker = new Thread(this::run, "employee-write-behind");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void lockDirectory() throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IllegalStateException("The write-behind directory " + directory
+                    + " is used by another instance, give each instance its own employee.write-behind.dir");
+        }
+        lockChannel = channel;
+    }
+
+    private void recover() throws IOException {
+        if (Files.exists(journalPath)) {
+            Map<String, Operation> replayed = new LinkedHashMap<>();
+            try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                String line;
+                for (long number = 1; (line = reader.readLine()) != null; number++) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        replay(objectMapper.readTree(line), replayed);
+                    } catch (IOException | RuntimeException e) {
+                        // A torn last line after a crash, its operation was never acknowledged
+                        logger.warn("Skipping unreadable line {} of the write-behind journal: {}", number, e.getMessage());
+                    }
+                }
+            }
+            replayed.values().stream()
+                    .filter(Operation::isCompleted)
+                    .sorted(Comparator.comparingLong(Operation::completedAtMillis))
+                    .forEach(operation -> completedOrder.addLast(operation.id));
+            operations.putAll(replayed);
+            retainLatestCompleted();
+            replayed.values().stream()
+                    .filter(operation -> !operation.isCompleted())
+                    .forEach(pending::offerLast);
+        }
+        compact();
+    }
+
+    private void replay(JsonNode record, Map<String, Operation> replayed) {
+        String id = record.get("id").asText();
+        long submittedAtMillis = record.get("submittedAtMillis").asLong();
+        if (SUBMITTED.equals(record.get("type").asText())) {
+            replayed.putIfAbsent(id, new Operation(id, sequence.incrementAndGet(),
+                    objectMapper.convertValue(record.get("input"), INPUT_TYPE), submittedAtMillis));
+        } else if (COMPLETED.equals(record.get("type").asText())) {
+            Operation operation = replayed.computeIfAbsent(id,
+                    key -> new Operation(key, sequence.incrementAndGet(), null, submittedAtMillis));
+            JsonNode employee = record.get("employee");
+            JsonNode error = record.get("error");
+            operation.complete(EmployeeOperation.State.valueOf(record.get("state").asText()),
+                    employee == null || employee.isNull() ? null : objectMapper.convertValue(employee, Employee.class),
+                    error == null || error.isNull() ? null : error.asText(),
+                    record.get("completedAtMillis").asLong());
+            operation.journaled();
+        }
+    }
+
+    private void run() {
+        long intervalNanos = createsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / createsPerSecond) : 0;
+        nextSlotNanos = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                runBatch(intervalNanos);
+            } catch (InterruptedException e) {
+                // Shutting down, unsent creates stay in the journal and are sent after the next start
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.error("Write-behind batch failed, its unsent creates are queued again", e);
+                try {
+                    Thread.sleep(retryBackoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void runBatch(long intervalNanos) throws InterruptedException {
+        // Outcomes waiting to be journaled are retried even when no new create arrives
+        Operation first = unjournaled.isEmpty() ? pending.takeFirst() : pending.pollFirst(retryBackoffMs, TimeUnit.MILLISECONDS);
+        List<Operation> batch = new ArrayList<>(batchSize);
+        if (first != null) {
+            batch.add(first);
+            pending.drainTo(batch, batchSize - 1);
+        }
+
+        List<Operation> completed = new ArrayList<>(batch.size());
+        List<Operation> retries = new ArrayList<>();
+        int sent = 0;
+        try {
+            for (; sent < batch.size() && retries.isEmpty(); sent++) {
+                if (intervalNanos > 0) {
+                    long waitNanos = nextSlotNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    }
+                    nextSlotNanos = Math.max(nextSlotNanos, System.nanoTime()) + intervalNanos;
+                }
+                Operation operation = batch.get(sent);
+                boolean done;
+                try {
+                    done = send(operation);
+                } catch (RuntimeException e) {
+                    logger.error("Error while processing the employee create {}", operation.id, e);
+                    done = operation.attempts() >= maxAttempts;
+                    if (done) {
+                        operation.complete(EmployeeOperation.State.FAILED, null, String.valueOf(e.getMessage()), System.currentTimeMillis());
+                        failedCounter.increment();
+                    } else {
+                        operation.attemptFailed(String.valueOf(e.getMessage()));
+                        retriedCounter.increment();
+                    }
+                }
+                (done ? completed : retries).add(operation);
+            }
+        } finally {
+            // Keep the submission order, the rest of the batch waits behind the first retry
+            retries.addAll(batch.subList(sent, batch.size()));
+            journalOutcomes(completed);
+            for (int i = retries.size() - 1; i >= 0; i--) {
+                pending.offerFirst(retries.get(i));
+            }
+        }
+        if (!retries.isEmpty()) {
+            Thread.sleep(Math.min(MAX_BACKOFF_MS, retryBackoffMs << Math.min(30, Math.max(0, retries.get(0).attempts() - 1))));
+        } else if (pending.isEmpty() && unjournaled.isEmpty()) {
+            try {
+                if (journalSize() > compactThresholdBytes) {
+                    compact();
+                }
+            } catch (IOException e) {
+                logger.warn("Could not compact the write-behind journal, retrying after the next batch", e);
+            }
+        }
+    }
+
+    /**
+     * @return True when the operation has its final outcome, false when it should be retried
+     */
+    private boolean send(Operation operation) {
+        int attempt = operation.attemptStarted();
+        EmployeeResponse response;
+        try {
+            response = employeeExtController.createEmployee(operation.input);
+        } catch (Exception e) {
+            logger.error("Error while sending the employee create {}", operation.id, e);
+            response = new EmployeeResponse(Integer.toString(HttpStatus.INTERNAL_SERVER_ERROR.value()), Collections.emptyList(),
+                    String.valueOf(e.getMessage()));
+        }
+        if (Integer.toString(HttpStatus.CREATED.value()).equals(response.getStatus())
+                && response.getData() != null && !response.getData().isEmpty()) {
+            Employee created = response.getData().get(0);
+            try {
+                rosterChangeBroadcaster.employeeCreated(created);
+            } catch (RuntimeException e) {
+                // The employee exists upstream, the next roster refresh picks it up
+                logger.warn("Could not apply the created employee {} to the cached roster", created.getId(), e);
+            }
+            operation.complete(EmployeeOperation.State.SUCCEEDED, created, null, System.currentTimeMillis());
+            succeededCounter.increment();
+            return true;
+        }
+        String status = String.valueOf(response.getStatus());
+        String error = status + " " + response.getMessage();
+        boolean rejected = status.startsWith("4") && !Integer.toString(HttpStatus.TOO_MANY_REQUESTS.value()).equals(status);
+        if (rejected || attempt >= maxAttempts) {
+            logger.warn("Employee create {} failed after {} attempts: {}", operation.id, attempt, error);
+            operation.complete(EmployeeOperation.State.FAILED, null, error, System.currentTimeMillis());
+            failedCounter.increment();
+            return true;
+        }
+        operation.attemptFailed(error);
+        retriedCounter.increment();
+        return false;
+    }
+
+    /**
+     * Journals the given outcomes and any left over from a failed attempt. Outcomes are reported only once their
+     * record is forced to disk; on failure they stay pending and the next batch appends them again.
+     */
+    private void journalOutcomes(List<Operation> completed) {
+        unjournaled.addAll(completed);
+        if (unjournaled.isEmpty()) {
+            return;
+        }
+        try {
+            long end;
+            synchronized (journalLock) {
+                end = append(unjournaled.stream().map(this::completedRecord).collect(Collectors.toList()));
+            }
+            sync(end);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not journal the outcome of {} employee creates, retrying with the next batch", unjournaled.size(), e);
+            return;
+        }
+        unjournaled.forEach(Operation::journaled);
+        unjournaled.forEach(operation -> completedOrder.addLast(operation.id));
+        unjournaled.clear();
+        retainLatestCompleted();
+    }
+
+    private void retainLatestCompleted() {
+        while (completedOrder.size() > retainedOperations) {
+            operations.remove(completedOrder.removeFirst());
+        }
+    }
+
+    /**
+     * Appends records to the journal, the caller holds the journal lock.
+     *
+     * @return The journal position after the records, to be passed to {@link #sync(long)}
+     */
+    private long append(List<ObjectNode> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (appendFailed) {
+            bytes.write('\n');
+        }
+        for (ObjectNode record : records) {
+            bytes.write(objectMapper.writeValueAsBytes(record));
+            bytes.write('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        try {
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+        } catch (IOException e) {
+            appendFailed = true;
+            throw e;
+        }
+        appendFailed = false;
+        return journal.position();
+    }
+
+    /**
+     * Forces the journal to disk up to the given position. Threads arriving while a force runs are usually covered by
+     * it when they get their turn, so concurrent submits share one force.
+     */
+    private void sync(long end) throws IOException {
+        synchronized (syncLock) {
+            if (syncedPosition >= end) {
+                return;
+            }
+            FileChannel channel;
+            long position;
+            synchronized (journalLock) {
+                channel = journal;
+                position = journal.position();
+            }
+            channel.force(false);
+            syncedPosition = position;
+        }
+    }
+
+    private long journalSize() throws IOException {
+        synchronized (journalLock) {
+            return journal.size();
+        }
+    }
+
+    /**
+     * Rewrites the journal with the retained outcomes and the operations without a journaled outcome, and continues
+     * appending to it. The current journal stays in use when the rewrite fails.
+     */
+    private void compact() throws IOException {
+        synchronized (syncLock) {
+            synchronized (journalLock) {
+                List<ObjectNode> records = new ArrayList<>();
+                for (String id : completedOrder) {
+                    Optional.ofNullable(operations.get(id)).ifPresent(operation -> records.add(completedRecord(operation)));
+                }
+                operations.values().stream()
+                        .filter(operation -> !operation.isJournaled())
+                        .sorted(Comparator.comparingLong(operation -> operation.sequence))
+                        .forEach(operation -> records.add(submittedRecord(operation)));
+
+                Path temporary = Files.createTempFile(directory, "operations", ".tmp");
+                // The channel keeps pointing at the rewritten file once it is moved into place
+                FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+                FileChannel previous = journal;
+                try {
+                    journal = channel;
+                    try {
+                        append(records);
+                    } finally {
+                        journal = previous;
+                    }
+                    channel.force(true);
+                    Files.move(temporary, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException | RuntimeException e) {
+                    channel.close();
+                    Files.deleteIfExists(temporary);
+                    throw e;
+                }
+                journal = channel;
+                syncedPosition = journal.size();
+                if (previous != null) {
+                    try {
+                        previous.close();
+                    } catch (IOException e) {
+                        logger.warn("Could not close the replaced write-behind journal", e);
+                    }
+                }
+                logger.debug("Compacted the write-behind journal to {} records.", records.size());
+            }
+        }
+    }
+
+    private ObjectNode submittedRecord(Operation operation) {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("type", SUBMITTED);
+        record.put("id", operation.id);
+        record.put("submittedAtMillis", operation.submittedAtMillis);
+        record.set("input", objectMapper.valueToTree(operation.input));
+        return record;
+    }
+
+    private ObjectNode completedRecord(Operation operation) {
+        EmployeeOperation status = operation.outcome();
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("type", COMPLETED);
+        record.put("id", status.getId());
+        record.put("submittedAtMillis", status.getSubmittedAtMillis());
+        record.put("completedAtMillis", status.getCompletedAtMillis());
+        record.put("state", status.getState().name());
+        record.set("employee", objectMapper.valueToTree(status.getEmployee()));
+        record.put("error", status.getError());
+        return record;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+        if (!enabled) {
+            return;
+        }
+        synchronized (syncLock) {
+            synchronized (journalLock) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    logger.warn("Could not close the write-behind journal", e);
+                }
+                try {
+                    // Releases the directory lock
+                    lockChannel.close();
+                } catch (IOException e) {
+                    logger.warn("Could not release the write-behind directory lock", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mutable state of one queued create.
+     */
+    private static final class Operation {
+        private final String id;
+        private final long sequence;
+        private final Map<String, Object> input;
+        private final long submittedAtMillis;
+
+        private EmployeeOperation.State state = EmployeeOperation.State.PENDING;
+        // Outcomes are reported once journaled, so a reported outcome survives a restart
+        private boolean journaled;
+        private int attempts;
+        private Long completedAtMillis;
+        private Employee employee;
+        private String error;
+
+        private Operation(String id, long sequence, Map<String, Object> input, long submittedAtMillis) {
+            this.id = id;
+            this.sequence = sequence;
+            this.input = input;
+            this.submittedAtMillis = submittedAtMillis;
+        }
+
+        private synchronized int attemptStarted() {
+            return ++attempts;
+        }
+
+        private synchronized int attempts() {
+            return attempts;
+        }
+
+        private synchronized void attemptFailed(String error) {
+            this.error = error;
+        }
+
+        private synchronized void complete(EmployeeOperation.State finalState, Employee employee, String error, long completedAtMillis) {
+            this.state = finalState;
+            this.employee = employee;
+            this.error = error;
+            this.completedAtMillis = completedAtMillis;
+        }
+
+        private synchronized void journaled() {
+            this.journaled = true;
+        }
+
+        private synchronized boolean isJournaled() {
+            return journaled;
+        }
+
+        private synchronized boolean isCompleted() {
+            return state != EmployeeOperation.State.PENDING;
+        }
+
+        private synchronized long completedAtMillis() {
+            return completedAtMillis == null ? 0 : completedAtMillis;
+        }
+
+        private synchronized EmployeeOperation status() {
+            if (!journaled) {
+                return new EmployeeOperation(id, EmployeeOperation.State.PENDING, attempts, submittedAtMillis, null, null, error);
+            }
+            return outcome();
+        }
+
+        private synchronized EmployeeOperation outcome() {
+            return new EmployeeOperation(id, state, attempts, submittedAtMillis, completedAtMillis, employee, error);
+        }
+    }
+
+}
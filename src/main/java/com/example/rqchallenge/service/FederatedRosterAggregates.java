@@ -0,0 +1,190 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.RosterDelta;
+import com.example.rqchallenge.upstream.UpstreamFederation;
+import com.example.rqchallenge.upstream.UpstreamSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Per-source partial aggregates of a federated roster: the highest earners and the highest salary of every source.
+ * A roster change only recomputes the partials of the sources it touched. Top-N and highest salary of the merged roster
+ * are then answered by a k-way merge of the partials instead of a scan of every employee.
+ */
+@Service
+public class FederatedRosterAggregates implements RosterDeltaListener {
+
+    static final int PARTIAL_SIZE = 10;
+
+    private final UpstreamFederation upstreamFederation;
+
+    private volatile Partials partials;
+
+    @Autowired
+    public FederatedRosterAggregates(UpstreamFederation upstreamFederation) {
+        this.upstreamFederation = upstreamFederation;
+    }
+
+    /**
+     * @param roster The roster a request is answered from
+     * @return The partials of exactly this roster, empty when federation is off or the roster is not the latest one
+     */
+    public Optional<Partials> forRoster(List<Employee> roster) {
+        Partials current = partials;
+        return current != null && current.roster == roster ? Optional.of(current) : Optional.empty();
+    }
+
+    @Override
+    public void onRosterDelta(RosterDelta delta, List<Employee> roster) {
+        if (!upstreamFederation.isEnabled()) {
+            return;
+        }
+        Set<String> touched = new HashSet<>();
+        Stream.of(delta.getAdded(), delta.getRemoved(), delta.getChanged())
+                .flatMap(List::stream)
+                .forEach(employee -> touched.add(sourceOf(employee.getId())));
+
+        Map<String, List<Employee>> bySource = new HashMap<>();
+        for (Employee employee : roster) {
+            bySource.computeIfAbsent(sourceOf(employee.getId()), source -> new ArrayList<>()).add(employee);
+        }
+        Partials previous = partials;
+        List<SourcePartial> sourcePartials = new ArrayList<>();
+        for (UpstreamSource source : upstreamFederation.getSources()) {
+            SourcePartial reused = previous == null || touched.contains(source.getName()) ? null : previous.find(source.getName());
+            sourcePartials.add(reused != null ? reused
+                    : SourcePartial.build(source.getName(), bySource.getOrDefault(source.getName(), Collections.emptyList())));
+        }
+        partials = new Partials(roster, sourcePartials);
+    }
+
+    private String sourceOf(String id) {
+        return upstreamFederation.route(String.valueOf(id)).map(route -> route.getSource().getName()).orElse("");
+    }
+
+    /**
+     * The partials of one roster, immutable.
+     */
+    public static final class Partials {
+        private final List<Employee> roster;
+        private final List<SourcePartial> sources;
+
+        private Partials(List<Employee> roster, List<SourcePartial> sources) {
+            this.roster = roster;
+            this.sources = sources;
+        }
+
+        private SourcePartial find(String source) {
+            for (SourcePartial partial : sources) {
+                if (partial.source.equals(source)) {
+                    return partial;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return False when a source has a salary that is not a number, the aggregates must then scan the roster
+         */
+        public boolean isUsable() {
+            return sources.stream().allMatch(partial -> partial.valid);
+        }
+
+        /**
+         * @return Number of partial rows a merge reads, at most the partial size per source
+         */
+        public int getPartialRows() {
+            return sources.stream().mapToInt(partial -> partial.top.size()).sum();
+        }
+
+        /**
+         * Merges the per-source top lists. Equal salaries keep source order, then roster order, which is the order a
+         * stable sort of the merged roster produces.
+         *
+         * @param limit Number of names, at most {@link #PARTIAL_SIZE}
+         * @return The names of the highest earners, best first
+         */
+        public List<String> topNames(int limit) {
+            if (limit > PARTIAL_SIZE) {
+                throw new IllegalArgumentException("Partials only hold the top " + PARTIAL_SIZE);
+            }
+            // Cursor = {source index, position in its top list}
+            PriorityQueue<int[]> heads = new PriorityQueue<>(Comparator
+                    .<int[]>comparingInt(cursor -> -sources.get(cursor[0]).topSalaries[cursor[1]])
+                    .thenComparingInt(cursor -> cursor[0]));
+            for (int i = 0; i < sources.size(); i++) {
+                if (!sources.get(i).top.isEmpty()) {
+                    heads.add(new int[]{i, 0});
+                }
+            }
+            List<String> names = new ArrayList<>(limit);
+            while (names.size() < limit && !heads.isEmpty()) {
+                int[] cursor = heads.poll();
+                SourcePartial partial = sources.get(cursor[0]);
+                names.add(partial.top.get(cursor[1]).getEmployeeName());
+                if (cursor[1] + 1 < partial.top.size()) {
+                    heads.add(new int[]{cursor[0], cursor[1] + 1});
+                }
+            }
+            return names;
+        }
+
+        public Optional<Integer> highestSalary() {
+            return sources.stream()
+                    .filter(partial -> !partial.top.isEmpty())
+                    .map(partial -> partial.topSalaries[0])
+                    .max(Integer::compare);
+        }
+    }
+
+    /**
+     * The highest earners of one source, best first.
+     */
+    private static final class SourcePartial {
+        private final String source;
+        private final List<Employee> top;
+        private final int[] topSalaries;
+        private final boolean valid;
+
+        private SourcePartial(String source, List<Employee> top, int[] topSalaries, boolean valid) {
+            this.source = source;
+            this.top = top;
+            this.topSalaries = topSalaries;
+            this.valid = valid;
+        }
+
+        private static SourcePartial build(String source, List<Employee> employees) {
+            int[] salaries = new int[employees.size()];
+            for (int i = 0; i < salaries.length; i++) {
+                try {
+                    salaries[i] = Integer.parseInt(employees.get(i).getEmployeeSalary());
+                } catch (NumberFormatException e) {
+                    return new SourcePartial(source, Collections.emptyList(), new int[0], false);
+                }
+            }
+            // Keeps the current top-k with the worst of them on top; ties are worse the later they come
+            PriorityQueue<Integer> top = new PriorityQueue<>(PARTIAL_SIZE + 1,
+                    Comparator.<Integer>comparingInt(i -> salaries[i]).thenComparing(Comparator.<Integer>reverseOrder()));
+            for (int i = 0; i < salaries.length; i++) {
+                top.offer(i);
+                if (top.size() > PARTIAL_SIZE) {
+                    top.poll();
+                }
+            }
+            List<Integer> ranked = new ArrayList<>(top);
+            ranked.sort(Comparator.<Integer>comparingInt(i -> -salaries[i]).thenComparing(Comparator.naturalOrder()));
+            List<Employee> topEmployees = new ArrayList<>(ranked.size());
+            int[] topSalaries = new int[ranked.size()];
+            for (int i = 0; i < ranked.size(); i++) {
+                topEmployees.add(employees.get(ranked.get(i)));
+                topSalaries[i] = salaries[ranked.get(i)];
+            }
+            return new SourcePartial(source, topEmployees, topSalaries, true);
+        }
+    }
+
+}
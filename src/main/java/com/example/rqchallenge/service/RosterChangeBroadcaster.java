@@ -0,0 +1,220 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.cache.AdaptiveRosterExpiry;
+import com.example.rqchallenge.cache.EmployeeCaches;
+import com.example.rqchallenge.cache.RosterChangeTransport;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.RosterChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Patches the cached roster after a local write and broadcasts the change so the other instances can apply the same
+ * patch instead of serving their stale roster until it expires. Datagrams may arrive twice or out of order, so every
+ * instance remembers which change versions of each origin it has applied. When a change is still missing after
+ * {@value #MAX_OUT_OF_ORDER} later ones from the same origin arrived, it is considered lost and the cached roster is
+ * dropped, so the next read loads it from the upstream again.
+ */
+@Service
+public class RosterChangeBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(RosterChangeBroadcaster.class);
+    // Keeps a batch of created employees well inside one multicast datagram
+    private static final int MAX_BATCH_SIZE = 32;
+    static final int MAX_OUT_OF_ORDER = 64;
+
+    private final RosterChangeTransport transport;
+    private final CacheManager cacheManager;
+    private final SharedRosterCache sharedRosterCache;
+    private final RosterDeltaDetector rosterDeltaDetector;
+    private final EmployeeChangeFeed employeeChangeFeed;
+    private final AdaptiveRosterExpiry rosterExpiry;
+    private final RosterSnapshotStore rosterSnapshotStore;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, AppliedVersions> appliedVersions = new ConcurrentHashMap<>();
+    // Serializes the read-patch-put of the cached roster between request threads and the transport's receiver
+    private final Object rosterLock = new Object();
+
+    @Autowired
+    public RosterChangeBroadcaster(RosterChangeTransport transport, CacheManager cacheManager, SharedRosterCache sharedRosterCache,
+                                   RosterDeltaDetector rosterDeltaDetector, EmployeeChangeFeed employeeChangeFeed,
+                                   AdaptiveRosterExpiry rosterExpiry, RosterSnapshotStore rosterSnapshotStore) {
+        this.transport = transport;
+        this.cacheManager = cacheManager;
+        this.sharedRosterCache = sharedRosterCache;
+        this.rosterDeltaDetector = rosterDeltaDetector;
+        this.employeeChangeFeed = employeeChangeFeed;
+        this.rosterExpiry = rosterExpiry;
+        this.rosterSnapshotStore = rosterSnapshotStore;
+        transport.subscribe(this::onRemoteChange);
+    }
+
+    /**
+     * Applies a locally created employee to the cached roster and broadcasts it.
+     *
+     * @param employee The employee returned by the external API
+     */
+    public void employeeCreated(Employee employee) {
+        publish(Collections.singletonList(
+                new RosterChange(RosterChange.Type.CREATED, employee.getId(), employee, version.incrementAndGet(), nodeId)));
+    }
+
+    /**
+     * Applies several locally created employees to the cached roster in one patch and broadcasts them in batches small
+     * enough for one datagram each. Bulk writers use this instead of patching and republishing the roster per row.
+     *
+     * @param employees The employees returned by the external API
+     */
+    public void employeesCreated(List<Employee> employees) {
+        List<RosterChange> changes = new ArrayList<>();
+        for (int from = 0; from < employees.size(); from += MAX_BATCH_SIZE) {
+            List<Employee> batch = new ArrayList<>(employees.subList(from, Math.min(employees.size(), from + MAX_BATCH_SIZE)));
+            changes.add(new RosterChange(batch, version.incrementAndGet(), nodeId));
+        }
+        if (!changes.isEmpty()) {
+            publish(changes);
+        }
+    }
+
+    /**
+     * Removes a locally deleted employee from the cached roster and broadcasts the deletion.
+     *
+     * @param id The ID of the deleted employee
+     */
+    public void employeeDeleted(String id) {
+        publish(Collections.singletonList(new RosterChange(RosterChange.Type.DELETED, id, null, version.incrementAndGet(), nodeId)));
+    }
+
+    private void publish(List<RosterChange> changes) {
+        Optional<List<Employee>> patched = apply(changes);
+        if (patched.isPresent()) {
+            // A partitioned instance only holds its own share of the roster, which must not replace the shared one
+            if (!rosterDeltaDetector.isPartitioned()) {
+                sharedRosterCache.publish(patched.get());
+            }
+            String rosterVersion = rosterSnapshotStore.current().getVersionTag();
+            changes.forEach(change -> change.setRosterVersion(rosterVersion));
+        } else {
+            changes.forEach(employeeChangeFeed::onRosterChange);
+        }
+        changes.forEach(transport::send);
+    }
+
+    private void onRemoteChange(RosterChange change) {
+        if (nodeId.equals(change.getOrigin())) {
+            return;
+        }
+        // The first change seen from an instance starts its sequence, earlier ones predate this instance
+        AppliedVersions applied = appliedVersions.computeIfAbsent(change.getOrigin(),
+                origin -> new AppliedVersions(change.getVersion() - 1));
+        if (!applied.add(change.getVersion())) {
+            return;
+        }
+        logger.info("Applying {} from another instance.", change);
+        if (apply(Collections.singletonList(change)).isEmpty()) {
+            employeeChangeFeed.onRosterChange(change);
+        }
+        if (applied.skipLostVersions()) {
+            logger.warn("Lost roster changes from instance {}, dropping the cached roster.", change.getOrigin());
+            Optional.ofNullable(cacheManager.getCache(EmployeeCaches.ROSTER))
+                    .ifPresent(cache -> cache.evict(EmployeeCaches.ROSTER_KEY));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<List<Employee>> apply(List<RosterChange> changes) {
+        Set<String> ids = new HashSet<>();
+        List<Employee> created = new ArrayList<>();
+        for (RosterChange change : changes) {
+            if (change.getType() == RosterChange.Type.CREATED_BATCH) {
+                change.getEmployees().forEach(employee -> ids.add(employee.getId()));
+                created.addAll(change.getEmployees());
+            } else {
+                ids.add(change.getEmployeeId());
+                if (change.getType() == RosterChange.Type.CREATED && change.getEmployee() != null) {
+                    created.add(change.getEmployee());
+                }
+            }
+        }
+        Optional.ofNullable(cacheManager.getCache(EmployeeCaches.BY_ID)).ifPresent(byId -> ids.forEach(byId::evict));
+        Optional.ofNullable(cacheManager.getCache(EmployeeCaches.NEGATIVE)).ifPresent(negative -> ids.forEach(negative::evict));
+        // A write shortens the roster TTL before the patched roster is put, so the upstream confirms it sooner
+        rosterExpiry.recordLocalWrite();
+        Cache cache = cacheManager.getCache(EmployeeCaches.ROSTER);
+        if (cache == null) {
+            return Optional.empty();
+        }
+
+        synchronized (rosterLock) {
+            List<Employee> current = cache.get(EmployeeCaches.ROSTER_KEY, List.class);
+            if (current == null) {
+                return Optional.empty();
+            }
+            List<Employee> patched = new ArrayList<>(current.size() + created.size());
+            for (Employee employee : current) {
+                if (!ids.contains(employee.getId())) {
+                    patched.add(employee);
+                }
+            }
+            patched.addAll(created);
+            rosterDeltaDetector.detect(patched, detection -> cache.put(EmployeeCaches.ROSTER_KEY, detection.getRoster()));
+            return Optional.of(patched);
+        }
+    }
+
+    /**
+     * Change versions applied from one origin: every version up to {@code contiguous}, and the ones above it that
+     * arrived ahead of a missing one.
+     */
+    private static final class AppliedVersions {
+        private long contiguous;
+        private final TreeSet<Long> ahead = new TreeSet<>();
+
+        private AppliedVersions(long contiguous) {
+            this.contiguous = contiguous;
+        }
+
+        /**
+         * @return false when the version was already applied
+         */
+        private synchronized boolean add(long version) {
+            if (version <= contiguous || !ahead.add(version)) {
+                return false;
+            }
+            while (!ahead.isEmpty() && ahead.first() == contiguous + 1) {
+                contiguous = ahead.pollFirst();
+            }
+            return true;
+        }
+
+        /**
+         * @return true when a missing version has been overtaken by too many later ones and was given up
+         */
+        private synchronized boolean skipLostVersions() {
+            if (ahead.size() <= MAX_OUT_OF_ORDER) {
+                return false;
+            }
+            contiguous = ahead.last();
+            ahead.clear();
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.cluster.ClusterMembership;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.RosterDelta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Compares every new roster with the previous one using a per-employee content hash. Listeners holding derived state
+ * only receive the added, removed and changed employees, and are not called at all for an unchanged roster. In cluster
+ * mode only the employees this instance owns are kept, so the cached roster and everything derived from it cover this
+ * instance's partition. Detection and publication of the resulting roster happen under one lock, so a caller can never
+ * cache a roster that another thread's detection has already replaced.
+ */
+@Service
+public class RosterDeltaDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(RosterDeltaDetector.class);
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ObjectProvider<RosterDeltaListener> listeners;
+    private final ClusterMembership clusterMembership;
+
+    private Map<String, Long> previousHashes = Collections.emptyMap();
+    private Map<String, Employee> previousById = Collections.emptyMap();
+    private List<Employee> currentRoster = Collections.emptyList();
+
+    @Autowired
+    public RosterDeltaDetector(ObjectProvider<RosterDeltaListener> listeners, ClusterMembership clusterMembership) {
+        this.listeners = listeners;
+        this.clusterMembership = clusterMembership;
+    }
+
+    /**
+     * Diffs a new roster against the previous one and hands a non-empty delta to the listeners.
+     *
+     * @param fullRoster The new roster, in cluster mode the employees of other partitions are dropped
+     * @return The delta and the roster it produced
+     */
+    public Detection detect(List<Employee> fullRoster) {
+        return detect(fullRoster, detection -> {
+        });
+    }
+
+    /**
+     * Diffs a new roster against the previous one, hands a non-empty delta to the listeners and then publishes the
+     * detection, e.g. into a cache, before another roster can be detected.
+     *
+     * @param fullRoster The new roster, in cluster mode the employees of other partitions are dropped
+     * @param publisher  Receives the detection, also when the roster did not change
+     * @return The delta and the roster it produced
+     */
+    public synchronized Detection detect(List<Employee> fullRoster, Consumer<Detection> publisher) {
+        List<Employee> roster = clusterMembership.isEnabled() ? fullRoster.stream()
+                .filter(employee -> clusterMembership.isLocal(String.valueOf(employee.getId())))
+                .collect(Collectors.toList()) : fullRoster;
+        Map<String, Long> hashes = new HashMap<>(roster.size() * 2);
+        Map<String, Employee> byId = new HashMap<>(roster.size() * 2);
+        List<Employee> added = new ArrayList<>();
+        List<Employee> changed = new ArrayList<>();
+        for (Employee employee : roster) {
+            String id = String.valueOf(employee.getId());
+            long hash = contentHash(employee);
+            hashes.put(id, hash);
+            byId.put(id, employee);
+            Long previous = previousHashes.get(id);
+            if (previous == null) {
+                added.add(employee);
+            } else if (previous != hash) {
+                changed.add(employee);
+            }
+        }
+        List<Employee> removed = new ArrayList<>();
+        if (hashes.size() - added.size() != previousHashes.size()) {
+            previousById.forEach((id, employee) -> {
+                if (!hashes.containsKey(id)) {
+                    removed.add(employee);
+                }
+            });
+        }
+
+        RosterDelta delta = new RosterDelta(added, removed, changed);
+        if (!delta.isEmpty()) {
+            previousHashes = hashes;
+            previousById = byId;
+            currentRoster = Collections.unmodifiableList(new ArrayList<>(roster));
+            logger.info("Roster changed: {}", delta);
+            listeners.orderedStream().forEach(listener -> listener.onRosterDelta(delta, currentRoster));
+        }
+        Detection detection = new Detection(delta, currentRoster);
+        publisher.accept(detection);
+        return detection;
+    }
+
+    /**
+     * Publishes the current roster again without diffing, e.g. to restart its expiry after an unchanged refresh.
+     *
+     * @param publisher Receives the current roster
+     * @return The roster as of the last detected change
+     */
+    public synchronized List<Employee> republish(Consumer<List<Employee>> publisher) {
+        publisher.accept(currentRoster);
+        return currentRoster;
+    }
+
+    /**
+     * @return True in cluster mode, where the current roster is only this instance's partition
+     */
+    public boolean isPartitioned() {
+        return clusterMembership.isEnabled();
+    }
+
+    /**
+     * The outcome of one detection: the delta and the roster current after it. An unchanged roster keeps the identity
+     * of the previous one.
+     */
+    public static final class Detection {
+
+        private final RosterDelta delta;
+        private final List<Employee> roster;
+
+        Detection(RosterDelta delta, List<Employee> roster) {
+            this.delta = delta;
+            this.roster = roster;
+        }
+
+        public RosterDelta getDelta() {
+            return delta;
+        }
+
+        public List<Employee> getRoster() {
+            return roster;
+        }
+    }
+
+    static long contentHash(Employee employee) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, employee.getId());
+        hash = mix(hash, employee.getEmployeeName());
+        hash = mix(hash, employee.getEmployeeSalary());
+        hash = mix(hash, employee.getEmployeeAge());
+        return mix(hash, employee.getProfileImage());
+    }
+
+    private static long mix(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= FNV_PRIME;
+            }
+        }
+        // Field separator, so that ("ab", "c") and ("a", "bc") hash differently
+        hash ^= 0x1f;
+        return hash * FNV_PRIME;
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.RosterDelta;
+
+import java.util.List;
+
+/**
+ * Implemented by beans holding state derived from the roster. They are only called when the roster actually changed,
+ * with the delta to apply and the complete new roster.
+ */
+public interface RosterDeltaListener {
+
+    void onRosterDelta(RosterDelta delta, List<Employee> roster);
+
+}
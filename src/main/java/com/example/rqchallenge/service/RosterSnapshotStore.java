@@ -0,0 +1,102 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.RosterDelta;
+import com.example.rqchallenge.model.RosterSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Publishes every changed roster as a new immutable {@link RosterSnapshot}. The current snapshot is swapped with a
+ * single volatile write and read without locks. Replaced snapshots stay available by version for a short retention
+ * window, so a client can pin the version it started with and see one consistent roster across several calls.
+ */
+@Service
+public class RosterSnapshotStore implements RosterDeltaListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RosterSnapshotStore.class);
+
+    private final long retentionMs;
+    private final int maxRetained;
+    private final LongSupplier clock;
+    private final Map<Long, RetiredSnapshot> retired = new ConcurrentHashMap<>();
+    private volatile RosterSnapshot current = RosterSnapshot.EMPTY;
+
+    @Autowired
+    public RosterSnapshotStore(@Value("${employee.roster.pin-retention-ms:60000}") long retentionMs,
+                               @Value("${employee.roster.max-retained-snapshots:8}") int maxRetained) {
+        this(retentionMs, maxRetained, System::currentTimeMillis);
+    }
+
+    RosterSnapshotStore(long retentionMs, int maxRetained, LongSupplier clock) {
+        this.retentionMs = retentionMs;
+        this.maxRetained = maxRetained;
+        this.clock = clock;
+    }
+
+    /**
+     * Publishes the changed roster. Deltas are delivered one at a time by {@link RosterDeltaDetector}, so versions are
+     * assigned without races. The snapshot wraps the detector's immutable roster, so nothing is copied or rebuilt.
+     */
+    @Override
+    public void onRosterDelta(RosterDelta delta, List<Employee> roster) {
+        long now = clock.getAsLong();
+        RosterSnapshot previous = current;
+        current = new RosterSnapshot(previous.getVersion() + 1, roster, now);
+        if (previous.getVersion() > 0) {
+            retired.put(previous.getVersion(), new RetiredSnapshot(previous, now));
+        }
+        prune(now);
+        logger.debug("Published roster snapshot {}.", current);
+    }
+
+    /**
+     * @return The current snapshot, {@link RosterSnapshot#EMPTY} before the first roster was loaded
+     */
+    public RosterSnapshot current() {
+        return current;
+    }
+
+    /**
+     * @param version A snapshot version
+     * @return The snapshot with this version, empty when it is unknown or was replaced longer ago than the retention
+     * window
+     */
+    public Optional<RosterSnapshot> get(long version) {
+        RosterSnapshot snapshot = current;
+        if (snapshot.getVersion() == version) {
+            return Optional.of(snapshot);
+        }
+        RetiredSnapshot old = retired.get(version);
+        if (old == null || clock.getAsLong() - old.retiredAtMillis > retentionMs) {
+            return Optional.empty();
+        }
+        return Optional.of(old.snapshot);
+    }
+
+    private void prune(long now) {
+        retired.values().removeIf(old -> now - old.retiredAtMillis > retentionMs);
+        long oldestKept = current.getVersion() - maxRetained;
+        retired.keySet().removeIf(version -> version < oldestKept);
+    }
+
+    private static final class RetiredSnapshot {
+        private final RosterSnapshot snapshot;
+        private final long retiredAtMillis;
+
+        private RetiredSnapshot(RosterSnapshot snapshot, long retiredAtMillis) {
+            this.snapshot = snapshot;
+            this.retiredAtMillis = retiredAtMillis;
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.cache.EmployeeCaches;
+import com.example.rqchallenge.cache.SharedRosterStore;
+import com.example.rqchallenge.model.Employee;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Second cache level behind the in-process roster cache. A roster missing from the local cache is first looked
+ * up in the shared store, and only the instance holding the refresh lock goes to the external API. The others wait
+ * for its snapshot to appear in the shared store.
+ */
+@Service
+public class SharedRosterCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedRosterCache.class);
+    static final String SNAPSHOT_KEY = "rqchallenge:roster:snapshot";
+    static final String LOCK_KEY = "rqchallenge:roster:refresh-lock";
+    private static final TypeReference<List<Employee>> ROSTER_TYPE = new TypeReference<>() {};
+
+    private final SharedRosterStore store;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final RosterDeltaDetector rosterDeltaDetector;
+    private final Duration snapshotTtl;
+    private final Duration lockTtl;
+    private final long waitForPeerMs;
+
+    @Autowired
+    public SharedRosterCache(SharedRosterStore store, CacheManager cacheManager, ObjectMapper objectMapper,
+                             RosterDeltaDetector rosterDeltaDetector,
+                             @Value("${employee.cache.l2.ttl-ms:60000}") long snapshotTtlMs,
+                             @Value("${employee.cache.l2.lock-ttl-ms:10000}") long lockTtlMs,
+                             @Value("${employee.cache.l2.wait-for-peer-ms:3000}") long waitForPeerMs) {
+        this.store = store;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.rosterDeltaDetector = rosterDeltaDetector;
+        this.snapshotTtl = Duration.ofMillis(snapshotTtlMs);
+        this.lockTtl = Duration.ofMillis(lockTtlMs);
+        this.waitForPeerMs = waitForPeerMs;
+    }
+
+    /**
+     * Returns the shared roster snapshot, loading it from the external API when no instance has done so in this TTL.
+     *
+     * @param upstreamLoader Fetches the roster from the external API
+     * @return The roster, empty when neither the shared store nor the external API could provide it
+     */
+    public List<Employee> getOrLoad(Supplier<List<Employee>> upstreamLoader) {
+        Optional<List<Employee>> shared = readSnapshot();
+        if (shared.isPresent()) {
+            return shared.get();
+        }
+
+        String owner = UUID.randomUUID().toString();
+        if (store.tryLock(LOCK_KEY, owner, lockTtl)) {
+            try {
+                // Another instance may have published a snapshot between our read and the lock
+                return readSnapshot().orElseGet(() -> {
+                    List<Employee> roster = upstreamLoader.get();
+                    publish(roster);
+                    return roster;
+                });
+            } finally {
+                store.unlock(LOCK_KEY, owner);
+            }
+        }
+
+        logger.info("Roster refresh is running on another instance, waiting for its snapshot.");
+        long deadline = System.currentTimeMillis() + waitForPeerMs;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            shared = readSnapshot();
+            if (shared.isPresent()) {
+                return shared.get();
+            }
+        }
+        logger.warn("No roster snapshot from another instance after {} ms, loading it from the external API.", waitForPeerMs);
+        return upstreamLoader.get();
+    }
+
+    /**
+     * Writes a roster to the shared store so other instances can skip their upstream fetch.
+     *
+     * @param roster The roster to share, empty rosters are not shared
+     */
+    public void publish(List<Employee> roster) {
+        if (roster.isEmpty()) {
+            return;
+        }
+        try {
+            store.put(SNAPSHOT_KEY, objectMapper.writeValueAsBytes(roster), snapshotTtl);
+        } catch (IOException e) {
+            logger.error("Error while serializing the roster snapshot", e);
+        }
+    }
+
+    private Optional<List<Employee>> readSnapshot() {
+        return store.get(SNAPSHOT_KEY).flatMap(bytes -> {
+            try {
+                List<Employee> roster = objectMapper.readValue(bytes, ROSTER_TYPE);
+                rosterDeltaDetector.detect(roster, detection -> Optional.ofNullable(cacheManager.getCache(EmployeeCaches.ROSTER))
+                        .ifPresent(cache -> cache.put(EmployeeCaches.ROSTER_KEY, detection.getRoster())));
+                logger.info("Loaded roster snapshot with {} employees from the shared cache.", roster.size());
+                return Optional.of(roster);
+            } catch (IOException e) {
+                logger.error("Error while reading the roster snapshot from the shared cache", e);
+                return Optional.empty();
+            }
+        });
+    }
+
+}
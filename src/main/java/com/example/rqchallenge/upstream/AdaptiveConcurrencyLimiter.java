@@ -0,0 +1,159 @@
+package com.example.rqchallenge.upstream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient concurrency limit for work that waits on the external API. The limit follows the ratio between the
+ * long-term latency (the upstream's healthy baseline) and the short-term latency: while they match the limit grows by
+ * roughly its square root, once the upstream slows down the limit shrinks proportionally. Work above the limit is
+ * rejected right away instead of queueing up threads and memory.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+    private static final double SMOOTHING = 0.2;
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejectedCounter;
+
+    private volatile double limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(@Value("${employee.upstream.limiter.initial-limit:20}") int initialLimit,
+                                      @Value("${employee.upstream.limiter.min-limit:2}") int minLimit,
+                                      @Value("${employee.upstream.limiter.max-limit:200}") int maxLimit,
+                                      @Value("${employee.upstream.limiter.rtt-tolerance:1.5}") double rttTolerance,
+                                      MeterRegistry meterRegistry) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.rejectedCounter = meterRegistry.counter("upstream.limiter.rejected");
+        Gauge.builder("upstream.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("upstream.limiter.inflight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Claims a slot for one unit of upstream-bound work.
+     *
+     * @return A permit that must be released when the work is done, empty when the limit is reached
+     */
+    public Optional<Permit> tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejectedCounter.increment();
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return Optional.of(new Permit(current + 1));
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        if (shortRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+        } else {
+            shortRttNanos += (rttNanos - shortRttNanos) / SHORT_WINDOW;
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+        }
+        // After a lasting slowdown the baseline drifts up; pull it back so the limit can recover
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        // The limit is only a good signal when it is actually being used
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        double previous = limit;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+        if ((int) previous != (int) limit) {
+            logger.debug("Upstream concurrency limit changed from {} to {} (short rtt {} ms, long rtt {} ms).",
+                    (int) previous, (int) limit, shortRttNanos / 1_000_000, longRttNanos / 1_000_000);
+        }
+    }
+
+    private synchronized void onDropped() {
+        limit = Math.max(minLimit, limit * 0.9);
+    }
+
+    /**
+     * Slot held by one unit of upstream-bound work. Exactly one of the release methods must be called.
+     */
+    public final class Permit {
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * The work finished, its latency is a valid sample.
+         */
+        public void onSuccess() {
+            if (release()) {
+                onSample(System.nanoTime() - startNanos, inFlightAtStart);
+            }
+        }
+
+        /**
+         * The work timed out or was rejected by the upstream because of load, the limit backs off.
+         */
+        public void onDropped() {
+            if (release()) {
+                AdaptiveConcurrencyLimiter.this.onDropped();
+            }
+        }
+
+        /**
+         * The work failed for a reason unrelated to load, its latency is not sampled.
+         */
+        public void onIgnore() {
+            release();
+        }
+
+        private synchronized boolean release() {
+            if (released) {
+                return false;
+            }
+            released = true;
+            inFlight.decrementAndGet();
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.example.rqchallenge.upstream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Sends a second attempt of an idempotent upstream call when the first one has not answered within the observed
+ * latency percentile. The first successful attempt wins and the other one is cancelled. Hedges are paid from a token
+ * bucket that every call refills by the hedge ratio, capped at a small burst, so the share of hedged calls is bounded
+ * over the recent calls and a general upstream slowdown cannot double the load. When the hedge executor is saturated,
+ * calls are not hedged.
+ */
+@Component
+public class HedgedRequestExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgedRequestExecutor.class);
+    private static final int WINDOW_SIZE = 512;
+    private static final int MIN_SAMPLES = 20;
+
+    private final boolean enabled;
+    private final double maxHedgeRatio;
+    private final double maxBurst;
+    private final long minDelayMs;
+    private final long maxDelayMs;
+    private final double percentile;
+    private final ExecutorService hedgeExecutor;
+
+    private final long[] latencyWindow = new long[WINDOW_SIZE];
+    private final AtomicInteger samples = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private double hedgeTokens;
+
+    private final Counter requestCounter;
+    private final Counter hedgeCounter;
+    private final Counter hedgeWinCounter;
+
+    @Autowired
+    public HedgedRequestExecutor(@Value("${employee.upstream.hedging.enabled:false}") boolean enabled,
+                                 @Value("${employee.upstream.hedging.max-ratio:0.1}") double maxHedgeRatio,
+                                 @Value("${employee.upstream.hedging.max-burst:5}") double maxBurst,
+                                 @Value("${employee.upstream.hedging.min-delay-ms:20}") long minDelayMs,
+                                 @Value("${employee.upstream.hedging.max-delay-ms:2000}") long maxDelayMs,
+                                 @Value("${employee.upstream.hedging.percentile:0.95}") double percentile,
+                                 @Qualifier("hedgeExecutor") ExecutorService hedgeExecutor,
+                                 MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.maxBurst = maxBurst;
+        this.minDelayMs = minDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.percentile = percentile;
+        this.hedgeExecutor = hedgeExecutor;
+        this.requestCounter = meterRegistry.counter("upstream.hedge.requests");
+        this.hedgeCounter = meterRegistry.counter("upstream.hedge.sent");
+        this.hedgeWinCounter = meterRegistry.counter("upstream.hedge.wins");
+        Gauge.builder("upstream.hedge.delay", this, HedgedRequestExecutor::getHedgeDelayMs)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("upstream.hedge.rate", this, HedgedRequestExecutor::getHedgeRate)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs an idempotent upstream call, hedging it when enabled.
+     *
+     * @param call The upstream call, it must be safe to run twice
+     * @return The result of the first attempt that completed successfully
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        requests.incrementAndGet();
+        requestCounter.increment();
+        refillHedgeTokens();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        Future<?> primary;
+        try {
+            primary = hedgeExecutor.submit(() -> runAttempt(call, result, running, false));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Hedge executor saturated, calling upstream without hedging.");
+            return call.get();
+        }
+        try {
+            try {
+                return result.get(getHedgeDelayMs(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (!tryAcquireHedge()) {
+                    return result.get();
+                }
+                running.incrementAndGet();
+                Future<?> hedge;
+                try {
+                    hedge = hedgeExecutor.submit(() -> runAttempt(call, result, running, true));
+                } catch (RejectedExecutionException rejected) {
+                    running.decrementAndGet();
+                    releaseHedge();
+                    return result.get();
+                }
+                hedgeCounter.increment();
+                try {
+                    return result.get();
+                } finally {
+                    hedge.cancel(true);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the external API", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Upstream call failed", e.getCause());
+        } finally {
+            primary.cancel(true);
+        }
+    }
+
+    public long getHedgeDelayMs() {
+        int recorded = samples.get();
+        int count = recorded < 0 || recorded > WINDOW_SIZE ? WINDOW_SIZE : recorded;
+        if (count < MIN_SAMPLES) {
+            return maxDelayMs;
+        }
+        long[] sorted;
+        synchronized (latencyWindow) {
+            sorted = Arrays.copyOf(latencyWindow, count);
+        }
+        Arrays.sort(sorted);
+        long observed = sorted[(int) Math.min(count - 1, Math.ceil(percentile * count) - 1)];
+        return Math.max(minDelayMs, Math.min(maxDelayMs, observed));
+    }
+
+    public double getHedgeRate() {
+        long total = requests.get();
+        return total == 0 ? 0 : (double) hedges.get() / total;
+    }
+
+    private synchronized void refillHedgeTokens() {
+        hedgeTokens = Math.min(maxBurst, hedgeTokens + maxHedgeRatio);
+    }
+
+    private synchronized boolean tryAcquireHedge() {
+        if (hedgeTokens < 1) {
+            return false;
+        }
+        hedgeTokens--;
+        hedges.incrementAndGet();
+        return true;
+    }
+
+    private synchronized void releaseHedge() {
+        hedgeTokens = Math.min(maxBurst, hedgeTokens + 1);
+        hedges.decrementAndGet();
+    }
+
+    private <T> void runAttempt(Supplier<T> call, CompletableFuture<T> result, AtomicInteger running, boolean hedge) {
+        long start = System.nanoTime();
+        try {
+            T value = call.get();
+            recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            if (result.complete(value) && hedge) {
+                hedgeWinCounter.increment();
+                logger.debug("Hedged upstream attempt answered first.");
+            }
+        } catch (RuntimeException e) {
+            // Only fail the call once no attempt is left that could still succeed
+            if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void recordLatency(long latencyMs) {
+        int index = Math.floorMod(samples.getAndIncrement(), WINDOW_SIZE);
+        synchronized (latencyWindow) {
+            latencyWindow[index] = latencyMs;
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+package com.example.rqchallenge.upstream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * The employee backends this instance talks to. Without {@code employee.federation.sources} there is a single,
+ * unnamed source at {@code external.api.url} and ids are used as they are. With federation, every id is qualified
+ * with the name of its source ({@code eu:42}), so reads by id, deletes and the roster merge know which backend owns
+ * an employee.
+ * <p>
+ * Each source has at most one call in flight. A call that misses its timeout is cancelled, and until it has actually
+ * ended the source is skipped by further scatters instead of piling up threads behind a hung backend.
+ */
+@Component
+public class UpstreamFederation {
+
+    public static final char ID_SEPARATOR = ':';
+    public static final String SOURCE_FIELD = "source";
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamFederation.class);
+
+    private final List<UpstreamSource> sources;
+    private final Map<String, UpstreamSource> sourcesByName = new HashMap<>();
+    private final UpstreamSource writeSource;
+    private final boolean enabled;
+    private final long staleRosterMaxAgeMs;
+    private final ExecutorService executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public UpstreamFederation(@Value("${external.api.url}") String externalApiUrl,
+                              @Value("${employee.federation.sources:}") String sources,
+                              @Value("${employee.federation.timeout-ms:3000}") long defaultTimeoutMs,
+                              @Value("${employee.federation.stale-roster-max-age-ms:300000}") long staleRosterMaxAgeMs,
+                              @Value("${employee.federation.write-source:}") String writeSource,
+                              @Qualifier("federationExecutor") ExecutorService executor) {
+        List<UpstreamSource> federated = UpstreamSource.parseList(sources, defaultTimeoutMs);
+        this.enabled = !federated.isEmpty();
+        this.sources = enabled ? Collections.unmodifiableList(federated)
+                : Collections.singletonList(new UpstreamSource("", externalApiUrl, defaultTimeoutMs));
+        this.sources.forEach(source -> sourcesByName.put(source.getName(), source));
+        if (writeSource.isEmpty()) {
+            this.writeSource = this.sources.get(0);
+        } else if (sourcesByName.containsKey(writeSource)) {
+            this.writeSource = sourcesByName.get(writeSource);
+        } else {
+            throw new IllegalArgumentException("Unknown write source " + writeSource);
+        }
+        this.staleRosterMaxAgeMs = staleRosterMaxAgeMs;
+        this.executor = executor;
+        if (enabled) {
+            logger.info("Federating {} employee sources: {}", this.sources.size(), this.sources);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<UpstreamSource> getSources() {
+        return sources;
+    }
+
+    /**
+     * @return How long the last roster of a source that stopped answering is still merged, in milliseconds
+     */
+    public long getStaleRosterMaxAgeMs() {
+        return staleRosterMaxAgeMs;
+    }
+
+    /**
+     * @param source The source owning the employee
+     * @param id     The id used by the source
+     * @return The id clients see
+     */
+    public String qualify(UpstreamSource source, String id) {
+        return enabled ? source.getName() + ID_SEPARATOR + id : id;
+    }
+
+    /**
+     * @param qualifiedId An id clients see
+     * @return The owning source and its own id for the employee, empty when the id names no configured source
+     */
+    public Optional<Route> route(String qualifiedId) {
+        if (!enabled) {
+            return Optional.of(new Route(writeSource, qualifiedId));
+        }
+        int separator = qualifiedId.indexOf(ID_SEPARATOR);
+        if (separator <= 0) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(sourcesByName.get(qualifiedId.substring(0, separator)))
+                .map(source -> new Route(source, qualifiedId.substring(separator + 1)));
+    }
+
+    /**
+     * Picks the source a new employee is created in: the one named in the input's {@code source} field, otherwise
+     * {@code employee.federation.write-source}, otherwise the first source.
+     *
+     * @param employeeInput The create request
+     * @return The source, empty when the input names an unknown source
+     */
+    public Optional<UpstreamSource> writeSource(Map<String, Object> employeeInput) {
+        Object requested = enabled ? employeeInput.get(SOURCE_FIELD) : null;
+        if (requested == null) {
+            return Optional.of(writeSource);
+        }
+        return Optional.ofNullable(sourcesByName.get(requested.toString()));
+    }
+
+    /**
+     * Runs a call against every source in parallel. Each call is bounded by the timeout of its source, so a slow
+     * source delays the result by at most its own timeout and never fails the others. A source whose previous call
+     * is still running is not called again.
+     *
+     * @param call The call, run once per source
+     * @return One entry per source in configuration order, empty for a source that failed, timed out or was skipped
+     */
+    public <T> Map<UpstreamSource, Optional<T>> scatter(Function<UpstreamSource, T> call) {
+        Map<UpstreamSource, SourceCall<T>> pending = new LinkedHashMap<>();
+        for (UpstreamSource source : sources) {
+            if (inFlight.add(source.getName())) {
+                pending.put(source, new SourceCall<>(source, call));
+            } else {
+                logger.warn("Source {} still has a call in flight, skipping it.", source.getName());
+            }
+        }
+        Map<UpstreamSource, Optional<T>> results = new LinkedHashMap<>();
+        for (UpstreamSource source : sources) {
+            SourceCall<T> sourceCall = pending.get(source);
+            if (sourceCall == null) {
+                results.put(source, Optional.empty());
+                continue;
+            }
+            try {
+                results.put(source, Optional.ofNullable(sourceCall.result.join()));
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    logger.warn("Source {} did not answer within {} ms.", source.getName(), source.getTimeoutMs());
+                    sourceCall.cancel();
+                } else {
+                    logger.warn("Source {} failed: {}", source.getName(), String.valueOf(e.getCause()));
+                }
+                results.put(source, Optional.empty());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * One call to one source. The source stays in flight until the call has ended, or until it is cancelled before it
+     * started.
+     */
+    private final class SourceCall<T> implements Runnable {
+        private final UpstreamSource source;
+        private final Function<UpstreamSource, T> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        // Set by whichever comes first, the call starting or being cancelled while still queued
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final Future<?> task;
+
+        private SourceCall(UpstreamSource source, Function<UpstreamSource, T> call) {
+            this.source = source;
+            this.call = call;
+            result.orTimeout(source.getTimeoutMs(), TimeUnit.MILLISECONDS);
+            try {
+                this.task = executor.submit(this);
+            } catch (RuntimeException e) {
+                inFlight.remove(source.getName());
+                throw e;
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                result.complete(call.apply(source));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                inFlight.remove(source.getName());
+            }
+        }
+
+        private void cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                inFlight.remove(source.getName());
+            }
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * An employee's owning source and the id that source knows it by.
+     */
+    public static final class Route {
+        private final UpstreamSource source;
+        private final String id;
+
+        private Route(UpstreamSource source, String id) {
+            this.source = source;
+            this.id = id;
+        }
+
+        public UpstreamSource getSource() {
+            return source;
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+
+}
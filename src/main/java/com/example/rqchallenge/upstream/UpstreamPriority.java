@@ -0,0 +1,10 @@
+package com.example.rqchallenge.upstream;
+
+/**
+ * Priority of a call to the external API. Lower ordinal is served first when the rate limit is reached.
+ */
+public enum UpstreamPriority {
+    WRITE,
+    INTERACTIVE,
+    BACKGROUND
+}
@@ -0,0 +1,254 @@
+package com.example.rqchallenge.upstream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Client side token bucket in front of the external API.
+ * <p>
+ * The refill rate adapts to the upstream budget: it is cut on every 429 and the rate at which the 429 happened is
+ * remembered as the learned limit. Successful calls grow the rate again, quickly while far below the learned limit and
+ * slowly once close to it, so throughput settles just under the limit. A {@code Retry-After} header pauses all
+ * dispatching until it has passed. Waiting callers are served by {@link UpstreamPriority}, then in arrival order.
+ */
+@Component
+public class UpstreamScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamScheduler.class);
+    private static final double DECREASE_FACTOR = 0.7;
+    private static final double TARGET_RATIO = 0.9;
+    private static final long MAX_BACKOFF_MS = 5_000;
+
+    private final double minRate;
+    private final double maxRate;
+    private final double burst;
+    private final long deadlineMs;
+    private final int maxRetries;
+    private final long backoffBaseMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Ticket> waiting = new PriorityQueue<>(
+            Comparator.comparing((Ticket ticket) -> ticket.priority).thenComparingLong(ticket -> ticket.sequence));
+    private final AtomicLong sequence = new AtomicLong();
+
+    private double rate;
+    private double learnedLimit;
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+
+    @Autowired
+    public UpstreamScheduler(@Value("${employee.upstream.rate.initial:10}") double initialRate,
+                             @Value("${employee.upstream.rate.min:1}") double minRate,
+                             @Value("${employee.upstream.rate.max:100}") double maxRate,
+                             @Value("${employee.upstream.rate.burst:5}") double burst,
+                             @Value("${employee.upstream.deadline-ms:10000}") long deadlineMs,
+                             @Value("${employee.upstream.max-retries:3}") int maxRetries,
+                             @Value("${employee.upstream.backoff-base-ms:200}") long backoffBaseMs) {
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.burst = burst;
+        this.deadlineMs = deadlineMs;
+        this.maxRetries = maxRetries;
+        this.backoffBaseMs = backoffBaseMs;
+        this.rate = initialRate;
+        this.learnedLimit = maxRate;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.pausedUntilNanos = lastRefillNanos;
+    }
+
+    /**
+     * Runs an upstream call once a token is available, retrying 429 responses with jittered backoff until the
+     * deadline has passed.
+     *
+     * @param priority Priority of the call while waiting for a token
+     * @param call     The upstream call
+     * @return The result of the first call that was not rate limited
+     * @throws UpstreamThrottledException when no token could be acquired before the deadline
+     * @throws HttpClientErrorException   when the upstream still answers 429 after the last retry
+     */
+    public <T> T execute(UpstreamPriority priority, Supplier<T> call) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        for (int attempt = 0; ; attempt++) {
+            acquire(priority, deadline);
+            try {
+                T result = call.get();
+                onSuccess();
+                return result;
+            } catch (HttpClientErrorException e) {
+                if (e.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) {
+                    throw e;
+                }
+                long retryAfterMs = retryAfterMillis(e.getResponseHeaders());
+                onThrottled(retryAfterMs);
+                long backoffMs = Math.max(retryAfterMs, jitteredBackoff(attempt));
+                if (attempt >= maxRetries || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs) > deadline) {
+                    throw e;
+                }
+                logger.warn("External API rate limited the call, retrying in {} ms (attempt {}).", backoffMs, attempt + 1);
+                sleep(backoffMs);
+            }
+        }
+    }
+
+    public double getRate() {
+        lock.lock();
+        try {
+            return rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getLearnedLimit() {
+        lock.lock();
+        try {
+            return learnedLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueLength() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire(UpstreamPriority priority, long deadline) {
+        Ticket ticket = new Ticket(priority, sequence.incrementAndGet());
+        lock.lock();
+        try {
+            waiting.add(ticket);
+            while (true) {
+                long now = System.nanoTime();
+                refill(now);
+                long waitNanos;
+                if (waiting.peek() == ticket && now >= pausedUntilNanos && tokens >= 1) {
+                    tokens -= 1;
+                    waiting.poll();
+                    changed.signalAll();
+                    return;
+                } else if (now >= pausedUntilNanos && tokens < 1) {
+                    waitNanos = (long) ((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1));
+                } else {
+                    waitNanos = Math.max(pausedUntilNanos - now, TimeUnit.MILLISECONDS.toNanos(1));
+                }
+                if (now >= deadline) {
+                    waiting.remove(ticket);
+                    changed.signalAll();
+                    throw new UpstreamThrottledException("No upstream capacity available before the deadline");
+                }
+                changed.awaitNanos(Math.min(waitNanos, deadline - now));
+            }
+        } catch (InterruptedException e) {
+            waiting.remove(ticket);
+            changed.signalAll();
+            Thread.currentThread().interrupt();
+            throw new UpstreamThrottledException("Interrupted while waiting for upstream capacity");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * rate / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+    }
+
+    private void onSuccess() {
+        lock.lock();
+        try {
+            double target = Math.min(maxRate, learnedLimit * TARGET_RATIO);
+            // Additive increase, slowed down near the learned limit so the rate creeps up instead of overshooting
+            double step = rate < target ? 1.0 : 0.05;
+            rate = Math.min(maxRate, rate + step / Math.max(1.0, rate));
+            if (rate > learnedLimit) {
+                learnedLimit = rate;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onThrottled(long retryAfterMs) {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            learnedLimit = Math.max(minRate, rate);
+            rate = Math.max(minRate, rate * DECREASE_FACTOR);
+            tokens = Math.min(tokens, 0);
+            if (retryAfterMs > 0) {
+                pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryAfterMs));
+            }
+            logger.warn("External API returned 429, upstream rate lowered to {} req/s (learned limit {}).", rate, learnedLimit);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long jitteredBackoff(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MS, backoffBaseMs << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    static long retryAfterMillis(HttpHeaders headers) {
+        String retryAfter = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+            } catch (Exception ignored) {
+                return 0;
+            }
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamThrottledException("Interrupted while backing off from the external API");
+        }
+    }
+
+    private static final class Ticket {
+        private final UpstreamPriority priority;
+        private final long sequence;
+
+        private Ticket(UpstreamPriority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+}
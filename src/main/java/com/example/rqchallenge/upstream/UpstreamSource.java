@@ -0,0 +1,81 @@
+package com.example.rqchallenge.upstream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One employee backend with the API of {@code external.api.url}, as configured for federation.
+ */
+public final class UpstreamSource {
+
+    private final String name;
+    private final String baseUrl;
+    private final long timeoutMs;
+
+    public UpstreamSource(String name, String baseUrl, long timeoutMs) {
+        this.name = name;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Parses a comma separated list of {@code name=url} entries, each optionally followed by {@code @timeoutMs}, for
+     * example {@code eu=https://eu.example.com/api/v1/@2000,us=https://us.example.com/api/v1/}.
+     *
+     * @param spec             The source list
+     * @param defaultTimeoutMs Timeout of the sources without their own
+     * @return The sources in configuration order
+     * @throws IllegalArgumentException when an entry is malformed or a name repeats
+     */
+    public static List<UpstreamSource> parseList(String spec, long defaultTimeoutMs) {
+        List<UpstreamSource> sources = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int equals = trimmed.indexOf('=');
+            if (equals <= 0 || equals == trimmed.length() - 1) {
+                throw new IllegalArgumentException("Expected name=url in upstream source '" + trimmed + "'");
+            }
+            String name = trimmed.substring(0, equals).trim();
+            String url = trimmed.substring(equals + 1).trim();
+            long timeoutMs = defaultTimeoutMs;
+            int at = url.lastIndexOf('@');
+            if (at > 0 && url.substring(at + 1).matches("\\d+")) {
+                timeoutMs = Long.parseLong(url.substring(at + 1));
+                url = url.substring(0, at);
+            }
+            if (name.indexOf(UpstreamFederation.ID_SEPARATOR) >= 0) {
+                throw new IllegalArgumentException("Upstream source name must not contain '" + UpstreamFederation.ID_SEPARATOR + "': " + name);
+            }
+            for (UpstreamSource existing : sources) {
+                if (existing.name.equals(name)) {
+                    throw new IllegalArgumentException("Duplicate upstream source " + name);
+                }
+            }
+            sources.add(new UpstreamSource(name, url, timeoutMs));
+        }
+        return sources;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The base URL, always ending with a slash
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    @Override
+    public String toString() {
+        return name + "=" + baseUrl;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.rqchallenge.upstream;
+
+/**
+ * Thrown when a call to the external API could not be scheduled within its deadline.
+ */
+public class UpstreamThrottledException extends RuntimeException {
+
+    public UpstreamThrottledException(String message) {
+        super(message);
+    }
+
+}
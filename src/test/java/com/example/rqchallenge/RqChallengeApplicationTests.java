@@ -3,6 +3,7 @@ package com.example.rqchallenge;
 import com.example.rqchallenge.controller.EmployeeExtController;
 import com.example.rqchallenge.model.Employee;
 import com.example.rqchallenge.model.EmployeeResponse;
+import com.example.rqchallenge.model.RosterSnapshot;
 import com.example.rqchallenge.service.EmployeeService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,13 +15,16 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 
 import java.util.*;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.Mockito.anyList;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -41,6 +45,13 @@ class RqChallengeApplicationTests {
     private List<Employee> employees;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        MvcResult result = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
     @BeforeEach
     public void setup() {
         Employee employee1 = new Employee("1", "John Doe", "50000", "30", "1");
@@ -51,29 +62,55 @@ class RqChallengeApplicationTests {
     @Test
     @DirtiesContext
     public void getAllEmployeesTest() throws Exception {
-        given(employeeService.getAllCachedEmployees()).willReturn(employees);
+        given(employeeService.getRosterSnapshot(any())).willReturn(Optional.of(new RosterSnapshot(1, employees, 0)));
 
         mockMvc.perform(get("/api/v1/employee"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.size()").value(employees.size()));
+                .andExpect(jsonPath("$.size()").value(employees.size()))
+                .andExpect(header().string("X-Roster-Version", RosterSnapshot.versionTag(1)));
+    }
+
+    @Test
+    @DirtiesContext
+    public void getAllEmployeesPinnedVersionGoneTest() throws Exception {
+        given(employeeService.getRosterSnapshot(7L)).willReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/employee").header("X-Roster-Version", RosterSnapshot.versionTag(7)))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    public void getAllEmployeesForeignVersionGoneTest() throws Exception {
+        mockMvc.perform(get("/api/v1/employee").header("X-Roster-Version", "0123abcd.1"))
+                .andExpect(status().isGone());
     }
 
     @Test
     @DirtiesContext
     public void getAllEmployees_ServerError() throws Exception {
         // Simulate an exception thrown by the service
-        given(employeeService.getAllCachedEmployees()).willThrow(new RuntimeException("Internal error"));
+        given(employeeService.getRosterSnapshot(any())).willThrow(new RuntimeException("Internal error"));
 
         mockMvc.perform(get("/api/v1/employee"))
                 .andExpect(status().isInternalServerError());
     }
 
 
+    @Test
+    @DirtiesContext
+    public void getAllEmployeesAsCborTest() throws Exception {
+        given(employeeService.getRosterSnapshot(any())).willReturn(Optional.of(new RosterSnapshot(1, employees, 0)));
+
+        mockMvc.perform(get("/api/v1/employee").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+    }
+
     @Test
     public void getAllEmployeesWhenNoneExistTest() throws Exception {
         // Simulate an empty list returned by the service
-        given(employeeService.getAllCachedEmployees()).willReturn(Collections.emptyList());
+        given(employeeService.getRosterSnapshot(any())).willReturn(Optional.of(new RosterSnapshot(1, Collections.emptyList(), 0)));
 
         mockMvc.perform(get("/api/v1/employee"))
                 .andExpect(status().isNotFound());
@@ -87,8 +124,8 @@ class RqChallengeApplicationTests {
                 new Employee("2", "Johnny Bravo", "70000", "35", "2")
         );
 
-        given(employeeService.getAllCachedEmployees()).willReturn(mockEmployees);
-        given(employeeService.getFilteredEmployees(eq(searchString), anyList()))
+        given(employeeService.getRosterSnapshot(any())).willReturn(Optional.of(new RosterSnapshot(1, mockEmployees, 0)));
+        given(employeeService.getFilteredEmployees(eq(searchString), any(RosterSnapshot.class)))
                 .willReturn(mockEmployees);
 
         mockMvc.perform(get("/api/v1/employee/search/" + searchString))
@@ -103,8 +140,8 @@ class RqChallengeApplicationTests {
         String searchString = "Unknown";
         List<Employee> emptyList = Collections.emptyList();
 
-        given(employeeService.getAllCachedEmployees()).willReturn(emptyList);
-        given(employeeService.getFilteredEmployees(eq(searchString), anyList()))
+        given(employeeService.getRosterSnapshot(any())).willReturn(Optional.of(new RosterSnapshot(1, emptyList, 0)));
+        given(employeeService.getFilteredEmployees(eq(searchString), any(RosterSnapshot.class)))
                 .willReturn(emptyList);
 
         mockMvc.perform(get("/api/v1/employee/search/" + searchString))
@@ -114,7 +151,7 @@ class RqChallengeApplicationTests {
     @Test
     public void getEmployeesByNameSearch_ServerError() throws Exception {
         String searchString = "test";
-        given(employeeService.getAllCachedEmployees()).willThrow(new RuntimeException("Internal error"));
+        given(employeeService.getRosterSnapshot(any())).willThrow(new RuntimeException("Internal error"));
 
         mockMvc.perform(get("/api/v1/employee/search/" + searchString))
                 .andExpect(status().isInternalServerError());
@@ -129,7 +166,7 @@ class RqChallengeApplicationTests {
 
         given(employeeExtController.getEmployeeById(employeeId)).willReturn(new EmployeeResponse("200", List.of(employee), null));
 
-        mockMvc.perform(get("/api/v1/employee/" + employeeId))
+        performAsync(get("/api/v1/employee/" + employeeId))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.id").value(employeeId));
@@ -142,7 +179,7 @@ class RqChallengeApplicationTests {
 
         given(employeeExtController.getEmployeeById(employeeId)).willReturn(mockResponse);
 
-        mockMvc.perform(get("/api/v1/employee/" + employeeId))
+        performAsync(get("/api/v1/employee/" + employeeId))
                 .andExpect(status().isNotFound());
     }
 
@@ -151,7 +188,7 @@ class RqChallengeApplicationTests {
         String employeeId = "3";
         given(employeeExtController.getEmployeeById(employeeId)).willReturn(new EmployeeResponse("500", Collections.emptyList(), null));
 
-        mockMvc.perform(get("/api/v1/employee/" + employeeId))
+        performAsync(get("/api/v1/employee/" + employeeId))
                 .andExpect(status().isInternalServerError());
     }
 
@@ -162,7 +199,7 @@ class RqChallengeApplicationTests {
         mockResponse.setStatus("200");
         mockResponse.setMessage("80000");
 
-        given(employeeService.getAllCachedEmployees()).willReturn(employees);
+        given(employeeService.getRosterSnapshot(any())).willReturn(Optional.of(new RosterSnapshot(1, employees, 0)));
         given(employeeService.filterHighestSalary(employees)).willReturn(Optional.of(80000));
 
         // Perform the request and assert the results
@@ -174,7 +211,7 @@ class RqChallengeApplicationTests {
     @Test
     public void getHighestSalary_NoEmployeesFound() throws Exception {
         // Mock the service call with an empty response
-        given(employeeService.getAllCachedEmployees()).willReturn(Collections.emptyList());
+        given(employeeService.getRosterSnapshot(any())).willReturn(Optional.of(new RosterSnapshot(1, Collections.emptyList(), 0)));
 
         // Perform the request and assert the results
         mockMvc.perform(get("/api/v1/employee/highestSalary"))
@@ -184,7 +221,7 @@ class RqChallengeApplicationTests {
     @Test
     public void getHighestSalary_InternalServerError() throws Exception {
         // Force an exception when the service method is called
-        given(employeeService.getAllCachedEmployees()).willThrow(new RuntimeException("Internal server error"));
+        given(employeeService.getRosterSnapshot(any())).willThrow(new RuntimeException("Internal server error"));
 
         // Perform the request and assert the results
         mockMvc.perform(get("/api/v1/employee/highestSalary"))
@@ -198,7 +235,7 @@ class RqChallengeApplicationTests {
         mockResponse.setStatus("200");
         mockResponse.setMessage("Alice,Bob,Charlie");
 
-        given(employeeService.getAllCachedEmployees()).willReturn(employees);
+        given(employeeService.getRosterSnapshot(any())).willReturn(Optional.of(new RosterSnapshot(1, employees, 0)));
         given(employeeService.getTopTenNames(employees)).willReturn(Arrays.asList("Alice,Bob,Charlie".split(",")));
 
         // Perform request and assert results
@@ -210,7 +247,7 @@ class RqChallengeApplicationTests {
     @Test
     public void getTopTenHighestEarningEmployeeNames_NoEmployeesFound() throws Exception {
         // Mock the service call with an empty response
-        given(employeeService.getAllCachedEmployees()).willReturn(Collections.emptyList());
+        given(employeeService.getRosterSnapshot(any())).willReturn(Optional.of(new RosterSnapshot(1, Collections.emptyList(), 0)));
 
         // Perform request and assert results
         mockMvc.perform(get("/api/v1/employee/topTenHighestEarningEmployeeNames"))
@@ -220,7 +257,7 @@ class RqChallengeApplicationTests {
     @Test
     public void getTopTenHighestEarningEmployeeNames_InternalServerError() throws Exception {
         // Force an exception when the service method is called
-        given(employeeService.getAllCachedEmployees()).willThrow(new RuntimeException("Internal server error"));
+        given(employeeService.getRosterSnapshot(any())).willThrow(new RuntimeException("Internal server error"));
 
         // Perform request and assert results
         mockMvc.perform(get("/api/v1/employee/topTenHighestEarningEmployeeNames"))
@@ -249,7 +286,7 @@ class RqChallengeApplicationTests {
         String employeeJson = objectMapper.writeValueAsString(employeeInput);
 
         // Perform request and assert results
-        mockMvc.perform(post("/api/v1/employee")
+        performAsync(post("/api/v1/employee")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(employeeJson))
                 .andExpect(status().isCreated())
@@ -274,7 +311,7 @@ class RqChallengeApplicationTests {
         String employeeJson = objectMapper.writeValueAsString(employeeInput);
 
         // Perform request and assert results
-        mockMvc.perform(post("/api/v1/employee")
+        performAsync(post("/api/v1/employee")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(employeeJson))
                 .andExpect(status().isInternalServerError());
@@ -289,7 +326,7 @@ class RqChallengeApplicationTests {
 
         given(employeeExtController.deleteEmployeeById(employeeId)).willReturn(mockResponse);
 
-        mockMvc.perform(delete("/api/v1/employee/" + employeeId))
+        performAsync(delete("/api/v1/employee/" + employeeId))
                 .andExpect(status().isOk())
                 .andExpect(content().string("Employee deleted successfully"));
     }
@@ -303,7 +340,7 @@ class RqChallengeApplicationTests {
 
         given(employeeExtController.deleteEmployeeById(employeeId)).willReturn(mockResponse);
 
-        mockMvc.perform(delete("/api/v1/employee/" + employeeId))
+        performAsync(delete("/api/v1/employee/" + employeeId))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("Employee not found"));
     }
@@ -314,8 +351,14 @@ class RqChallengeApplicationTests {
 
         given(employeeExtController.deleteEmployeeById(employeeId)).willReturn(new EmployeeResponse("500", Collections.emptyList(), null));
 
-        mockMvc.perform(delete("/api/v1/employee/" + employeeId))
+        performAsync(delete("/api/v1/employee/" + employeeId))
                 .andExpect(status().isInternalServerError());
     }
 
+    @Test
+    public void suggestEmployees_PrefixTooShort() throws Exception {
+        mockMvc.perform(get("/api/v1/employee/suggest").param("prefix", "j"))
+                .andExpect(status().isBadRequest());
+    }
+
 }
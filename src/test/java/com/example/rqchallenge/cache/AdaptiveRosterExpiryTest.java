@@ -0,0 +1,70 @@
+package com.example.rqchallenge.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveRosterExpiryTest {
+
+    private final AtomicLong now = new AtomicLong(1);
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveRosterExpiry expiry;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        expiry = new AdaptiveRosterExpiry(5000, 600000, 60000, 0.2, 3600000, meterRegistry, now::get);
+    }
+
+    private void refreshAfter(long millis, boolean changed) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        expiry.recordRefresh(changed);
+    }
+
+    @Test
+    public void testUnchangedRefreshes_GrowToMax() {
+        expiry.recordRefresh(true);
+        assertEquals(60000, expiry.getTtlMillis());
+
+        refreshAfter(60000, false);
+
+        assertEquals(600000, expiry.getTtlMillis());
+        assertEquals(600, meterRegistry.get("roster.cache.ttl").gauge().value());
+    }
+
+    @Test
+    public void testFrequentChanges_ShrinkTtl() {
+        expiry.recordRefresh(true);
+        for (int i = 0; i < 10; i++) {
+            refreshAfter(60000, true);
+        }
+
+        // One change per minute and 0.2 changes per TTL give a TTL of about 12 seconds
+        assertEquals(12000, expiry.getTtlMillis(), 500);
+        assertEquals(60, expiry.getChangesPerHour(), 1);
+        assertEquals(10, meterRegistry.get("roster.refresh").tag("changed", "true").counter().count());
+    }
+
+    @Test
+    public void testBatchOfWrites_ShrinksTtlToMin() {
+        expiry.recordRefresh(true);
+        for (int i = 0; i < 20; i++) {
+            refreshAfter(600000, false);
+        }
+        assertEquals(600000, expiry.getTtlMillis());
+
+        for (int i = 0; i < 400; i++) {
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+            expiry.recordLocalWrite();
+        }
+
+        assertEquals(5000, expiry.getTtlMillis());
+        assertEquals(5000, TimeUnit.NANOSECONDS.toMillis(expiry.expireAfterCreate("key", "value", 0)));
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.example.rqchallenge.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+
+    private static final int KEYS = 30000;
+
+    @Test
+    public void testOwner_BalancedAcrossMembers() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("http://localhost:8080", "http://localhost:8081", "http://localhost:8082"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.owner(Integer.toString(i)), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(Math.abs(count - KEYS / 3) < KEYS / 3 * 0.25, "unbalanced: " + counts));
+    }
+
+    @Test
+    public void testOwner_AddingMemberOnlyMovesKeysToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("http://localhost:8080", "http://localhost:8081", "http://localhost:8082"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("http://localhost:8080", "http://localhost:8081", "http://localhost:8082", "http://localhost:8083"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = Integer.toString(i);
+            if (!before.owner(key).equals(after.owner(key))) {
+                assertEquals("http://localhost:8083", after.owner(key));
+                moved++;
+            }
+        }
+        // Ideally a quarter of the keys move to the new member
+        assertTrue(moved > KEYS / 4 * 0.75 && moved < KEYS / 4 * 1.25, "moved " + moved);
+    }
+
+    @Test
+    public void testOwner_IndependentOfMemberOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 16);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("c", "a", "b"), 16);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.owner(Integer.toString(i)), reordered.owner(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    public void testClusterMembership_SelfMustBeMember() {
+        assertThrows(IllegalArgumentException.class, () -> new ClusterMembership("http://localhost:8080", "http://localhost:9090", 128));
+        assertFalse(new ClusterMembership("", "", 128).isEnabled());
+        assertTrue(new ClusterMembership("", "", 128).isLocal("42"));
+    }
+
+}
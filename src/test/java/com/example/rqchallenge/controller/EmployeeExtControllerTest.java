@@ -1,27 +1,44 @@
 package com.example.rqchallenge.controller;
 
+import com.example.rqchallenge.cache.AdaptiveRosterExpiry;
+import com.example.rqchallenge.cache.EmployeeCaches;
+import com.example.rqchallenge.cluster.ClusterMembership;
+import com.example.rqchallenge.model.CreateEmployeeResponse;
 import com.example.rqchallenge.model.Employee;
 import com.example.rqchallenge.model.EmployeeResponse;
+import com.example.rqchallenge.service.RosterDeltaDetector;
+import com.example.rqchallenge.service.RosterDeltaListener;
+import com.example.rqchallenge.upstream.HedgedRequestExecutor;
+import com.example.rqchallenge.upstream.UpstreamFederation;
+import com.example.rqchallenge.upstream.UpstreamScheduler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class EmployeeExtControllerTest {
@@ -40,24 +57,42 @@ class EmployeeExtControllerTest {
 
     private final String externalApiUrl = "http://example.com/api/";
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     private List<Employee> mockEmployees = null;
 
     @BeforeEach
     public void setUp() {
-        employeeExtController = new EmployeeExtController(restTemplate, externalApiUrl, cacheManager);
+        employeeExtController = new EmployeeExtController(restTemplate, externalApiUrl, cacheManager,
+                new UpstreamScheduler(100, 1, 100, 100, 1000, 0, 10),
+                new HedgedRequestExecutor(false, 0.1, 5, 20, 2000, 0.95, null, new SimpleMeterRegistry()),
+                new RosterDeltaDetector(new StaticListableBeanFactory().getBeanProvider(RosterDeltaListener.class), new ClusterMembership("", "", 128)),
+                objectMapper, new AdaptiveRosterExpiry(5000, 600000, 60000, 0.2, 3600000, new SimpleMeterRegistry()),
+                new UpstreamFederation(externalApiUrl, "", 3000, 300000, "", null));
         mockEmployees = new ArrayList<>();
         mockEmployees.add(new Employee("1", "John Doe", "50000", "30", ""));
         mockEmployees.add(new Employee("2", "Jane Smith", "60000", "35", ""));
     }
 
+    private byte[] rosterBody() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new EmployeeResponse("success", mockEmployees, "Fetched successfully"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpHeaders sentHeaders(int call) {
+        ArgumentCaptor<HttpEntity<Void>> request = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, atLeast(call)).exchange(eq(externalApiUrl + "employees"), eq(HttpMethod.GET), request.capture(), eq(byte[].class));
+        return request.getAllValues().get(call - 1).getHeaders();
+    }
+
     @Test
-    public void testGetAllEmployeesFromApi_Success() {
+    public void testGetAllEmployeesFromApi_Success() throws JsonProcessingException {
         // Prepare mock response
-        when(cacheManager.getCache("employeeCache")).thenReturn(cache);
+        when(cacheManager.getCache(EmployeeCaches.ROSTER)).thenReturn(cache);
 
         EmployeeResponse mockResponse = new EmployeeResponse("success", Collections.singletonList(mockEmployees.get(0)), "Fetched successfully");
-        when(restTemplate.getForEntity(externalApiUrl + "employees", EmployeeResponse.class))
-                .thenReturn(ResponseEntity.ok(mockResponse));
+        when(restTemplate.exchange(eq(externalApiUrl + "employees"), eq(HttpMethod.GET), any(HttpEntity.class), eq(byte[].class)))
+                .thenReturn(ResponseEntity.ok(objectMapper.writeValueAsBytes(mockResponse)));
 
         // Call service method
         EmployeeResponse response = employeeExtController.getAllEmployeesFromApi();
@@ -69,6 +104,98 @@ class EmployeeExtControllerTest {
         verify(cache).put(anyString(), any());
     }
 
+    @Test
+    public void testGetAllEmployeesFromApi_NotModifiedKeepsRoster() throws JsonProcessingException {
+        when(cacheManager.getCache(EmployeeCaches.ROSTER)).thenReturn(cache);
+        when(restTemplate.exchange(eq(externalApiUrl + "employees"), eq(HttpMethod.GET), any(HttpEntity.class), eq(byte[].class)))
+                .thenReturn(ResponseEntity.ok().eTag("\"v1\"").header(HttpHeaders.LAST_MODIFIED, "Wed, 21 Oct 2026 07:28:00 GMT").body(rosterBody()))
+                .thenReturn(ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+
+        EmployeeResponse first = employeeExtController.getAllEmployeesFromApi();
+        EmployeeResponse second = employeeExtController.getAllEmployeesFromApi();
+
+        assertFalse(sentHeaders(1).containsKey(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("\"v1\"", sentHeaders(2).getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("Wed, 21 Oct 2026 07:28:00 GMT", sentHeaders(2).getFirst(HttpHeaders.IF_MODIFIED_SINCE));
+        assertEquals("success", second.getStatus());
+        assertEquals(2, second.getData().size());
+        assertSame(second.getData(), employeeExtController.getAllEmployeesFromApi().getData());
+        verify(cache, times(3)).put(eq(EmployeeCaches.ROSTER_KEY), same(second.getData()));
+        assertEquals(first.getData(), second.getData());
+    }
+
+    @Test
+    public void testGetAllEmployeesFromApi_IdenticalBodyWithoutValidators() throws JsonProcessingException {
+        when(cacheManager.getCache(EmployeeCaches.ROSTER)).thenReturn(cache);
+        when(restTemplate.exchange(eq(externalApiUrl + "employees"), eq(HttpMethod.GET), any(HttpEntity.class), eq(byte[].class)))
+                .thenReturn(ResponseEntity.ok(rosterBody()));
+
+        employeeExtController.getAllEmployeesFromApi();
+        EmployeeResponse second = employeeExtController.getAllEmployeesFromApi();
+
+        assertTrue(sentHeaders(2).isEmpty());
+        assertEquals("Roster not modified", second.getMessage());
+        assertEquals(2, second.getData().size());
+    }
+
+    @Test
+    public void testGetAllEmployeesFromApi_FederatedMergesAnsweringSources() throws JsonProcessingException {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            EmployeeExtController federated = new EmployeeExtController(restTemplate, externalApiUrl, cacheManager,
+                    new UpstreamScheduler(100, 1, 100, 100, 1000, 0, 10),
+                    new HedgedRequestExecutor(false, 0.1, 5, 20, 2000, 0.95, null, new SimpleMeterRegistry()),
+                    new RosterDeltaDetector(new StaticListableBeanFactory().getBeanProvider(RosterDeltaListener.class), new ClusterMembership("", "", 128)),
+                    objectMapper, new AdaptiveRosterExpiry(5000, 600000, 60000, 0.2, 3600000, new SimpleMeterRegistry()),
+                    new UpstreamFederation(externalApiUrl, "eu=http://eu.example.com/api/,us=http://us.example.com/api/@500", 3000, 300000, "", executor));
+            when(cacheManager.getCache(EmployeeCaches.ROSTER)).thenReturn(cache);
+            when(restTemplate.exchange(eq("http://eu.example.com/api/employees"), eq(HttpMethod.GET), any(), eq(byte[].class)))
+                    .thenReturn(ResponseEntity.ok(rosterBody()));
+            when(restTemplate.exchange(eq("http://us.example.com/api/employees"), eq(HttpMethod.GET), any(), eq(byte[].class)))
+                    .thenThrow(new RuntimeException("Region unavailable"));
+            when(restTemplate.getForEntity("http://us.example.com/api/employee/7", EmployeeResponse.class))
+                    .thenReturn(ResponseEntity.ok(new EmployeeResponse("success",
+                            new ArrayList<>(List.of(new Employee("7", "Bob Brown", "70000", "40", ""))), "Employee found")));
+
+            EmployeeResponse roster = federated.getAllEmployeesFromApi();
+            EmployeeResponse byId = federated.getEmployeeById("us:7");
+
+            assertEquals("success", roster.getStatus());
+            assertEquals(List.of("eu:1", "eu:2"), roster.getData().stream().map(Employee::getId).collect(Collectors.toList()));
+            assertEquals("us:7", byId.getData().get(0).getId());
+            assertEquals("404", federated.getEmployeeById("asia:1").getStatus());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGetAllEmployeesFromApi_FederatedLeavesOutExpiredSourceRoster() throws JsonProcessingException {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            EmployeeExtController federated = new EmployeeExtController(restTemplate, externalApiUrl, cacheManager,
+                    new UpstreamScheduler(100, 1, 100, 100, 1000, 0, 10),
+                    new HedgedRequestExecutor(false, 0.1, 5, 20, 2000, 0.95, null, new SimpleMeterRegistry()),
+                    new RosterDeltaDetector(new StaticListableBeanFactory().getBeanProvider(RosterDeltaListener.class), new ClusterMembership("", "", 128)),
+                    objectMapper, new AdaptiveRosterExpiry(5000, 600000, 60000, 0.2, 3600000, new SimpleMeterRegistry()),
+                    new UpstreamFederation(externalApiUrl, "eu=http://eu.example.com/api/,us=http://us.example.com/api/", 3000, 0, "", executor));
+            when(cacheManager.getCache(EmployeeCaches.ROSTER)).thenReturn(cache);
+            when(restTemplate.exchange(eq("http://eu.example.com/api/employees"), eq(HttpMethod.GET), any(), eq(byte[].class)))
+                    .thenReturn(ResponseEntity.ok(rosterBody()));
+            when(restTemplate.exchange(eq("http://us.example.com/api/employees"), eq(HttpMethod.GET), any(), eq(byte[].class)))
+                    .thenReturn(ResponseEntity.ok(rosterBody()))
+                    .thenThrow(new RuntimeException("Region unavailable"));
+
+            assertEquals(4, federated.getAllEmployeesFromApi().getData().size());
+            EmployeeResponse roster = federated.getAllEmployeesFromApi();
+
+            assertEquals(List.of("eu:1", "eu:2"), roster.getData().stream().map(Employee::getId).collect(Collectors.toList()));
+            assertTrue(roster.getMessage().endsWith("missing us"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void testGetEmployeeById_Success() {
         String id = "123";
@@ -89,7 +216,7 @@ class EmployeeExtControllerTest {
         employeeInput.put("salary", "test");
         employeeInput.put("age", "test");
 
-        when(restTemplate.exchange(eq(externalApiUrl + "create"), eq(HttpMethod.POST), any(HttpEntity.class), eq(EmployeeResponse.class)))
+        when(restTemplate.exchange(eq(externalApiUrl + "create"), eq(HttpMethod.POST), any(HttpEntity.class), eq(CreateEmployeeResponse.class)))
                 .thenReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null));
 
         EmployeeResponse response = employeeExtController.createEmployee(employeeInput);
@@ -120,7 +247,7 @@ class EmployeeExtControllerTest {
                 anyString(),
                 any(),
                 any(),
-                eq(Object.class)))
+                eq(CreateEmployeeResponse.class)))
                 .thenThrow(new RuntimeException("API error"));
 
         EmployeeResponse result = employeeExtController.createEmployee(employeeInput);
@@ -149,16 +276,15 @@ class EmployeeExtControllerTest {
         employeeInput.put("salary", "50000");
         employeeInput.put("age", "30");
 
-        Map<String, Object> responseMap = new HashMap<>();
-        responseMap.put("status", "success");
-        responseMap.put("data", Map.of("name", "John Doe", "salary", "50000", "age", "30", "id", "123"));
+        CreateEmployeeResponse createResponse = new CreateEmployeeResponse("success",
+                new CreateEmployeeResponse.CreatedEmployee("123", "John Doe", "50000", "30"), null);
 
         when(restTemplate.exchange(
                 anyString(),
                 any(),
                 any(),
-                eq(Object.class)))
-                .thenReturn(ResponseEntity.ok(responseMap));
+                eq(CreateEmployeeResponse.class)))
+                .thenReturn(ResponseEntity.ok(createResponse));
 
         EmployeeResponse result = employeeExtController.createEmployee(employeeInput);
 
@@ -0,0 +1,55 @@
+package com.example.rqchallenge.diagnostics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AggregationEventTest {
+
+    @AfterEach
+    public void tearDown() {
+        FlightEvents.setEnabled(false);
+    }
+
+    private List<RecordedEvent> recordAggregation(boolean enabled) throws IOException {
+        FlightEvents.setEnabled(enabled);
+        Path file = Files.createTempFile("aggregation", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(AggregationEvent.class);
+            recording.start();
+            assertEquals(42, AggregationEvent.record("highestSalary", 3, () -> 42));
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("com.example.rqchallenge.Aggregation"))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testRecord_Enabled() throws IOException {
+        List<RecordedEvent> events = recordAggregation(true);
+
+        assertEquals(1, events.size());
+        assertEquals("highestSalary", events.get(0).getString("operation"));
+        assertEquals(3, events.get(0).getInt("rowsScanned"));
+    }
+
+    @Test
+    public void testRecord_Disabled() throws IOException {
+        assertTrue(recordAggregation(false).isEmpty());
+    }
+
+}
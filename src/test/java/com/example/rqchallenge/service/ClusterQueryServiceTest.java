@@ -0,0 +1,94 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.cluster.ClusterMembership;
+import com.example.rqchallenge.cluster.PartitionUnavailableException;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.PartitionAggregates;
+import com.example.rqchallenge.model.RosterSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ClusterQueryServiceTest {
+
+    private static final String SELF = "http://localhost:8080";
+    private static final String PEER = "http://localhost:8081";
+
+    @Mock
+    private EmployeeService employeeService;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private ExecutorService executor;
+    private ClusterQueryService clusterQueryService;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        clusterQueryService = new ClusterQueryService(new ClusterMembership(SELF + "," + PEER, SELF, 128), employeeService,
+                restTemplate, executor, 1000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private void stubLocalPartition() {
+        List<Employee> partition = List.of(
+                new Employee("1", "John Doe", "50000", "30", ""),
+                new Employee("2", "Jane Smith", "90000", "35", ""));
+        when(employeeService.getRosterSnapshot(null)).thenReturn(Optional.of(new RosterSnapshot(3, partition, 0)));
+        when(employeeService.filterHighestSalary(partition)).thenReturn(Optional.of(90000));
+        when(employeeService.getTopEarners(partition, ClusterQueryService.TOP_EARNERS)).thenReturn(List.of(partition.get(1), partition.get(0)));
+    }
+
+    @Test
+    public void testAggregates_MergedAcrossPartitions() {
+        stubLocalPartition();
+        when(restTemplate.getForObject(eq(PEER + ClusterQueryService.PARTITION_PATH + "aggregates"), eq(PartitionAggregates.class)))
+                .thenReturn(new PartitionAggregates(120000, List.of(
+                        new Employee("3", "Bob Brown", "120000", "40", ""),
+                        new Employee("4", "Alice Green", "70000", "28", ""))));
+
+        assertEquals(120000, clusterQueryService.getHighestSalary().get());
+        assertEquals(List.of("Bob Brown", "Jane Smith", "Alice Green", "John Doe"), clusterQueryService.getTopTenNames());
+    }
+
+    @Test
+    public void testAggregates_UnreachablePeerFailsTheRequest() {
+        stubLocalPartition();
+        when(restTemplate.getForObject(eq(PEER + ClusterQueryService.PARTITION_PATH + "aggregates"), eq(PartitionAggregates.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        assertThrows(PartitionUnavailableException.class, () -> clusterQueryService.getHighestSalary());
+    }
+
+    @Test
+    public void testMergeTopEarners_KeepsLimit() {
+        List<Employee> merged = ClusterQueryService.mergeTopEarners(List.of(
+                List.of(new Employee("1", "A", "300", "30", ""), new Employee("2", "B", "100", "30", "")),
+                List.of(new Employee("3", "C", "200", "30", ""))), 2);
+
+        assertEquals(2, merged.size());
+        assertEquals("A", merged.get(0).getEmployeeName());
+        assertEquals("C", merged.get(1).getEmployeeName());
+    }
+
+}
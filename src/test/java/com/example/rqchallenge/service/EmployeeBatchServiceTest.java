@@ -0,0 +1,147 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.cluster.ClusterMembership;
+import com.example.rqchallenge.controller.EmployeeExtController;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeLookupResult;
+import com.example.rqchallenge.model.EmployeeResponse;
+import com.example.rqchallenge.upstream.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeBatchServiceTest {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    @Mock
+    private EmployeeExtController employeeExtController;
+
+    @Mock
+    private ClusterQueryService clusterQueryService;
+
+    private ExecutorService executor;
+
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private EmployeeBatchService employeeBatchService;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(20, 2, 200, 1.5, new SimpleMeterRegistry());
+        employeeBatchService = new EmployeeBatchService(employeeService, employeeExtController, executor, concurrencyLimiter,
+                new ClusterMembership("", "", 128), clusterQueryService, 15000);
+        when(employeeService.getAllCachedEmployees()).thenReturn(Arrays.asList(
+                new Employee("1", "John Doe", "50000", "30", ""),
+                new Employee("2", "Jane Smith", "60000", "35", "")));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testGetEmployeesByIds_AllCached() {
+        List<EmployeeLookupResult> results = employeeBatchService.getEmployeesByIds(Arrays.asList("2", "1"));
+
+        assertEquals(2, results.size());
+        assertEquals("2", results.get(0).getId());
+        assertEquals("Jane Smith", results.get(0).getEmployee().getEmployeeName());
+        assertEquals("1", results.get(1).getId());
+        verifyNoInteractions(employeeExtController);
+    }
+
+    @Test
+    public void testGetEmployeesByIds_MissingIdsFetchedFromApi() {
+        when(employeeExtController.getEmployeeById("3")).thenReturn(new EmployeeResponse("success",
+                Collections.singletonList(new Employee("3", "Bob Brown", "70000", "40", "")), "Employee found"));
+        when(employeeExtController.getEmployeeById("4")).thenReturn(new EmployeeResponse("404", "Not Found"));
+
+        List<EmployeeLookupResult> results = employeeBatchService.getEmployeesByIds(Arrays.asList("3", "1", "4", "3"));
+
+        assertEquals(4, results.size());
+        assertEquals("200", results.get(0).getStatus());
+        assertEquals("Bob Brown", results.get(0).getEmployee().getEmployeeName());
+        assertEquals("200", results.get(1).getStatus());
+        assertEquals("404", results.get(2).getStatus());
+        assertNull(results.get(2).getEmployee());
+        assertEquals("200", results.get(3).getStatus());
+        verify(employeeExtController, times(1)).getEmployeeById("3");
+    }
+
+    @Test
+    public void testGetEmployeesByIds_UpstreamOverloadBacksOffLimit() {
+        when(employeeExtController.getEmployeeById("3")).thenReturn(new EmployeeResponse("503", "Service Unavailable"));
+
+        List<EmployeeLookupResult> results = employeeBatchService.getEmployeesByIds(Collections.singletonList("3"));
+
+        assertEquals("503", results.get(0).getStatus());
+        assertTrue(concurrencyLimiter.getLimit() < 20);
+        assertEquals(0, concurrencyLimiter.getInFlight());
+    }
+
+    @Test
+    public void testGetEmployeesByIds_SlowIdsTimeOutAtDeadline() {
+        when(employeeExtController.getEmployeeById("3")).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return new EmployeeResponse("success",
+                    Collections.singletonList(new Employee("3", "Bob Brown", "70000", "40", "")), "Employee found");
+        });
+        when(employeeExtController.getEmployeeById("4")).thenReturn(new EmployeeResponse("404", "Not Found"));
+        EmployeeBatchService withDeadline = new EmployeeBatchService(employeeService, employeeExtController, executor,
+                concurrencyLimiter, new ClusterMembership("", "", 128), clusterQueryService, 100);
+
+        long start = System.nanoTime();
+        List<EmployeeLookupResult> results = withDeadline.getEmployeesByIds(Arrays.asList("1", "3", "4"));
+
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        assertEquals("200", results.get(0).getStatus());
+        assertEquals("504", results.get(1).getStatus());
+        assertNull(results.get(1).getEmployee());
+        assertEquals("404", results.get(2).getStatus());
+    }
+
+    @Test
+    public void testGetEmployeesByIds_ClusterAsksOwnersOfRemoteIds() {
+        ClusterMembership clusterMembership = mock(ClusterMembership.class);
+        when(clusterMembership.isLocal(anyString())).thenAnswer(invocation -> "1".equals(invocation.getArgument(0)));
+        when(clusterMembership.ownerOf(anyString())).thenReturn("http://peer");
+        when(clusterQueryService.getEmployeeFromOwner("http://peer", "2"))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(new Employee("2", "Jane Smith", "61000", "35", ""))));
+        when(clusterQueryService.getEmployeeFromOwner("http://peer", "5"))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        when(clusterQueryService.getEmployeeFromOwner("http://peer", "6"))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Peer down")));
+        EmployeeBatchService clustered = new EmployeeBatchService(employeeService, employeeExtController, executor,
+                concurrencyLimiter, clusterMembership, clusterQueryService, 15000);
+
+        List<EmployeeLookupResult> results = clustered.getEmployeesByIds(Arrays.asList("1", "2", "5", "6"));
+
+        assertEquals("John Doe", results.get(0).getEmployee().getEmployeeName());
+        assertEquals("61000", results.get(1).getEmployee().getEmployeeSalary());
+        assertEquals("404", results.get(2).getStatus());
+        assertEquals("503", results.get(3).getStatus());
+        verifyNoInteractions(employeeExtController);
+    }
+
+}
@@ -0,0 +1,211 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeChangeEvent;
+import com.example.rqchallenge.model.RosterChange;
+import com.example.rqchallenge.model.RosterDelta;
+import com.example.rqchallenge.model.RosterSnapshot;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeChangeFeedTest {
+
+    private final Employee john = new Employee("1", "John Doe", "50000", "30", "");
+    private final Employee jane = new Employee("2", "Jane Smith", "60000", "35", "");
+
+    @Test
+    public void testOnRosterDelta_InitialLoadIsNotAChange() {
+        EmployeeChangeFeed feed = feed(10, 10);
+
+        feed.onRosterDelta(new RosterDelta(Arrays.asList(john, jane), Collections.emptyList(), Collections.emptyList()),
+                Arrays.asList(john, jane));
+
+        assertTrue(feed.eventsAfter(0).isEmpty());
+    }
+
+    @Test
+    public void testEventsAfter_ResumesFromLastEventId() {
+        EmployeeChangeFeed feed = feed(10, 10);
+        feed.onRosterDelta(new RosterDelta(Collections.singletonList(jane), Collections.emptyList(), Collections.emptyList()),
+                Collections.singletonList(jane));
+        feed.onRosterChange(new RosterChange(RosterChange.Type.CREATED, "1", john, 1, "node"));
+        feed.onRosterDelta(new RosterDelta(Collections.emptyList(), Collections.singletonList(john), Collections.singletonList(jane)),
+                Collections.singletonList(jane));
+
+        List<EmployeeChangeEvent> events = feed.eventsAfter(1);
+
+        assertEquals(2, events.size());
+        assertEquals(EmployeeChangeEvent.Type.UPDATED, events.get(0).getType());
+        assertEquals(EmployeeChangeEvent.Type.DELETED, events.get(1).getType());
+        assertEquals(3, events.get(1).getId());
+    }
+
+    @Test
+    public void testOnRosterDelta_WriteAnnouncedBeforeRefreshNotRepeated() {
+        EmployeeChangeFeed feed = feed(10, 10);
+        feed.onRosterDelta(new RosterDelta(Collections.singletonList(jane), Collections.emptyList(), Collections.emptyList()),
+                Collections.singletonList(jane));
+        feed.onRosterChange(new RosterChange(RosterChange.Type.CREATED, "1", john, 1, "node"));
+
+        feed.onRosterDelta(new RosterDelta(Collections.singletonList(john), Collections.emptyList(), Collections.emptyList()),
+                Arrays.asList(jane, john));
+
+        List<EmployeeChangeEvent> events = feed.eventsAfter(0);
+        assertEquals(1, events.size());
+        assertEquals(EmployeeChangeEvent.Type.CREATED, events.get(0).getType());
+    }
+
+    @Test
+    public void testSubscribe_ReplayLargerThanQueueSendsReset() {
+        EmployeeChangeFeed feed = feed(100, 4);
+        for (int i = 0; i < 20; i++) {
+            feed.onRosterChange(new RosterChange(RosterChange.Type.DELETED, Integer.toString(i), null, i, "node"));
+        }
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(RosterSnapshot.versionTag(1), emitter);
+
+        // A replay overflowing the queue would have disconnected the subscriber right away
+        assertEquals(1, feed.getSubscriberCount());
+        awaitTrue(() -> !emitter.sent.isEmpty());
+        assertEquals(1, emitter.sent.size());
+        assertTrue(emitter.sent.get(0).contains("event:reset"));
+        assertTrue(emitter.sent.get(0).contains("id:" + RosterSnapshot.versionTag(20)));
+        feed.shutdown();
+    }
+
+    @Test
+    public void testSubscribe_ResumesFromEpochPrefixedId() {
+        EmployeeChangeFeed feed = feed(10, 10);
+        feed.onRosterChange(new RosterChange(RosterChange.Type.DELETED, "1", null, 1, "node"));
+        feed.onRosterChange(new RosterChange(RosterChange.Type.DELETED, "2", null, 2, "node"));
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(RosterSnapshot.versionTag(1), emitter);
+
+        awaitTrue(() -> !emitter.sent.isEmpty());
+        assertEquals(1, emitter.sent.size());
+        assertTrue(emitter.sent.get(0).contains("id:" + RosterSnapshot.versionTag(2)));
+        assertTrue(emitter.sent.get(0).contains("event:deleted"));
+        feed.shutdown();
+    }
+
+    @Test
+    public void testSubscribe_IdFromAnotherEpochSendsReset() {
+        EmployeeChangeFeed feed = feed(10, 10);
+        feed.onRosterChange(new RosterChange(RosterChange.Type.DELETED, "1", null, 1, "node"));
+        feed.onRosterChange(new RosterChange(RosterChange.Type.DELETED, "2", null, 2, "node"));
+
+        RecordingEmitter previousRun = new RecordingEmitter();
+        RecordingEmitter bareId = new RecordingEmitter();
+        feed.subscribe("0000abcd.1", previousRun);
+        feed.subscribe("1", bareId);
+
+        awaitTrue(() -> !previousRun.sent.isEmpty() && !bareId.sent.isEmpty());
+        assertTrue(previousRun.sent.get(0).contains("event:reset"));
+        assertTrue(bareId.sent.get(0).contains("event:reset"));
+        feed.shutdown();
+    }
+
+    @Test
+    public void testStalledSubscriber_DisconnectedWithoutBlockingOthers() {
+        EmployeeChangeFeed feed = new EmployeeChangeFeed(10, 10, 60000, 100, 60000, 1);
+        StalledEmitter stalled = new StalledEmitter();
+        RecordingEmitter healthy = new RecordingEmitter();
+        feed.subscribe(null, stalled);
+        feed.onRosterChange(new RosterChange(RosterChange.Type.DELETED, "0", null, 0, "node"));
+        awaitTrue(() -> stalled.sending);
+        feed.subscribe(null, healthy);
+
+        for (int i = 1; i <= 3; i++) {
+            feed.onRosterChange(new RosterChange(RosterChange.Type.DELETED, Integer.toString(i), null, i, "node"));
+        }
+
+        // The only dispatcher thread is busy with the stalled send until it times out
+        awaitTrue(() -> healthy.sent.size() == 3);
+        assertTrue(stalled.interrupted);
+        assertEquals(1, feed.getSubscriberCount());
+        feed.shutdown();
+    }
+
+    @Test
+    public void testSendHeartbeats_IdleSubscriberGetsComment() {
+        EmployeeChangeFeed feed = feed(10, 10);
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(null, emitter);
+
+        feed.sendHeartbeats();
+
+        awaitTrue(() -> !emitter.sent.isEmpty());
+        assertEquals(":heartbeat\n\n", emitter.sent.get(0));
+        feed.shutdown();
+    }
+
+    @Test
+    public void testEventsAfter_GapBeyondLogCapacity() {
+        EmployeeChangeFeed feed = feed(2, 10);
+        for (int i = 0; i < 5; i++) {
+            feed.onRosterChange(new RosterChange(RosterChange.Type.DELETED, Integer.toString(i), null, i, "node"));
+        }
+
+        assertNull(feed.eventsAfter(1));
+        assertEquals(2, feed.eventsAfter(3).size());
+    }
+
+    private static EmployeeChangeFeed feed(int logCapacity, int subscriberQueueCapacity) {
+        return new EmployeeChangeFeed(logCapacity, subscriberQueueCapacity, 60000, 1000, 60000, 2);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Condition not met in time");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(data -> text.append(data.getData()));
+            sent.add(text.toString());
+        }
+    }
+
+    private static class StalledEmitter extends SseEmitter {
+        private final CountDownLatch never = new CountDownLatch(1);
+        private volatile boolean sending;
+        private volatile boolean interrupted;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending = true;
+            try {
+                never.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                throw new InterruptedIOException("Send interrupted");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeExport;
+import com.example.rqchallenge.model.RosterDelta;
+import com.example.rqchallenge.model.RosterFileFormat;
+import com.example.rqchallenge.model.RosterSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeExportServiceTest {
+
+    @TempDir
+    Path baseDirectory;
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private RosterSnapshotStore store;
+    private EmployeeExportService exportService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        store = new RosterSnapshotStore(60000, 1, now::get);
+        exportService = new EmployeeExportService(store, new ObjectMapper(), baseDirectory.toString(), 1000, now::get);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        exportService.shutdown();
+    }
+
+    private RosterSnapshot publish(Employee... employees) {
+        store.onRosterDelta(new RosterDelta(List.of(employees), Collections.emptyList(), Collections.emptyList()), List.of(employees));
+        return store.current();
+    }
+
+    @Test
+    public void testExport_CsvQuotesSpecialCharacters() throws IOException {
+        RosterSnapshot snapshot = publish(new Employee("1", "Doe, \"Johnny\"", "50000", "30", ""));
+
+        EmployeeExport export = exportService.export(snapshot, RosterFileFormat.CSV);
+
+        String content = new String(Files.readAllBytes(export.getPath()), StandardCharsets.UTF_8);
+        assertEquals("id,employee_name,employee_salary,employee_age,profile_image\n"
+                + "1,\"Doe, \"\"Johnny\"\"\",50000,30,\n", content);
+        assertEquals(content.getBytes(StandardCharsets.UTF_8).length, export.getSize());
+    }
+
+    @Test
+    public void testExport_NdjsonOneEmployeePerLine() throws IOException {
+        RosterSnapshot snapshot = publish(new Employee("1", "John Doe", "50000", "30", ""),
+                new Employee("2", "Jane Smith", "60000", "35", ""));
+
+        EmployeeExport export = exportService.export(snapshot, RosterFileFormat.NDJSON);
+
+        List<String> lines = Files.readAllLines(export.getPath());
+        assertEquals(2, lines.size());
+        assertEquals("Jane Smith", new ObjectMapper().readValue(lines.get(1), Employee.class).getEmployeeName());
+    }
+
+    @Test
+    public void testExport_SameVersionReusedAndUnretainedDeleted() {
+        RosterSnapshot first = publish(new Employee("1", "John Doe", "50000", "30", ""));
+        EmployeeExport export = exportService.export(first, RosterFileFormat.CSV);
+        assertSame(export, exportService.export(first, RosterFileFormat.CSV));
+        exportService.release(export);
+        exportService.release(export);
+
+        publish(new Employee("1", "John Doe", "55000", "30", ""));
+        RosterSnapshot third = publish(new Employee("1", "John Doe", "60000", "30", ""));
+        now.addAndGet(1001);
+        exportService.export(third, RosterFileFormat.CSV);
+
+        assertFalse(Files.exists(export.getPath()));
+    }
+
+    @Test
+    public void testExport_UnretainedFileKeptWhileHeld() {
+        RosterSnapshot first = publish(new Employee("1", "John Doe", "50000", "30", ""));
+        EmployeeExport export = exportService.export(first, RosterFileFormat.CSV);
+
+        publish(new Employee("1", "John Doe", "55000", "30", ""));
+        RosterSnapshot third = publish(new Employee("1", "John Doe", "60000", "30", ""));
+        now.addAndGet(1001);
+        exportService.export(third, RosterFileFormat.CSV);
+        assertTrue(Files.exists(export.getPath()));
+
+        exportService.release(export);
+        // Still within the grace period after the release, a sendfile transfer may not have opened the file yet
+        exportService.export(third, RosterFileFormat.CSV);
+        assertTrue(Files.exists(export.getPath()));
+
+        now.addAndGet(1001);
+        exportService.export(third, RosterFileFormat.CSV);
+        assertFalse(Files.exists(export.getPath()));
+    }
+
+    @Test
+    public void testExport_ETagFollowsContent() {
+        Employee john = new Employee("1", "John Doe", "50000", "30", "");
+        String first = exportService.export(publish(john), RosterFileFormat.CSV).getETag();
+        String changed = exportService.export(publish(new Employee("1", "John Doe", "55000", "30", "")), RosterFileFormat.CSV).getETag();
+        String reverted = exportService.export(publish(john), RosterFileFormat.CSV).getETag();
+
+        assertNotEquals(first, changed);
+        assertEquals(first, reverted);
+    }
+
+}
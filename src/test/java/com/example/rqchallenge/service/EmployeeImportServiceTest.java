@@ -0,0 +1,138 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.controller.EmployeeExtController;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeResponse;
+import com.example.rqchallenge.model.ImportJobStatus;
+import com.example.rqchallenge.model.RosterFileFormat;
+import com.example.rqchallenge.upstream.UpstreamPriority;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeImportServiceTest {
+
+    @Mock
+    private EmployeeExtController employeeExtController;
+
+    @Mock
+    private RosterChangeBroadcaster rosterChangeBroadcaster;
+
+    @TempDir
+    Path directory;
+
+    private ExecutorService rowExecutor;
+    private EmployeeImportService importService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        rowExecutor = Executors.newFixedThreadPool(2);
+        importService = new EmployeeImportService(employeeExtController, rosterChangeBroadcaster, new ObjectMapper(),
+                new SimpleMeterRegistry(), rowExecutor, directory.toString(), 2, 0, 1);
+        lenient().when(employeeExtController.createEmployee(any(), eq(UpstreamPriority.BACKGROUND))).thenAnswer(invocation -> {
+            Map<String, Object> input = invocation.getArgument(0);
+            return new EmployeeResponse("201", Collections.singletonList(new Employee("id-" + input.get("name"),
+                    (String) input.get("name"), (String) input.get("salary"), (String) input.get("age"), "")), "Employee created successfully");
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        importService.shutdown();
+        rowExecutor.shutdownNow();
+    }
+
+    private ImportJobStatus awaitFinished(String jobId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ImportJobStatus status = importService.getStatus(jobId).orElseThrow();
+            if (status.getState() == ImportJobStatus.State.COMPLETED || status.getState() == ImportJobStatus.State.FAILED) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        fail("Import job did not finish");
+        return null;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testImport_CsvRowsCreatedAndInvalidRowsReported() throws Exception {
+        String csv = "employee_name,employee_salary,employee_age\n"
+                + "\"Doe, John\",50000,30\n"
+                + "Jane Smith,not a number,35\n"
+                + "Bob Brown,70000,40\n";
+
+        ImportJobStatus queued = importService.submit(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                "employees.csv", RosterFileFormat.CSV);
+        ImportJobStatus status = awaitFinished(queued.getId());
+
+        assertEquals(ImportJobStatus.State.COMPLETED, status.getState());
+        assertEquals(3, status.getRowsRead());
+        assertEquals(2, status.getSucceeded());
+        assertEquals(1, status.getFailed());
+        assertEquals(3, status.getCheckpointedRows());
+        assertTrue(status.getErrors().get(0).startsWith("Row 1: Invalid salary"));
+        verify(employeeExtController).createEmployee(argThat(input -> "Doe, John".equals(input.get("name"))), eq(UpstreamPriority.BACKGROUND));
+        ArgumentCaptor<List<Employee>> created = ArgumentCaptor.forClass(List.class);
+        verify(rosterChangeBroadcaster, atLeastOnce()).employeesCreated(created.capture());
+        assertEquals(2, created.getAllValues().stream().mapToInt(List::size).sum());
+        verify(rosterChangeBroadcaster, never()).employeeCreated(any());
+        assertFalse(Files.exists(directory.resolve(queued.getId() + ".upload")));
+    }
+
+    @Test
+    public void testResume_StartsAtCheckpoint() throws Exception {
+        Files.writeString(directory.resolve("job-1.upload"), "{\"name\":\"John Doe\",\"salary\":\"50000\",\"age\":\"30\"}\n"
+                + "{\"name\":\"Jane Smith\",\"salary\":\"60000\",\"age\":\"35\"}\n"
+                + "{\"employee_name\":\"Bob Brown\",\"employee_salary\":70000,\"employee_age\":40}\n");
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("id", "job-1");
+        checkpoint.setProperty("fileName", "employees.ndjson");
+        checkpoint.setProperty("format", "NDJSON");
+        checkpoint.setProperty("createdAtMillis", "1000");
+        checkpoint.setProperty("state", "RUNNING");
+        checkpoint.setProperty("checkpointedRows", "2");
+        checkpoint.setProperty("succeeded", "2");
+        checkpoint.setProperty("failed", "0");
+        try (OutputStream out = Files.newOutputStream(directory.resolve("job-1.checkpoint"))) {
+            checkpoint.store(out, null);
+        }
+
+        importService.resumeInterrupted();
+        ImportJobStatus status = awaitFinished("job-1");
+
+        assertEquals(ImportJobStatus.State.COMPLETED, status.getState());
+        assertEquals(3, status.getSucceeded());
+        verify(employeeExtController, times(1)).createEmployee(any(), eq(UpstreamPriority.BACKGROUND));
+        verify(employeeExtController).createEmployee(argThat(input -> "Bob Brown".equals(input.get("name"))
+                && "70000".equals(input.get("salary"))), eq(UpstreamPriority.BACKGROUND));
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeQuery;
+import com.example.rqchallenge.model.RosterDelta;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeQueryIndexTest {
+
+    private static final String[] NAMES = {"John Doe", "Jane Smith", "Ann Annabel", "Bob Brown", "Dana Scully"};
+
+    @Test
+    public void testQuery_CombinedPredicates() {
+        EmployeeQueryIndex index = EmployeeQueryIndex.build(Arrays.asList(
+                new Employee("1", "John Doe", "50000", "30", ""),
+                new Employee("2", "Jane Smith", "120000", "35", ""),
+                new Employee("3", "Ann Annabel", "150000", "40", ""),
+                new Employee("4", "Dana Scully", "110000", "45", ""),
+                new Employee("5", "Joanna Bean", "n/a", "33", "")));
+
+        List<Employee> result = index.query(new EmployeeQuery(30, 40, 100001, null, "an", EmployeeQuery.Sort.SALARY_DESC, 10));
+
+        assertEquals(Arrays.asList("3", "2"), result.stream().map(Employee::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testQuery_MatchesFullScanAcrossBuckets() {
+        Random random = new Random(42);
+        List<Employee> roster = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            roster.add(new Employee(Integer.toString(i), NAMES[random.nextInt(NAMES.length)] + " " + i,
+                    Integer.toString(20000 + random.nextInt(200000)), Integer.toString(18 + random.nextInt(50)), ""));
+        }
+        EmployeeQueryIndex index = EmployeeQueryIndex.build(roster);
+
+        for (int run = 0; run < 50; run++) {
+            int minAge = 18 + random.nextInt(50);
+            int maxAge = minAge + random.nextInt(20);
+            int minSalary = 20000 + random.nextInt(200000);
+            EmployeeQuery query = new EmployeeQuery(minAge, maxAge, minSalary, null, run % 2 == 0 ? "an" : null,
+                    EmployeeQuery.Sort.AGE_ASC, 50);
+
+            List<Employee> expected = roster.stream()
+                    .filter(e -> Integer.parseInt(e.getEmployeeAge()) >= minAge && Integer.parseInt(e.getEmployeeAge()) <= maxAge)
+                    .filter(e -> Integer.parseInt(e.getEmployeeSalary()) >= minSalary)
+                    .filter(e -> query.getName() == null || e.getEmployeeName().toLowerCase(Locale.ROOT).contains(query.getName()))
+                    .sorted(Comparator.<Employee>comparingInt(e -> Integer.parseInt(e.getEmployeeAge()))
+                            .thenComparing(e -> e.getEmployeeName().toLowerCase(Locale.ROOT))
+                            .thenComparingInt(roster::indexOf))
+                    .limit(50)
+                    .collect(Collectors.toList());
+
+            assertEquals(expected, index.query(query), query.toString());
+        }
+    }
+
+    @Test
+    public void testApply_MatchesRebuild() {
+        Random random = new Random(7);
+        List<Employee> roster = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            roster.add(new Employee(Integer.toString(i), NAMES[random.nextInt(NAMES.length)] + " " + i,
+                    Integer.toString(20000 + random.nextInt(200000)), Integer.toString(18 + random.nextInt(50)), ""));
+        }
+        EmployeeQueryIndex index = EmployeeQueryIndex.build(roster);
+
+        List<Employee> removed = new ArrayList<>();
+        List<Employee> changed = new ArrayList<>();
+        List<Employee> kept = new ArrayList<>();
+        for (Employee employee : roster) {
+            int pick = random.nextInt(10);
+            if (pick == 0) {
+                removed.add(employee);
+            } else if (pick == 1) {
+                changed.add(new Employee(employee.getId(), employee.getEmployeeName(),
+                        Integer.toString(20000 + random.nextInt(200000)), employee.getEmployeeAge(), ""));
+            } else {
+                kept.add(employee);
+            }
+        }
+        List<Employee> added = new ArrayList<>();
+        for (int i = 5000; i < 5500; i++) {
+            added.add(new Employee(Integer.toString(i), NAMES[random.nextInt(NAMES.length)] + " " + i,
+                    Integer.toString(20000 + random.nextInt(200000)), Integer.toString(18 + random.nextInt(50)), ""));
+        }
+        // Carried over rows keep their order, the changed and added employees follow them
+        List<Employee> expectedRows = new ArrayList<>(kept);
+        expectedRows.addAll(changed);
+        expectedRows.addAll(added);
+
+        EmployeeQueryIndex applied = index.apply(new RosterDelta(added, removed, changed));
+        EmployeeQueryIndex rebuilt = EmployeeQueryIndex.build(expectedRows);
+
+        assertEquals(rebuilt.size(), applied.size());
+        for (int run = 0; run < 30; run++) {
+            int minAge = 18 + random.nextInt(50);
+            int minSalary = 20000 + random.nextInt(200000);
+            EmployeeQuery query = new EmployeeQuery(minAge, minAge + random.nextInt(20), minSalary, null,
+                    run % 2 == 0 ? "an" : null, EmployeeQuery.Sort.values()[run % EmployeeQuery.Sort.values().length], 50);
+            assertEquals(rebuilt.query(query), applied.query(query), query.toString());
+        }
+    }
+
+    @Test
+    public void testQuery_NoPredicatesReturnsTopByDefaultSort() {
+        EmployeeQueryIndex index = EmployeeQueryIndex.build(Arrays.asList(
+                new Employee("1", "John Doe", "50000", "30", ""),
+                new Employee("2", "Jane Smith", "120000", "35", "")));
+
+        List<Employee> result = index.query(new EmployeeQuery(null, null, null, null, null, EmployeeQuery.Sort.SALARY_DESC, 1));
+
+        assertEquals(1, result.size());
+        assertEquals("2", result.get(0).getId());
+    }
+
+    @Test
+    public void testQuery_EmptyIndex() {
+        assertTrue(EmployeeQueryIndex.EMPTY.query(new EmployeeQuery(20, 30, null, null, null, EmployeeQuery.Sort.NAME_ASC, 10)).isEmpty());
+    }
+
+}
@@ -1,21 +1,33 @@
 package com.example.rqchallenge.service;
 
+import com.example.rqchallenge.cache.EmployeeCaches;
 import com.example.rqchallenge.controller.EmployeeExtController;
 import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeResponse;
+import com.example.rqchallenge.model.RosterDelta;
+import com.example.rqchallenge.model.RosterSnapshot;
+import com.example.rqchallenge.upstream.UpstreamFederation;
+import com.example.rqchallenge.upstream.UpstreamPriority;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class EmployeeServiceTest {
@@ -26,14 +38,21 @@ public class EmployeeServiceTest {
     @Mock
     private EmployeeExtController employeeExtController;
 
-    @InjectMocks
+    @Mock
+    private SharedRosterCache sharedRosterCache;
+
+    private final RosterSnapshotStore rosterSnapshotStore = new RosterSnapshotStore(60000, 8);
+
+    private final UpstreamFederation federation = new UpstreamFederation("http://example.com/api/", "", 3000, 300000, "", null);
+
     private EmployeeService employeeService;
 
     private List<Employee> mockEmployees = null;
 
     @BeforeEach
     public void setUp() {
-        employeeService = new EmployeeService(employeeExtController, cacheManager);
+        employeeService = new EmployeeService(employeeExtController, cacheManager, sharedRosterCache, rosterSnapshotStore,
+                new FederatedRosterAggregates(federation), Runnable::run, 5000);
         mockEmployees = new ArrayList<>();
         mockEmployees.add(new Employee("1", "John Doe", "50000", "30", ""));
         mockEmployees.add(new Employee("2", "Jane Smith", "60000", "35", ""));
@@ -58,6 +77,79 @@ public class EmployeeServiceTest {
         assertTrue(employeeList.isEmpty());
     }
 
+    @Test
+    public void testGetFilteredEmployees_CachedPerSnapshotVersion() {
+        CacheManager caches = new ConcurrentMapCacheManager(EmployeeCaches.SEARCH);
+        EmployeeService service = new EmployeeService(employeeExtController, caches, sharedRosterCache, rosterSnapshotStore,
+                new FederatedRosterAggregates(federation), Runnable::run, 5000);
+        RosterSnapshot first = new RosterSnapshot(1, mockEmployees, 0);
+
+        List<Employee> upper = service.getFilteredEmployees("JOHN", first);
+        List<Employee> lower = service.getFilteredEmployees("john", first);
+
+        assertEquals(1, upper.size());
+        assertSame(mockEmployees.get(0), lower.get(0));
+        assertArrayEquals(new int[]{0}, caches.getCache(EmployeeCaches.SEARCH).get("1:john", int[].class));
+
+        List<Employee> changed = List.of(mockEmployees.get(1), new Employee("3", "Johnny Bravo", "70000", "40", ""));
+        List<Employee> afterRefresh = service.getFilteredEmployees("john", new RosterSnapshot(2, changed, 0));
+        assertEquals("Johnny Bravo", afterRefresh.get(0).getEmployeeName());
+        assertArrayEquals(new int[]{1}, caches.getCache(EmployeeCaches.SEARCH).get("2:john", int[].class));
+
+        service.getFilteredEmployees("john", new RosterSnapshot(0, changed, 0));
+        assertNull(caches.getCache(EmployeeCaches.SEARCH).get("0:john"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetAllCachedEmployees_ExpiredRosterRefreshedInBackground() {
+        rosterSnapshotStore.onRosterDelta(new RosterDelta(mockEmployees, List.of(), List.of()), mockEmployees);
+        List<Employee> refreshed = List.of(mockEmployees.get(0));
+        when(sharedRosterCache.getOrLoad(any())).thenAnswer(invocation -> ((Supplier<List<Employee>>) invocation.getArgument(0)).get());
+        when(employeeExtController.getAllEmployeesFromApi(UpstreamPriority.BACKGROUND))
+                .thenReturn(new EmployeeResponse(EmployeeExtController.SUCCESS, refreshed, "Fetched"));
+
+        assertSame(mockEmployees, employeeService.getAllCachedEmployees());
+        verify(employeeExtController).getAllEmployeesFromApi(UpstreamPriority.BACKGROUND);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetAllCachedEmployees_FailedRefreshBacksOff() {
+        AtomicLong now = new AtomicLong();
+        EmployeeService service = new EmployeeService(employeeExtController, cacheManager, sharedRosterCache, rosterSnapshotStore,
+                new FederatedRosterAggregates(federation), Runnable::run, 5000, now::get);
+        rosterSnapshotStore.onRosterDelta(new RosterDelta(mockEmployees, List.of(), List.of()), mockEmployees);
+        when(sharedRosterCache.getOrLoad(any())).thenAnswer(invocation -> ((Supplier<List<Employee>>) invocation.getArgument(0)).get());
+        when(employeeExtController.getAllEmployeesFromApi(UpstreamPriority.BACKGROUND))
+                .thenReturn(new EmployeeResponse("503", "Service Unavailable"));
+
+        service.getAllCachedEmployees();
+        now.set(4999);
+        assertSame(mockEmployees, service.getAllCachedEmployees());
+        verify(employeeExtController, times(1)).getAllEmployeesFromApi(UpstreamPriority.BACKGROUND);
+
+        now.set(5000);
+        service.getAllCachedEmployees();
+        verify(employeeExtController, times(2)).getAllEmployeesFromApi(UpstreamPriority.BACKGROUND);
+    }
+
+    @Test
+    public void testFindCachedEmployee_FallsBackToById() {
+        CacheManager caches = new ConcurrentMapCacheManager(EmployeeCaches.ROSTER, EmployeeCaches.BY_ID, EmployeeCaches.NEGATIVE);
+        caches.getCache(EmployeeCaches.ROSTER).put(EmployeeCaches.ROSTER_KEY, mockEmployees);
+        caches.getCache(EmployeeCaches.BY_ID).put("3", new Employee("3", "Bob Brown", "70000", "40", ""));
+        caches.getCache(EmployeeCaches.NEGATIVE).put("4", Boolean.TRUE);
+        EmployeeService service = new EmployeeService(employeeExtController, caches, sharedRosterCache, rosterSnapshotStore,
+                new FederatedRosterAggregates(federation), Runnable::run, 5000);
+
+        assertEquals("Jane Smith", service.findCachedEmployee("2").get().getEmployeeName());
+        assertEquals("Bob Brown", service.findCachedEmployee("3").get().getEmployeeName());
+        assertTrue(service.findCachedEmployee("4").isEmpty());
+        assertTrue(service.isKnownMissing("4"));
+        assertFalse(service.isKnownMissing("3"));
+    }
+
     @Test
     public void testGetTopTenNames_Success() {
         List<String> employeeList = employeeService.getTopTenNames(mockEmployees);
@@ -0,0 +1,80 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeSuggestion;
+import com.example.rqchallenge.model.RosterDelta;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeSuggestIndexTest {
+
+    private EmployeeSuggestIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = EmployeeSuggestIndex.build(Arrays.asList(
+                new Employee("1", "John Doe", "50000", "30", ""),
+                new Employee("2", "Johnny Bravo", "70000", "35", ""),
+                new Employee("3", "Jane Johnson", "60000", "40", ""),
+                new Employee("4", "Ann Annabel", "80000", "28", "")));
+    }
+
+    @Test
+    public void testSuggest_RankedBySalary() {
+        List<EmployeeSuggestion> suggestions = index.suggest("JOH", 10, true);
+
+        assertEquals(3, suggestions.size());
+        assertEquals("2", suggestions.get(0).getId());
+        assertEquals("3", suggestions.get(1).getId());
+        assertEquals("1", suggestions.get(2).getId());
+    }
+
+    @Test
+    public void testSuggest_RankedByNameWithLimit() {
+        List<EmployeeSuggestion> suggestions = index.suggest("jo", 2, false);
+
+        assertEquals(2, suggestions.size());
+        assertEquals("Jane Johnson", suggestions.get(0).getEmployeeName());
+        assertEquals("John Doe", suggestions.get(1).getEmployeeName());
+    }
+
+    @Test
+    public void testSuggest_EmployeeMatchedByTwoTokensOnlyOnce() {
+        List<EmployeeSuggestion> suggestions = index.suggest("ann", 10, true);
+
+        assertEquals(1, suggestions.size());
+        assertEquals("4", suggestions.get(0).getId());
+    }
+
+    @Test
+    public void testApply_AddsChangesAndRemoves() {
+        EmployeeSuggestIndex applied = index.apply(new RosterDelta(
+                Collections.singletonList(new Employee("5", "Joe Annex", "90000", "50", "")),
+                Collections.singletonList(new Employee("1", "John Doe", "50000", "30", "")),
+                Collections.singletonList(new Employee("3", "Jane Smith", "60000", "40", ""))));
+
+        assertEquals(4, applied.size());
+        List<EmployeeSuggestion> suggestions = applied.suggest("jo", 10, true);
+        assertEquals(2, suggestions.size());
+        assertEquals("5", suggestions.get(0).getId());
+        assertEquals("2", suggestions.get(1).getId());
+        assertEquals("3", applied.suggest("smi", 10, true).get(0).getId());
+        List<EmployeeSuggestion> byName = applied.suggest("ann", 10, false);
+        assertEquals(2, byName.size());
+        assertEquals("Ann Annabel", byName.get(0).getEmployeeName());
+        assertEquals("Joe Annex", byName.get(1).getEmployeeName());
+    }
+
+    @Test
+    public void testSuggest_NoMatch() {
+        assertTrue(index.suggest("zz", 10, true).isEmpty());
+        assertTrue(EmployeeSuggestIndex.EMPTY.suggest("a", 10, true).isEmpty());
+    }
+
+}
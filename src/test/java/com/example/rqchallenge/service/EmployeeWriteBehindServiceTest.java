@@ -0,0 +1,189 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.controller.EmployeeExtController;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.EmployeeOperation;
+import com.example.rqchallenge.model.EmployeeResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeWriteBehindServiceTest {
+
+    @Mock
+    private EmployeeExtController employeeExtController;
+
+    @Mock
+    private RosterChangeBroadcaster rosterChangeBroadcaster;
+
+    @TempDir
+    Path directory;
+
+    private EmployeeWriteBehindService writeBehindService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        writeBehindService = newService(100);
+        lenient().when(employeeExtController.createEmployee(any())).thenAnswer(invocation -> {
+            Map<String, Object> input = invocation.getArgument(0);
+            return new EmployeeResponse("201", Collections.singletonList(new Employee("id-" + input.get("name"),
+                    (String) input.get("name"), (String) input.get("salary"), (String) input.get("age"), "")), "Employee created successfully");
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        writeBehindService.shutdown();
+    }
+
+    private EmployeeWriteBehindService newService(int maxPending) throws IOException {
+        return newService(true, directory, maxPending);
+    }
+
+    private EmployeeWriteBehindService newService(boolean enabled, Path journalDirectory, int maxPending) throws IOException {
+        return new EmployeeWriteBehindService(employeeExtController, rosterChangeBroadcaster, new ObjectMapper(),
+                new SimpleMeterRegistry(), enabled, journalDirectory.toString(), 20, 0, 3, 1, maxPending, 100, 64 * 1024 * 1024);
+    }
+
+    private EmployeeOperation awaitCompleted(String operationId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            EmployeeOperation operation = writeBehindService.getOperation(operationId).orElseThrow();
+            if (operation.getState() != EmployeeOperation.State.PENDING) {
+                return operation;
+            }
+            Thread.sleep(10);
+        }
+        fail("Operation did not complete");
+        return null;
+    }
+
+    private static Map<String, Object> input(String name) {
+        return Map.of("name", name, "salary", "50000", "age", "30");
+    }
+
+    @Test
+    public void testSubmit_CreatesEmployee() throws Exception {
+        writeBehindService.start();
+
+        EmployeeOperation submitted = writeBehindService.submit(input("John Doe"));
+        assertEquals(EmployeeOperation.State.PENDING, submitted.getState());
+
+        EmployeeOperation completed = awaitCompleted(submitted.getId());
+        assertEquals(EmployeeOperation.State.SUCCEEDED, completed.getState());
+        assertEquals("id-John Doe", completed.getEmployee().getId());
+        assertEquals(1, completed.getAttempts());
+        verify(rosterChangeBroadcaster).employeeCreated(argThat(employee -> "id-John Doe".equals(employee.getId())));
+    }
+
+    @Test
+    public void testRestart_SendsJournaledCreatesAndKeepsOutcomes() throws Exception {
+        writeBehindService.start();
+        String done = writeBehindService.submit(input("John Doe")).getId();
+        awaitCompleted(done);
+        writeBehindService.shutdown();
+
+        // Journaled by an instance that stopped before its worker ran
+        writeBehindService = newService(100);
+        String first = writeBehindService.submit(input("Jane Smith")).getId();
+        String second = writeBehindService.submit(input("Bob Brown")).getId();
+        writeBehindService.shutdown();
+
+        writeBehindService = newService(100);
+        assertEquals(EmployeeOperation.State.SUCCEEDED, writeBehindService.getOperation(done).orElseThrow().getState());
+        assertEquals(EmployeeOperation.State.PENDING, writeBehindService.getOperation(first).orElseThrow().getState());
+        writeBehindService.start();
+
+        assertEquals("id-Jane Smith", awaitCompleted(first).getEmployee().getId());
+        assertEquals("id-Bob Brown", awaitCompleted(second).getEmployee().getId());
+        verify(employeeExtController, times(3)).createEmployee(any());
+    }
+
+    @Test
+    public void testSubmit_RetriesTransientFailure() throws Exception {
+        doReturn(new EmployeeResponse("500", "Internal server error"))
+                .doReturn(new EmployeeResponse("201", Collections.singletonList(new Employee("7", "John Doe", "50000", "30", "")), "Employee created successfully"))
+                .when(employeeExtController).createEmployee(any());
+        writeBehindService.start();
+
+        EmployeeOperation completed = awaitCompleted(writeBehindService.submit(input("John Doe")).getId());
+
+        assertEquals(EmployeeOperation.State.SUCCEEDED, completed.getState());
+        assertEquals(2, completed.getAttempts());
+    }
+
+    @Test
+    public void testSubmit_RejectedInputFailsWithoutRetry() throws Exception {
+        doReturn(new EmployeeResponse("400", "Invalid salary")).when(employeeExtController).createEmployee(any());
+        writeBehindService.start();
+
+        EmployeeOperation completed = awaitCompleted(writeBehindService.submit(input("John Doe")).getId());
+
+        assertEquals(EmployeeOperation.State.FAILED, completed.getState());
+        assertEquals(1, completed.getAttempts());
+        assertTrue(completed.getError().contains("Invalid salary"));
+        verifyNoInteractions(rosterChangeBroadcaster);
+    }
+
+    @Test
+    public void testSubmit_BroadcastFailureKeepsWorkerRunning() throws Exception {
+        doThrow(new RuntimeException("Cache unavailable")).doNothing().when(rosterChangeBroadcaster).employeeCreated(any());
+        writeBehindService.start();
+
+        EmployeeOperation first = awaitCompleted(writeBehindService.submit(input("John Doe")).getId());
+        EmployeeOperation second = awaitCompleted(writeBehindService.submit(input("Jane Smith")).getId());
+
+        assertEquals(EmployeeOperation.State.SUCCEEDED, first.getState());
+        assertEquals(EmployeeOperation.State.SUCCEEDED, second.getState());
+    }
+
+    @Test
+    public void testNewService_SharedDirectoryRejected() {
+        assertThrows(IllegalStateException.class, () -> newService(100));
+    }
+
+    @Test
+    public void testDisabled_NoJournalAndNoWorker() throws Exception {
+        Path disabledDirectory = directory.resolve("disabled");
+        EmployeeWriteBehindService disabled = newService(false, disabledDirectory, 100);
+        disabled.start();
+
+        assertFalse(Files.exists(disabledDirectory));
+        assertThrows(IllegalStateException.class, () -> disabled.submit(input("John Doe")));
+        disabled.shutdown();
+    }
+
+    @Test
+    public void testSubmit_FullQueueRejected() throws Exception {
+        writeBehindService.shutdown();
+        writeBehindService = newService(1);
+
+        writeBehindService.submit(input("John Doe"));
+
+        assertThrows(RejectedExecutionException.class, () -> writeBehindService.submit(input("Jane Smith")));
+    }
+
+    @Test
+    public void testGetOperation_Unknown() {
+        assertTrue(writeBehindService.getOperation("missing").isEmpty());
+    }
+
+}
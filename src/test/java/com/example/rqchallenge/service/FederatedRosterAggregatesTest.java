@@ -0,0 +1,79 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.RosterDelta;
+import com.example.rqchallenge.upstream.UpstreamFederation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FederatedRosterAggregatesTest {
+
+    private final UpstreamFederation federation = new UpstreamFederation("http://example.com/api/",
+            "eu=http://eu.example.com/api/,us=http://us.example.com/api/,asia=http://asia.example.com/api/", 3000, 300000, "", null);
+
+    private final FederatedRosterAggregates aggregates = new FederatedRosterAggregates(federation);
+
+    private static List<Employee> roster(long seed) {
+        Random random = new Random(seed);
+        List<Employee> roster = new ArrayList<>();
+        for (String source : List.of("eu", "us", "asia")) {
+            for (int i = 0; i < 50; i++) {
+                roster.add(new Employee(source + ":" + i, source + " employee " + i,
+                        Integer.toString(30000 + random.nextInt(20) * 1000), "30", ""));
+            }
+        }
+        return Collections.unmodifiableList(roster);
+    }
+
+    @Test
+    public void testTopNames_MatchesSortOfMergedRoster() {
+        List<Employee> roster = roster(42);
+        aggregates.onRosterDelta(new RosterDelta(roster, Collections.emptyList(), Collections.emptyList()), roster);
+
+        FederatedRosterAggregates.Partials partials = aggregates.forRoster(roster).orElseThrow();
+
+        List<String> expected = roster.stream()
+                .sorted(Comparator.comparingInt(employee -> -Integer.parseInt(employee.getEmployeeSalary())))
+                .limit(10)
+                .map(Employee::getEmployeeName)
+                .collect(Collectors.toList());
+        assertEquals(expected, partials.topNames(10));
+        assertEquals(roster.stream().map(employee -> Integer.parseInt(employee.getEmployeeSalary())).max(Integer::compare),
+                partials.highestSalary());
+        assertEquals(30, partials.getPartialRows());
+    }
+
+    @Test
+    public void testOnRosterDelta_OnlyTouchedSourceRecomputed() {
+        List<Employee> first = roster(1);
+        aggregates.onRosterDelta(new RosterDelta(first, Collections.emptyList(), Collections.emptyList()), first);
+
+        List<Employee> second = new ArrayList<>(first);
+        Employee raised = new Employee("us:3", "us employee 3", "90000", "30", "");
+        second.set(53, raised);
+        aggregates.onRosterDelta(new RosterDelta(Collections.emptyList(), Collections.emptyList(), List.of(raised)), second);
+
+        assertTrue(aggregates.forRoster(first).isEmpty());
+        FederatedRosterAggregates.Partials partials = aggregates.forRoster(second).orElseThrow();
+        assertEquals("us employee 3", partials.topNames(1).get(0));
+        assertEquals(Optional.of(90000), partials.highestSalary());
+    }
+
+    @Test
+    public void testPartials_UnusableWithInvalidSalary() {
+        List<Employee> roster = List.of(new Employee("eu:1", "John Doe", "n/a", "30", ""));
+        aggregates.onRosterDelta(new RosterDelta(roster, Collections.emptyList(), Collections.emptyList()), roster);
+
+        assertFalse(aggregates.forRoster(roster).orElseThrow().isUsable());
+    }
+
+}
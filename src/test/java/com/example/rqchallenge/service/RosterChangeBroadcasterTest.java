@@ -0,0 +1,153 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.cache.AdaptiveRosterExpiry;
+import com.example.rqchallenge.cache.EmployeeCaches;
+import com.example.rqchallenge.cache.InMemoryRosterChangeTransport;
+import com.example.rqchallenge.cache.InMemorySharedRosterStore;
+import com.example.rqchallenge.cluster.ClusterMembership;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.RosterChange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RosterChangeBroadcasterTest {
+
+    private CacheManager firstNodeCache;
+    private CacheManager secondNodeCache;
+    private InMemoryRosterChangeTransport transport;
+    private RosterSnapshotStore firstNodeSnapshots;
+    private RosterChangeBroadcaster firstNode;
+
+    @BeforeEach
+    public void setUp() {
+        transport = new InMemoryRosterChangeTransport();
+        InMemorySharedRosterStore store = new InMemorySharedRosterStore();
+        firstNodeCache = new ConcurrentMapCacheManager(EmployeeCaches.ROSTER);
+        secondNodeCache = new ConcurrentMapCacheManager(EmployeeCaches.ROSTER);
+        for (CacheManager cacheManager : Arrays.asList(firstNodeCache, secondNodeCache)) {
+            cacheManager.getCache(EmployeeCaches.ROSTER).put(EmployeeCaches.ROSTER_KEY, new ArrayList<>(Arrays.asList(
+                    new Employee("1", "John Doe", "50000", "30", ""),
+                    new Employee("2", "Jane Smith", "60000", "35", ""))));
+        }
+        firstNodeSnapshots = new RosterSnapshotStore(60000, 8);
+        firstNode = newNode(store, firstNodeCache, firstNodeSnapshots);
+        newNode(store, secondNodeCache, new RosterSnapshotStore(60000, 8));
+    }
+
+    private RosterChangeBroadcaster newNode(InMemorySharedRosterStore store, CacheManager cacheManager, RosterSnapshotStore snapshots) {
+        StaticListableBeanFactory listeners = new StaticListableBeanFactory();
+        listeners.addBean("rosterSnapshotStore", snapshots);
+        RosterDeltaDetector detector = new RosterDeltaDetector(listeners.getBeanProvider(RosterDeltaListener.class), new ClusterMembership("", "", 128));
+        return new RosterChangeBroadcaster(transport, cacheManager,
+                new SharedRosterCache(store, cacheManager, new ObjectMapper(), detector, 60000, 10000, 500), detector,
+                new EmployeeChangeFeed(100, 10, 1000, 1000, 60000, 2),
+                new AdaptiveRosterExpiry(5000, 600000, 60000, 0.2, 3600000, new SimpleMeterRegistry()), snapshots);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Employee> roster(CacheManager cacheManager) {
+        return cacheManager.getCache(EmployeeCaches.ROSTER).get(EmployeeCaches.ROSTER_KEY, List.class);
+    }
+
+    @Test
+    public void testEmployeeCreated_PatchesAllNodes() {
+        firstNode.employeeCreated(new Employee("3", "Bob Brown", "70000", "40", ""));
+
+        assertEquals(3, roster(firstNodeCache).size());
+        assertEquals(3, roster(secondNodeCache).size());
+        assertEquals("Bob Brown", roster(secondNodeCache).get(2).getEmployeeName());
+    }
+
+    @Test
+    public void testEmployeesCreated_PatchesAllNodesInBatches() {
+        List<Employee> created = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            created.add(new Employee("new-" + i, "Employee " + i, "50000", "30", ""));
+        }
+        created.add(new Employee("1", "John Doe", "55000", "30", ""));
+
+        firstNode.employeesCreated(created);
+
+        assertEquals(72, roster(firstNodeCache).size());
+        assertEquals(72, roster(secondNodeCache).size());
+        assertEquals("2", roster(secondNodeCache).get(0).getId());
+        assertEquals("55000", roster(secondNodeCache).get(71).getEmployeeSalary());
+    }
+
+    @Test
+    public void testEmployeeDeleted_PatchesAllNodes() {
+        firstNode.employeeDeleted("1");
+
+        assertEquals(1, roster(firstNodeCache).size());
+        assertEquals(1, roster(secondNodeCache).size());
+        assertEquals("2", roster(secondNodeCache).get(0).getId());
+    }
+
+    @Test
+    public void testEmployeeCreated_CarriesRosterVersion() {
+        List<RosterChange> sent = new ArrayList<>();
+        transport.subscribe(sent::add);
+
+        firstNode.employeeCreated(new Employee("3", "Bob Brown", "70000", "40", ""));
+
+        assertEquals(1, sent.size());
+        assertEquals(firstNodeSnapshots.current().getVersionTag(), sent.get(0).getRosterVersion());
+        assertTrue(firstNodeSnapshots.current().getVersion() > 0);
+    }
+
+    @Test
+    public void testRemoteChanges_ReorderedAppliedAndDuplicatesDropped() {
+        transport.send(new RosterChange(RosterChange.Type.CREATED, "3", new Employee("3", "Bob Brown", "70000", "40", ""), 1, "other"));
+        transport.send(new RosterChange(RosterChange.Type.DELETED, "1", null, 3, "other"));
+        transport.send(new RosterChange(RosterChange.Type.CREATED, "4", new Employee("4", "Amy Green", "80000", "45", ""), 2, "other"));
+        transport.send(new RosterChange(RosterChange.Type.CREATED, "5", new Employee("5", "Tom White", "40000", "25", ""), 2, "other"));
+
+        List<Employee> roster = roster(secondNodeCache);
+        assertEquals(Arrays.asList("2", "3", "4"), Arrays.asList(roster.get(0).getId(), roster.get(1).getId(), roster.get(2).getId()));
+        assertEquals(3, roster.size());
+    }
+
+    @Test
+    public void testRemoteChanges_LostChangeDropsRoster() {
+        transport.send(new RosterChange(RosterChange.Type.DELETED, "1", null, 1, "other"));
+        for (int version = 3; version <= 3 + RosterChangeBroadcaster.MAX_OUT_OF_ORDER; version++) {
+            transport.send(new RosterChange(RosterChange.Type.DELETED, "x" + version, null, version, "other"));
+        }
+
+        assertNull(roster(secondNodeCache));
+    }
+
+    @Test
+    public void testConcurrentWrites_NoPatchLost() throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String id = Integer.toString(100 + i);
+                writes.add(writers.submit(() -> firstNode.employeeCreated(new Employee(id, "Employee " + id, "50000", "30", ""))));
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+
+        assertEquals(202, roster(firstNodeCache).size());
+    }
+
+}
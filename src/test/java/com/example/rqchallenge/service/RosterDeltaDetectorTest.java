@@ -0,0 +1,91 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.cluster.ClusterMembership;
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.RosterDelta;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RosterDeltaDetectorTest {
+
+    private final List<RosterDelta> notified = new ArrayList<>();
+    private RosterDeltaDetector detector;
+    private List<Employee> initial;
+
+    @BeforeEach
+    public void setUp() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("listener", (RosterDeltaListener) (delta, roster) -> notified.add(delta));
+        detector = new RosterDeltaDetector(beanFactory.getBeanProvider(RosterDeltaListener.class), new ClusterMembership("", "", 128));
+        initial = detector.detect(Arrays.asList(
+                new Employee("1", "John Doe", "50000", "30", ""),
+                new Employee("2", "Jane Smith", "60000", "35", ""))).getRoster();
+        notified.clear();
+    }
+
+    @Test
+    public void testDetect_UnchangedRosterNotifiesNobody() {
+        RosterDeltaDetector.Detection detection = detector.detect(Arrays.asList(
+                new Employee("2", "Jane Smith", "60000", "35", ""),
+                new Employee("1", "John Doe", "50000", "30", "")));
+
+        assertTrue(detection.getDelta().isEmpty());
+        assertTrue(notified.isEmpty());
+        assertSame(initial, detection.getRoster());
+    }
+
+    @Test
+    public void testDetect_AddedRemovedAndChanged() {
+        RosterDeltaDetector.Detection detection = detector.detect(Arrays.asList(
+                new Employee("2", "Jane Smith", "65000", "35", ""),
+                new Employee("3", "Bob Brown", "70000", "40", "")));
+        RosterDelta delta = detection.getDelta();
+
+        assertEquals("3", delta.getAdded().get(0).getId());
+        assertEquals("1", delta.getRemoved().get(0).getId());
+        assertEquals("65000", delta.getChanged().get(0).getEmployeeSalary());
+        assertEquals(1, notified.size());
+        assertEquals(2, detection.getRoster().size());
+    }
+
+    @Test
+    public void testDetect_PublishesUnchangedRosterToo() {
+        List<List<Employee>> published = new ArrayList<>();
+
+        detector.detect(new ArrayList<>(initial), detection -> published.add(detection.getRoster()));
+
+        assertEquals(1, published.size());
+        assertSame(initial, published.get(0));
+        assertSame(initial, detector.republish(roster -> {
+        }));
+    }
+
+    @Test
+    public void testDetect_ClusterModeKeepsOwnPartition() {
+        ClusterMembership membership = new ClusterMembership("http://localhost:8080,http://localhost:8081", "http://localhost:8081/", 128);
+        RosterDeltaDetector clustered = new RosterDeltaDetector(new StaticListableBeanFactory().getBeanProvider(RosterDeltaListener.class), membership);
+        List<Employee> roster = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            roster.add(new Employee(Integer.toString(i), "Employee " + i, "50000", "30", ""));
+        }
+
+        List<Employee> partition = clustered.detect(roster).getRoster();
+        assertTrue(partition.size() > 0 && partition.size() < roster.size());
+        assertTrue(partition.stream().allMatch(employee -> membership.isLocal(employee.getId())));
+        assertEquals(roster.stream().filter(employee -> membership.isLocal(employee.getId())).count(), partition.size());
+    }
+
+    @Test
+    public void testContentHash_SeparatesFields() {
+        assertNotEquals(RosterDeltaDetector.contentHash(new Employee("1", "ab", "c", "30", "")),
+                RosterDeltaDetector.contentHash(new Employee("1", "a", "bc", "30", "")));
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.model.Employee;
+import com.example.rqchallenge.model.RosterDelta;
+import com.example.rqchallenge.model.RosterSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RosterSnapshotStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private RosterSnapshotStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new RosterSnapshotStore(60000, 2, now::get);
+    }
+
+    private void publish(Employee... employees) {
+        store.onRosterDelta(new RosterDelta(List.of(employees), Collections.emptyList(), Collections.emptyList()), List.of(employees));
+    }
+
+    @Test
+    public void testPublish_IncrementsVersion() {
+        assertEquals(0, store.current().getVersion());
+
+        publish(new Employee("1", "John Doe", "50000", "30", ""));
+        publish(new Employee("1", "John Doe", "55000", "30", ""));
+
+        RosterSnapshot current = store.current();
+        assertEquals(2, current.getVersion());
+        assertEquals("55000", current.getEmployees().get(0).getEmployeeSalary());
+        assertThrows(UnsupportedOperationException.class, () -> current.getEmployees().add(null));
+    }
+
+    @Test
+    public void testGet_PinnedVersionWithinRetention() {
+        publish(new Employee("1", "John Doe", "50000", "30", ""));
+        publish(new Employee("1", "John Doe", "55000", "30", ""));
+
+        assertEquals("50000", store.get(1).get().getEmployees().get(0).getEmployeeSalary());
+
+        now.addAndGet(60001);
+        assertTrue(store.get(1).isEmpty());
+        assertTrue(store.get(2).isPresent());
+    }
+
+    @Test
+    public void testGet_OnlyLatestVersionsRetained() {
+        for (int i = 0; i < 5; i++) {
+            publish(new Employee("1", "John Doe", Integer.toString(50000 + i), "30", ""));
+        }
+
+        assertTrue(store.get(2).isEmpty());
+        assertTrue(store.get(3).isPresent());
+        assertTrue(store.get(4).isPresent());
+        assertTrue(store.get(6).isEmpty());
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.example.rqchallenge.service;
+
+import com.example.rqchallenge.cache.EmployeeCaches;
+import com.example.rqchallenge.cache.InMemorySharedRosterStore;
+import com.example.rqchallenge.cluster.ClusterMembership;
+import com.example.rqchallenge.model.Employee;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedRosterCacheTest {
+
+    private InMemorySharedRosterStore store;
+    private List<Employee> roster;
+    private AtomicInteger upstreamCalls;
+    private Supplier<List<Employee>> upstreamLoader;
+
+    @BeforeEach
+    public void setUp() {
+        store = new InMemorySharedRosterStore();
+        roster = Arrays.asList(
+                new Employee("1", "John Doe", "50000", "30", ""),
+                new Employee("2", "Jane Smith", "60000", "35", ""));
+        upstreamCalls = new AtomicInteger();
+        upstreamLoader = () -> {
+            upstreamCalls.incrementAndGet();
+            return roster;
+        };
+    }
+
+    private SharedRosterCache newNode(CacheManager cacheManager) {
+        return new SharedRosterCache(store, cacheManager, new ObjectMapper(),
+                new RosterDeltaDetector(new StaticListableBeanFactory().getBeanProvider(RosterDeltaListener.class), new ClusterMembership("", "", 128)), 60000, 10000, 500);
+    }
+
+    @Test
+    public void testGetOrLoad_SecondNodeUsesSharedSnapshot() {
+        CacheManager secondNodeCache = new ConcurrentMapCacheManager(EmployeeCaches.ROSTER);
+
+        List<Employee> first = newNode(new ConcurrentMapCacheManager(EmployeeCaches.ROSTER)).getOrLoad(upstreamLoader);
+        List<Employee> second = newNode(secondNodeCache).getOrLoad(upstreamLoader);
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(first.size(), second.size());
+        assertEquals("Jane Smith", second.get(1).getEmployeeName());
+        assertNotNull(secondNodeCache.getCache(EmployeeCaches.ROSTER).get(EmployeeCaches.ROSTER_KEY));
+    }
+
+    @Test
+    public void testGetOrLoad_WaitsForPeerHoldingLock() throws Exception {
+        SharedRosterCache publisher = newNode(new ConcurrentMapCacheManager(EmployeeCaches.ROSTER));
+        assertTrue(store.tryLock(SharedRosterCache.LOCK_KEY, "peer", Duration.ofSeconds(10)));
+
+        Thread peer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            publisher.publish(roster);
+        });
+        peer.start();
+
+        List<Employee> result = newNode(new ConcurrentMapCacheManager(EmployeeCaches.ROSTER)).getOrLoad(upstreamLoader);
+        peer.join();
+
+        assertEquals(2, result.size());
+        assertEquals(0, upstreamCalls.get());
+    }
+
+    @Test
+    public void testGetOrLoad_FallsBackToUpstreamWhenPeerNeverPublishes() {
+        assertTrue(store.tryLock(SharedRosterCache.LOCK_KEY, "peer", Duration.ofSeconds(10)));
+
+        List<Employee> result = newNode(new ConcurrentMapCacheManager(EmployeeCaches.ROSTER)).getOrLoad(upstreamLoader);
+
+        assertEquals(2, result.size());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+}
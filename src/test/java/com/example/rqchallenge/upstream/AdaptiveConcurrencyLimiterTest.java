@@ -0,0 +1,60 @@
+package com.example.rqchallenge.upstream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void testTryAcquire_RejectsAboveLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1.5, new SimpleMeterRegistry());
+
+        Optional<AdaptiveConcurrencyLimiter.Permit> first = limiter.tryAcquire();
+        Optional<AdaptiveConcurrencyLimiter.Permit> second = limiter.tryAcquire();
+
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+        assertTrue(limiter.tryAcquire().isEmpty());
+
+        first.get().onIgnore();
+        first.get().onIgnore();
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire().isPresent());
+    }
+
+    @Test
+    public void testOnDropped_ShrinksLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 2, 200, 1.5, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire().orElseThrow().onDropped();
+        }
+
+        assertTrue(limiter.getLimit() < 20);
+        assertTrue(limiter.getLimit() >= 2);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testOnSuccess_GrowsLimitWhileLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 200, 1.5, new SimpleMeterRegistry());
+
+        for (int round = 0; round < 20; round++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            limiter.tryAcquire().ifPresent(permits::add);
+            while (permits.size() < limiter.getLimit()) {
+                permits.add(limiter.tryAcquire().orElseThrow());
+            }
+            permits.forEach(AdaptiveConcurrencyLimiter.Permit::onSuccess);
+        }
+
+        assertTrue(limiter.getLimit() > 4);
+    }
+
+}
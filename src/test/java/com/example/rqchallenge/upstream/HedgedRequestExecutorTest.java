@@ -0,0 +1,127 @@
+package com.example.rqchallenge.upstream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HedgedRequestExecutorTest {
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testExecute_HedgeWinsOverSlowAttempt() {
+        HedgedRequestExecutor hedging = new HedgedRequestExecutor(true, 1.0, 5, 10, 10, 0.95, executor, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedging.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(2000);
+                return "slow";
+            }
+            return "fast";
+        });
+
+        assertEquals("fast", result);
+        assertEquals(1.0, meterRegistry.counter("upstream.hedge.sent").count());
+        // The winning attempt counts its win right after handing over the result
+        for (int i = 0; i < 100 && meterRegistry.counter("upstream.hedge.wins").count() == 0; i++) {
+            sleep(10);
+        }
+        assertEquals(1.0, meterRegistry.counter("upstream.hedge.wins").count());
+    }
+
+    @Test
+    public void testExecute_HedgesCappedByRatio() {
+        HedgedRequestExecutor hedging = new HedgedRequestExecutor(true, 0.0, 5, 10, 10, 0.95, executor, meterRegistry);
+
+        String result = hedging.execute(() -> {
+            sleep(50);
+            return "only";
+        });
+
+        assertEquals("only", result);
+        assertEquals(0.0, meterRegistry.counter("upstream.hedge.sent").count());
+        assertEquals(0.0, hedging.getHedgeRate());
+    }
+
+    @Test
+    public void testExecute_HedgeBudgetCappedAtBurst() {
+        HedgedRequestExecutor hedging = new HedgedRequestExecutor(true, 0.5, 1, 10, 10, 0.95, executor, meterRegistry);
+        for (int i = 0; i < 10; i++) {
+            hedging.execute(() -> "fast");
+        }
+
+        // Ten calls without hedges saved up one hedge, not five
+        hedging.execute(() -> {
+            sleep(50);
+            return "slow";
+        });
+        hedging.execute(() -> {
+            sleep(50);
+            return "slow";
+        });
+
+        assertEquals(1.0, meterRegistry.counter("upstream.hedge.sent").count());
+    }
+
+    @Test
+    public void testExecute_SaturatedExecutorCallsWithoutHedging() {
+        ThreadPoolExecutor saturated = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new SynchronousQueue<>());
+        HedgedRequestExecutor hedging = new HedgedRequestExecutor(true, 1.0, 5, 10, 10, 0.95, saturated, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            String result = hedging.execute(() -> {
+                attempts.incrementAndGet();
+                sleep(50);
+                return "primary";
+            });
+
+            assertEquals("primary", result);
+            assertEquals(1, attempts.get());
+            assertEquals(0.0, meterRegistry.counter("upstream.hedge.sent").count());
+        } finally {
+            saturated.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExecute_PropagatesFailure() {
+        HedgedRequestExecutor hedging = new HedgedRequestExecutor(true, 1.0, 5, 10, 10, 0.95, executor, meterRegistry);
+
+        assertThrows(IllegalArgumentException.class, () -> hedging.execute(() -> {
+            throw new IllegalArgumentException("boom");
+        }));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.example.rqchallenge.upstream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpstreamFederationTest {
+
+    private ExecutorService executor;
+    private UpstreamFederation federation;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        federation = new UpstreamFederation("http://example.com/api/",
+                "eu=http://eu.example.com/api/,us=http://us.example.com/api/@50", 3000, 300000, "", executor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testScatter_SkipsSourceWithCallInFlight() throws Exception {
+        CountDownLatch hung = new CountDownLatch(1);
+        AtomicInteger usCalls = new AtomicInteger();
+
+        Map<UpstreamSource, Optional<String>> first = federation.scatter(source -> {
+            if ("us".equals(source.getName())) {
+                usCalls.incrementAndGet();
+                awaitUninterruptibly(hung);
+            }
+            return source.getName();
+        });
+        Map<UpstreamSource, Optional<String>> second = federation.scatter(source -> {
+            if ("us".equals(source.getName())) {
+                usCalls.incrementAndGet();
+            }
+            return source.getName();
+        });
+
+        assertEquals(Optional.of("eu"), first.get(federation.getSources().get(0)));
+        assertEquals(Optional.empty(), first.get(federation.getSources().get(1)));
+        assertEquals(Optional.of("eu"), second.get(federation.getSources().get(0)));
+        assertEquals(Optional.empty(), second.get(federation.getSources().get(1)));
+        assertEquals(1, usCalls.get());
+
+        hung.countDown();
+        Optional<String> us = Optional.empty();
+        for (int i = 0; i < 100 && us.isEmpty(); i++) {
+            Thread.sleep(10);
+            us = federation.scatter(UpstreamSource::getName).get(federation.getSources().get(1));
+        }
+        assertEquals(Optional.of("us"), us);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (latch.getCount() > 0) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
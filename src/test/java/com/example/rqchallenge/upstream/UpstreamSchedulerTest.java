@@ -0,0 +1,76 @@
+package com.example.rqchallenge.upstream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpstreamSchedulerTest {
+
+    @Test
+    public void testExecute_RetriesRateLimitedCall() {
+        UpstreamScheduler scheduler = new UpstreamScheduler(10, 1, 100, 10, 2000, 3, 1);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = scheduler.execute(UpstreamPriority.INTERACTIVE, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", new HttpHeaders(), null, null);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        assertTrue(scheduler.getRate() < 10);
+    }
+
+    @Test
+    public void testExecute_GivesUpAfterMaxRetries() {
+        UpstreamScheduler scheduler = new UpstreamScheduler(10, 1, 100, 10, 2000, 1, 1);
+        AtomicInteger calls = new AtomicInteger();
+
+        HttpClientErrorException exception = assertThrows(HttpClientErrorException.class,
+                () -> scheduler.execute(UpstreamPriority.BACKGROUND, () -> {
+                    calls.incrementAndGet();
+                    throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", new HttpHeaders(), null, null);
+                }));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatusCode());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testExecute_DoesNotRetryOtherClientErrors() {
+        UpstreamScheduler scheduler = new UpstreamScheduler(10, 1, 100, 10, 2000, 3, 1);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpClientErrorException.class, () -> scheduler.execute(UpstreamPriority.WRITE, () -> {
+            calls.incrementAndGet();
+            throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", new HttpHeaders(), null, null);
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testExecute_ThrottledWhenDeadlinePasses() {
+        UpstreamScheduler scheduler = new UpstreamScheduler(1, 1, 1, 1, 50, 0, 1);
+        scheduler.execute(UpstreamPriority.INTERACTIVE, () -> "first");
+
+        assertThrows(UpstreamThrottledException.class, () -> scheduler.execute(UpstreamPriority.INTERACTIVE, () -> "second"));
+        assertEquals(0, scheduler.getQueueLength());
+    }
+
+    @Test
+    public void testRetryAfterMillis() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "2");
+
+        assertEquals(2000, UpstreamScheduler.retryAfterMillis(headers));
+        assertEquals(0, UpstreamScheduler.retryAfterMillis(new HttpHeaders()));
+    }
+
+}